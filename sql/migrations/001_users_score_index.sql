@@ -0,0 +1,4 @@
+-- Leaderboard and rank lookups (GET /users/leaderboard, GET /users/{id}/rank).
+-- Top-N reads the first N entries in (score DESC, id) order, and a rank is two
+-- COUNT(*) range scans over it, without touching table rows.
+CREATE INDEX idx_users_score ON users (score DESC, id);
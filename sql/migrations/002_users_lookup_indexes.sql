@@ -0,0 +1,17 @@
+-- Lookups by email, username and wallet address (GET /users?email=, ?username=,
+-- ?wallet_address=, used by login and wallet binding). Each is an equality
+-- match on a unique index. A duplicate on create or update now fails with 409.
+--
+-- Creating a unique index fails if the column already has duplicates. Find
+-- them first and resolve them:
+--   SELECT email, COUNT(*) FROM users GROUP BY email HAVING COUNT(*) > 1;
+--   SELECT username, COUNT(*) FROM users GROUP BY username HAVING COUNT(*) > 1;
+--   SELECT wallet_address, COUNT(*) FROM users
+--     WHERE wallet_address IS NOT NULL GROUP BY wallet_address HAVING COUNT(*) > 1;
+-- Unbound users keep wallet_address NULL. Unique indexes allow any number of
+-- NULLs, but not repeated empty strings, so normalise '' to NULL first.
+UPDATE users SET wallet_address = NULL WHERE wallet_address = '';
+
+CREATE UNIQUE INDEX uk_users_email ON users (email);
+CREATE UNIQUE INDEX uk_users_username ON users (username);
+CREATE UNIQUE INDEX uk_users_wallet_address ON users (wallet_address);
@@ -0,0 +1,122 @@
+package com.example.lambda;
+
+import com.example.lambda.util.Db;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Embedded H2 database (MySQL mode) standing in for RDS in benchmarks
+ */
+public final class BenchmarkDatabase {
+    private static final String USER = "sa";
+    private static final String PASSWORD = "";
+
+    private static final String SCHEMA =
+            "CREATE TABLE IF NOT EXISTS users (" +
+            "id INT AUTO_INCREMENT PRIMARY KEY, " +
+            "username VARCHAR(255) NOT NULL, " +
+            "email VARCHAR(255) NOT NULL, " +
+            "password VARCHAR(255) NOT NULL, " +
+            "score INT DEFAULT 0, " +
+            "wallet_address VARCHAR(255), " +
+            "wallet_type VARCHAR(50), " +
+            "bind_time DATETIME)";
+    // Mirrors sql/migrations
+    private static final String[] INDEXES = {
+            "CREATE INDEX idx_users_score ON users (score DESC, id)",
+            "CREATE UNIQUE INDEX uk_users_email ON users (email)",
+            "CREATE UNIQUE INDEX uk_users_username ON users (username)",
+            "CREATE UNIQUE INDEX uk_users_wallet_address ON users (wallet_address)"
+    };
+
+    private BenchmarkDatabase() {}
+
+    /**
+     * JDBC URL of a named in-memory database
+     */
+    public static String url(String name) {
+        return "jdbc:h2:mem:" + name + ";MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1";
+    }
+
+    /**
+     * Open a direct (unpooled) connection to a named in-memory database
+     */
+    public static Connection connect(String name) throws SQLException {
+        return DriverManager.getConnection(url(name), USER, PASSWORD);
+    }
+
+    /**
+     * Create and populate a named in-memory database and point Db at it
+     * @param name Database name
+     * @param rows Number of users to insert
+     */
+    public static void start(String name, int rows) throws SQLException {
+        start(name, rows, 0);
+    }
+
+    /**
+     * Create and populate a named in-memory database and point Db at it
+     * through LatencyDriver, so every pooled round trip takes at least
+     * latencyMicros
+     * @param name Database name
+     * @param rows Number of users to insert
+     * @param latencyMicros Simulated network round trip, 0 for none
+     */
+    public static void start(String name, int rows, long latencyMicros) throws SQLException {
+        create(name, rows);
+        Db.configure(latencyMicros > 0 ? LatencyDriver.url(latencyMicros, url(name)) : url(name), USER, PASSWORD);
+    }
+
+    /**
+     * Create and populate a named in-memory database without pointing Db at
+     * it, e.g. a stand-in read replica
+     * @param name Database name
+     * @param rows Number of users to insert
+     */
+    public static void create(String name, int rows) throws SQLException {
+        try (Connection conn = connect(name)) {
+            try (Statement stmt = conn.createStatement()) {
+                stmt.execute("DROP TABLE IF EXISTS users");
+                stmt.execute(SCHEMA);
+                for (String index : INDEXES) {
+                    stmt.execute(index);
+                }
+            }
+            insertUsers(conn, rows);
+        }
+    }
+
+    /**
+     * Route Db's reads to the given databases as read replicas
+     * @param urls JDBC URLs, e.g. from url() or LatencyDriver.url()
+     */
+    public static void useReplicas(List<String> urls) {
+        Db.configureReplicas(urls, USER, PASSWORD);
+    }
+
+    private static void insertUsers(Connection conn, int rows) throws SQLException {
+        String sql = "INSERT INTO users (username, email, password, score, wallet_address, wallet_type, bind_time) " +
+                     "VALUES (?, ?, ?, ?, ?, ?, ?)";
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            Timestamp bindTime = Timestamp.valueOf(LocalDateTime.of(2024, 1, 1, 12, 0));
+            for (int i = 1; i <= rows; i++) {
+                stmt.setString(1, "player_" + i);
+                stmt.setString(2, "player" + i + "@example.com");
+                stmt.setString(3, "secret" + i);
+                stmt.setInt(4, (i * 7919) % 100000);
+                stmt.setString(5, "0x" + Integer.toHexString(i * 31337));
+                stmt.setString(6, "ETH");
+                stmt.setTimestamp(7, bindTime);
+                stmt.addBatch();
+            }
+            stmt.executeBatch();
+        }
+    }
+}
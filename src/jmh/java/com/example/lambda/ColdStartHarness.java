@@ -0,0 +1,83 @@
+package com.example.lambda;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Measures time-to-first-response from a fresh JVM for each STARTUP_PRIMING
+ * mode by launching ColdStartProbe repeatedly.
+ *
+ * <pre>
+ * java -cp target/benchmarks.jar com.example.lambda.ColdStartHarness [runs] [modes...]
+ * </pre>
+ *
+ * init is the Lambda init phase (handler class initialisation); first is the
+ * first invocation. Priming moves work from first into init, which Lambda
+ * runs before the request arrives (and SnapStart snapshots).
+ */
+public class ColdStartHarness {
+    private static final List<String> DEFAULT_MODES = List.of("none", "eager", "pool");
+
+    public static void main(String[] args) throws Exception {
+        int runs = args.length > 0 ? Integer.parseInt(args[0]) : 5;
+        List<String> modes = args.length > 1 ? Arrays.asList(args).subList(1, args.length) : DEFAULT_MODES;
+
+        String java = System.getProperty("java.home") + File.separator + "bin" + File.separator + "java";
+        String classpath = System.getProperty("java.class.path");
+
+        System.out.printf("%-6s %12s %16s %14s%n", "mode", "init ms p50", "first req ms p50", "total ms p50");
+        for (String mode : modes) {
+            List<Double> init = new ArrayList<>();
+            List<Double> first = new ArrayList<>();
+            List<Double> total = new ArrayList<>();
+            for (int i = 0; i < runs; i++) {
+                ProcessBuilder builder = new ProcessBuilder(java, "-cp", classpath, ColdStartProbe.class.getName());
+                builder.environment().put("STARTUP_PRIMING", mode);
+                builder.redirectErrorStream(true);
+                Process process = builder.start();
+
+                String result = null;
+                try (BufferedReader reader = new BufferedReader(
+                        new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
+                    String line;
+                    while ((line = reader.readLine()) != null) {
+                        if (line.startsWith("RESULT ")) {
+                            result = line;
+                        }
+                    }
+                }
+                if (process.waitFor() != 0 || result == null) {
+                    throw new IllegalStateException("Probe failed for mode " + mode);
+                }
+
+                double initMs = field(result, "initMs");
+                double firstMs = field(result, "firstRequestMs");
+                init.add(initMs);
+                first.add(firstMs);
+                total.add(initMs + firstMs);
+            }
+            System.out.printf("%-6s %12.1f %16.1f %14.1f%n", mode, median(init), median(first), median(total));
+        }
+    }
+
+    private static double field(String line, String name) {
+        for (String part : line.split(" ")) {
+            if (part.startsWith(name + "=")) {
+                return Double.parseDouble(part.substring(name.length() + 1));
+            }
+        }
+        throw new IllegalArgumentException("Missing " + name + " in: " + line);
+    }
+
+    private static double median(List<Double> values) {
+        List<Double> sorted = new ArrayList<>(values);
+        Collections.sort(sorted);
+        return sorted.get(sorted.size() / 2);
+    }
+}
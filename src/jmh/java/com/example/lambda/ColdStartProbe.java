@@ -0,0 +1,32 @@
+package com.example.lambda;
+
+import com.amazonaws.services.lambda.runtime.events.APIGatewayV2HTTPEvent;
+import com.amazonaws.services.lambda.runtime.events.APIGatewayV2HTTPResponse;
+
+import java.lang.management.ManagementFactory;
+
+/**
+ * Runs once in a fresh JVM: initialises UserHandler (the Lambda init phase)
+ * and serves a single request against an embedded database, then prints
+ * timings for ColdStartHarness to collect.
+ */
+public class ColdStartProbe {
+    public static void main(String[] args) throws Exception {
+        // Database setup stands in for RDS already running; it is not timed
+        BenchmarkDatabase.start("coldstart", 100);
+        APIGatewayV2HTTPEvent event = RoutingBenchmark.event("GET", "/users/1", null, null);
+
+        long initStart = System.nanoTime();
+        UserHandler handler = new UserHandler();
+        long initEnd = System.nanoTime();
+        APIGatewayV2HTTPResponse response = handler.handleRequest(event, null);
+        long firstEnd = System.nanoTime();
+        long jvmUptimeMs = ManagementFactory.getRuntimeMXBean().getUptime();
+
+        System.out.printf("RESULT status=%d initMs=%.2f firstRequestMs=%.2f uptimeMs=%d%n",
+                response.getStatusCode(),
+                (initEnd - initStart) / 1e6,
+                (firstEnd - initEnd) / 1e6,
+                jvmUptimeMs);
+    }
+}
@@ -0,0 +1,228 @@
+package com.example.lambda;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.Driver;
+import java.sql.DriverManager;
+import java.sql.DriverPropertyInfo;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.SQLNonTransientConnectionException;
+import java.sql.SQLRecoverableException;
+import java.sql.SQLTimeoutException;
+import java.sql.Statement;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+import java.util.logging.Logger;
+
+/**
+ * JDBC driver that adds a fixed delay to every statement execution, commit,
+ * rollback and validation on a wrapped connection, standing in for the
+ * network round trip to RDS that an in-process H2 database does not have.
+ *
+ * <pre>
+ * jdbc:latency:&lt;microseconds&gt;:&lt;target JDBC URL&gt;
+ * </pre>
+ *
+ * It can also simulate a failing database for all wrapped connections:
+ * setSlowdown() adds delay to every round trip, setDown() refuses connects
+ * and round trips, and failNext() breaks the connections of the next few
+ * round trips. Query and network timeouts behave as a real driver's do: a
+ * round trip longer than the query timeout is cancelled with an
+ * SQLTimeoutException, and one longer than the network timeout breaks the
+ * connection.
+ */
+public final class LatencyDriver implements Driver {
+    private static final String PREFIX = "jdbc:latency:";
+
+    private static volatile long slowdownNanos;
+    private static volatile boolean down;
+    private static final AtomicInteger failures = new AtomicInteger();
+
+    static {
+        try {
+            DriverManager.registerDriver(new LatencyDriver());
+        } catch (SQLException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    /**
+     * Wrap a JDBC URL so each round trip takes at least the given time
+     * @param micros Delay per round trip
+     * @param targetUrl URL of the real database
+     * @return Latency URL
+     */
+    public static String url(long micros, String targetUrl) {
+        return PREFIX + micros + ":" + targetUrl;
+    }
+
+    /**
+     * Add a delay to every round trip on top of the URL's, e.g. an overloaded database
+     * @param millis Extra delay, 0 to restore normal latency
+     */
+    public static void setSlowdown(long millis) {
+        slowdownNanos = TimeUnit.MILLISECONDS.toNanos(millis);
+    }
+
+    /**
+     * Refuse new connections and fail every round trip, e.g. a failover in progress
+     * @param isDown true to take the database down
+     */
+    public static void setDown(boolean isDown) {
+        down = isDown;
+    }
+
+    /**
+     * Fail the next round trips with a communications error that breaks their
+     * connections, e.g. pooled sockets dropped while the container was frozen
+     * @param count Round trips to fail
+     */
+    public static void failNext(int count) {
+        failures.set(count);
+    }
+
+    @Override
+    public Connection connect(String url, Properties info) throws SQLException {
+        if (!acceptsURL(url)) {
+            return null;
+        }
+        if (down) {
+            throw new SQLNonTransientConnectionException("Communications link failure (simulated)", "08S01");
+        }
+        int separator = url.indexOf(':', PREFIX.length());
+        long delayNanos = Long.parseLong(url.substring(PREFIX.length(), separator)) * 1000L;
+        Connection target = DriverManager.getConnection(url.substring(separator + 1), info);
+        return wrap(Connection.class, target, new Link(delayNanos));
+    }
+
+    /**
+     * Simulated network state of one connection
+     */
+    private static final class Link {
+        final long delayNanos;
+        volatile long networkTimeoutNanos;
+        volatile boolean broken;
+
+        Link(long delayNanos) {
+            this.delayNanos = delayNanos;
+        }
+
+        void roundTrip(int queryTimeoutSeconds) throws SQLException {
+            if (broken) {
+                throw new SQLNonTransientConnectionException("No operations allowed after connection closed", "08003");
+            }
+            if (down) {
+                broken = true;
+                throw new SQLRecoverableException("Communications link failure (simulated)", "08S01");
+            }
+            if (failures.getAndUpdate(n -> Math.max(0, n - 1)) > 0) {
+                broken = true;
+                throw new SQLRecoverableException("Communications link failure (simulated)", "08S01");
+            }
+            long delay = delayNanos + slowdownNanos;
+            long queryLimit = queryTimeoutSeconds > 0 ? TimeUnit.SECONDS.toNanos(queryTimeoutSeconds) : Long.MAX_VALUE;
+            long networkLimit = networkTimeoutNanos > 0 ? networkTimeoutNanos : Long.MAX_VALUE;
+            if (delay <= Math.min(queryLimit, networkLimit)) {
+                LockSupport.parkNanos(delay);
+            } else if (queryLimit <= networkLimit) {
+                LockSupport.parkNanos(queryLimit);
+                throw new SQLTimeoutException("Statement cancelled due to timeout (simulated)", "HY008");
+            } else {
+                LockSupport.parkNanos(networkLimit);
+                broken = true;
+                throw new SQLRecoverableException("Read timed out (simulated)", "08S01");
+            }
+        }
+    }
+
+    private static <T> T wrap(Class<T> type, T target, Link link) {
+        int[] queryTimeout = new int[1];
+        InvocationHandler handler = (proxy, method, args) -> {
+            String name = method.getName();
+            switch (name) {
+                case "isClosed":
+                    if (link.broken) {
+                        return true;
+                    }
+                    break;
+                case "isValid":
+                    if (link.broken || down) {
+                        return false;
+                    }
+                    link.roundTrip(0);
+                    break;
+                case "setNetworkTimeout":
+                    link.networkTimeoutNanos = TimeUnit.MILLISECONDS.toNanos((Integer) args[1]);
+                    return null;
+                case "getNetworkTimeout":
+                    return (int) TimeUnit.NANOSECONDS.toMillis(link.networkTimeoutNanos);
+                case "setQueryTimeout":
+                    queryTimeout[0] = (Integer) args[0];
+                    break;
+                case "commit":
+                case "rollback":
+                    link.roundTrip(0);
+                    break;
+                default:
+                    if (name.startsWith("execute")) {
+                        link.roundTrip(queryTimeout[0]);
+                    }
+            }
+            Object result;
+            try {
+                result = method.invoke(target, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+            if (result instanceof CallableStatement) {
+                return wrap(CallableStatement.class, (CallableStatement) result, link);
+            }
+            if (result instanceof PreparedStatement) {
+                return wrap(PreparedStatement.class, (PreparedStatement) result, link);
+            }
+            if (result instanceof Statement && method.getDeclaringClass() == Connection.class) {
+                return wrap(Statement.class, (Statement) result, link);
+            }
+            return result;
+        };
+        return type.cast(Proxy.newProxyInstance(LatencyDriver.class.getClassLoader(), new Class<?>[] {type}, handler));
+    }
+
+    @Override
+    public boolean acceptsURL(String url) {
+        return url != null && url.startsWith(PREFIX);
+    }
+
+    @Override
+    public DriverPropertyInfo[] getPropertyInfo(String url, Properties info) {
+        return new DriverPropertyInfo[0];
+    }
+
+    @Override
+    public int getMajorVersion() {
+        return 1;
+    }
+
+    @Override
+    public int getMinorVersion() {
+        return 0;
+    }
+
+    @Override
+    public boolean jdbcCompliant() {
+        return false;
+    }
+
+    @Override
+    public Logger getParentLogger() throws SQLFeatureNotSupportedException {
+        throw new SQLFeatureNotSupportedException();
+    }
+}
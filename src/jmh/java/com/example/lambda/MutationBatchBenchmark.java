@@ -0,0 +1,91 @@
+package com.example.lambda;
+
+import com.amazonaws.services.lambda.runtime.events.SQSBatchResponse;
+import com.amazonaws.services.lambda.runtime.events.SQSEvent;
+import com.example.lambda.util.Db;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 100 queued score changes through UserQueueHandler against an embedded
+ * database: one invocation per message (what the HTTP endpoint costs per
+ * change) versus one SQS batch applied in a single transaction. Score
+ * changes avoid password hashing, so the difference is transactions and
+ * round trips: about 200 statements per op per message, 3 batched. H2 runs
+ * in-process, so on RDS each of those also pays the network round trip.
+ * H2 needs a long warmup before timings settle.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 3)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MutationBatchBenchmark {
+    private static final int ROWS = 1_000;
+    private static final int MESSAGES = 100;
+
+    @Param({"perMessage", "batch"})
+    public String mode;
+
+    private UserQueueHandler handler;
+    private SQSEvent batch;
+    private List<SQSEvent> singles;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        BenchmarkDatabase.start("mutation", ROWS);
+        handler = new UserQueueHandler();
+
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        List<SQSEvent.SQSMessage> messages = new ArrayList<>(MESSAGES);
+        singles = new ArrayList<>(MESSAGES);
+        for (int i = 0; i < MESSAGES; i++) {
+            SQSEvent.SQSMessage message = new SQSEvent.SQSMessage();
+            message.setMessageId("msg-" + i);
+            message.setBody("{\"type\":\"score\",\"id\":" + (random.nextInt(ROWS) + 1) + ",\"delta\":1}");
+            messages.add(message);
+            singles.add(event(List.of(message)));
+        }
+        batch = event(messages);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        Db.shutdown();
+    }
+
+    private static SQSEvent event(List<SQSEvent.SQSMessage> messages) {
+        SQSEvent event = new SQSEvent();
+        event.setRecords(messages);
+        return event;
+    }
+
+    @Benchmark
+    public Object process() {
+        if ("batch".equals(mode)) {
+            return handler.handleRequest(batch, null);
+        }
+        SQSBatchResponse last = null;
+        for (SQSEvent single : singles) {
+            last = handler.handleRequest(single, null);
+        }
+        return last;
+    }
+}
@@ -0,0 +1,105 @@
+package com.example.lambda;
+
+import com.amazonaws.services.lambda.runtime.events.KinesisEvent;
+import com.amazonaws.services.lambda.runtime.events.SQSEvent;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.MapperFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * Runs UserQueueHandler or UserStreamHandler on an event JSON file (as
+ * delivered by Lambda) against an embedded database of 10 users, then prints
+ * the batch response and the resulting rows.
+ *
+ * <pre>
+ * java -cp target/benchmarks.jar com.example.lambda.MutationEventHarness [sqs|kinesis|event.json]
+ * </pre>
+ *
+ * Without a file a synthetic batch is used: two creates sharing an email, an
+ * update, score changes before and after it, a score change for a missing
+ * user and a malformed record. The duplicate fails the batch transaction, so
+ * it also exercises the one-at-a-time fallback.
+ */
+public class MutationEventHarness {
+    private static final List<String> SYNTHETIC_BODIES = List.of(
+            "{\"type\":\"create\",\"user\":{\"username\":\"new_a\",\"email\":\"dup@example.com\",\"password\":\"pw-a\"}}",
+            "{\"type\":\"score\",\"id\":3,\"delta\":100}",
+            "{\"type\":\"update\",\"id\":3,\"user\":{\"username\":\"renamed_3\",\"email\":\"renamed3@example.com\",\"password\":\"pw-3\",\"score\":1000}}",
+            "{\"type\":\"score\",\"id\":3,\"delta\":5}",
+            "{\"type\":\"score\",\"id\":4,\"delta\":-7}",
+            "{\"type\":\"score\",\"id\":999,\"delta\":1}",
+            "{\"type\":\"create\",\"user\":{\"username\":\"new_b\",\"email\":\"dup@example.com\",\"password\":\"pw-b\"}}",
+            "{not json");
+
+    // Lambda event JSON uses "Records" and "eventSourceARN"; the POJOs do not
+    private static final ObjectMapper EVENT_MAPPER = JsonMapper.builder()
+            .enable(MapperFeature.ACCEPT_CASE_INSENSITIVE_PROPERTIES)
+            .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+            .build();
+
+    public static void main(String[] args) throws Exception {
+        String source = args.length > 0 ? args[0] : "sqs";
+        String json;
+        if ("sqs".equals(source)) {
+            json = syntheticSqsEvent();
+        } else if ("kinesis".equals(source)) {
+            json = syntheticKinesisEvent();
+        } else {
+            json = Files.readString(Path.of(source));
+        }
+
+        BenchmarkDatabase.start("mutations", 10);
+        Object response;
+        if (json.contains("\"aws:kinesis\"")) {
+            response = new UserStreamHandler().handleRequest(EVENT_MAPPER.readValue(json, KinesisEvent.class), null);
+        } else {
+            response = new UserQueueHandler().handleRequest(EVENT_MAPPER.readValue(json, SQSEvent.class), null);
+        }
+
+        System.out.println("Response: " + response);
+        try (Connection conn = BenchmarkDatabase.connect("mutations");
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT id, username, email, score FROM users ORDER BY id")) {
+            while (rs.next()) {
+                System.out.printf("%4d %-12s %-24s %d%n", rs.getInt(1), rs.getString(2), rs.getString(3), rs.getInt(4));
+            }
+        }
+    }
+
+    private static String syntheticSqsEvent() {
+        StringBuilder json = new StringBuilder("{\"Records\":[");
+        for (int i = 0; i < SYNTHETIC_BODIES.size(); i++) {
+            json.append(i == 0 ? "" : ",")
+                .append("{\"messageId\":\"msg-").append(i + 1).append("\",")
+                .append("\"body\":").append(quote(SYNTHETIC_BODIES.get(i))).append(",")
+                .append("\"eventSource\":\"aws:sqs\"}");
+        }
+        return json.append("]}").toString();
+    }
+
+    private static String syntheticKinesisEvent() {
+        StringBuilder json = new StringBuilder("{\"Records\":[");
+        for (int i = 0; i < SYNTHETIC_BODIES.size(); i++) {
+            String data = Base64.getEncoder().encodeToString(SYNTHETIC_BODIES.get(i).getBytes(StandardCharsets.UTF_8));
+            json.append(i == 0 ? "" : ",")
+                .append("{\"kinesis\":{\"partitionKey\":\"users\",\"sequenceNumber\":\"").append(1000 + i)
+                .append("\",\"data\":\"").append(data).append("\"},")
+                .append("\"eventSource\":\"aws:kinesis\"}");
+        }
+        return json.append("]}").toString();
+    }
+
+    private static String quote(String value) {
+        return "\"" + value.replace("\\", "\\\\").replace("\"", "\\\"") + "\"";
+    }
+}
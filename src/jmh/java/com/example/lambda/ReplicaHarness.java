@@ -0,0 +1,91 @@
+package com.example.lambda;
+
+import com.amazonaws.services.lambda.runtime.events.APIGatewayV2HTTPResponse;
+import com.example.lambda.metrics.Metrics;
+import com.example.lambda.util.Db;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.util.List;
+
+/**
+ * Drives UserHandler against three embedded databases standing in for a
+ * primary and two read replicas. User 1 has a different username in each,
+ * so every response shows which database served it. replica-a is behind
+ * LatencyDriver with a 2ms round trip; replica-b and the primary have none.
+ * Nothing replicates between them, so a write is only visible on the
+ * primary. Prints one line per request, then the EMF line with the
+ * replica counters:
+ * <ol>
+ *   <li>reads: spread over the replicas (round-robin), or mostly replica-b (least-latency)</li>
+ *   <li>PUT /users/1: its follow-up read comes from the primary and returns the new username</li>
+ *   <li>the next request: back on a replica, which has not seen the write</li>
+ *   <li>replica-a down: its reads are retried on replica-b until its circuit opens, then skip it</li>
+ * </ol>
+ *
+ * Run with the user cache off, so reads reach the database:
+ * <pre>
+ * USER_CACHE_MAX_SIZE=0 LOG_LEVEL=ERROR java -cp target/benchmarks.jar com.example.lambda.ReplicaHarness
+ * USER_CACHE_MAX_SIZE=0 LOG_LEVEL=ERROR DB_REPLICA_ROUTING=least-latency java -cp target/benchmarks.jar com.example.lambda.ReplicaHarness
+ * </pre>
+ */
+public class ReplicaHarness {
+    private static final ObjectMapper mapper = new ObjectMapper();
+    private static final UserHandler handler = new UserHandler();
+
+    public static void main(String[] args) throws Exception {
+        BenchmarkDatabase.start("replica-primary", 10);
+        BenchmarkDatabase.create("replica-a", 10);
+        BenchmarkDatabase.create("replica-b", 10);
+        rename("replica-primary", "on_primary");
+        rename("replica-a", "on_replica_a");
+        rename("replica-b", "on_replica_b");
+        BenchmarkDatabase.useReplicas(List.of(
+                LatencyDriver.url(2000, BenchmarkDatabase.url("replica-a")),
+                BenchmarkDatabase.url("replica-b")));
+
+        System.out.println("-- reads");
+        for (int i = 0; i < 6; i++) {
+            call("GET", null);
+        }
+
+        System.out.println("-- write, then read in the same request");
+        call("PUT", "{\"username\":\"renamed\",\"email\":\"renamed@example.com\",\"password\":\"secret1\",\"score\":10}");
+
+        System.out.println("-- next request");
+        call("GET", null);
+
+        System.out.println("-- replica-a down");
+        LatencyDriver.setDown(true);
+        for (int i = 0; i < 10; i++) {
+            call("GET", null);
+        }
+        LatencyDriver.setDown(false);
+
+        Metrics.flush();
+        Db.shutdown();
+    }
+
+    private static void call(String method, String body) throws Exception {
+        long start = System.nanoTime();
+        APIGatewayV2HTTPResponse response = handler.handleRequest(
+                RoutingBenchmark.event(method, "/users/1", null, body), null);
+        double elapsedMs = (System.nanoTime() - start) / 1e6;
+        String username = "-";
+        if (response.getStatusCode() < 300) {
+            JsonNode json = mapper.readTree(response.getBody());
+            username = (json.has("data") ? json.get("data") : json).path("username").asText();
+        }
+        System.out.printf("%-3s /users/1 -> %d %s in %.1fms%n", method, response.getStatusCode(), username, elapsedMs);
+    }
+
+    private static void rename(String database, String username) throws Exception {
+        try (Connection conn = BenchmarkDatabase.connect(database);
+             PreparedStatement stmt = conn.prepareStatement("UPDATE users SET username = ? WHERE id = 1")) {
+            stmt.setString(1, username);
+            stmt.executeUpdate();
+        }
+    }
+}
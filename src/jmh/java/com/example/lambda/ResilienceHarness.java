@@ -0,0 +1,94 @@
+package com.example.lambda;
+
+import com.amazonaws.services.lambda.runtime.Context;
+import com.amazonaws.services.lambda.runtime.events.APIGatewayV2HTTPResponse;
+import com.example.lambda.metrics.Metrics;
+import com.example.lambda.util.Db;
+
+import java.lang.reflect.Proxy;
+
+/**
+ * Drives UserHandler through database failures simulated by LatencyDriver,
+ * each request with a 3s invocation deadline, and prints status, latency and
+ * circuit state per request, then the EMF line with the DB counters:
+ * <ol>
+ *   <li>healthy: 200</li>
+ *   <li>dropped connection: the read is retried on a new connection, 200</li>
+ *   <li>slow database (5s per round trip): query timeout from the deadline, 504 in ~2s</li>
+ *   <li>database down: 503s until the circuit opens, then 503 with Retry-After without a round trip</li>
+ *   <li>recovered: after Retry-After a trial request closes the circuit, 200</li>
+ * </ol>
+ *
+ * <pre>
+ * LOG_LEVEL=ERROR java -cp target/benchmarks.jar com.example.lambda.ResilienceHarness
+ * </pre>
+ */
+public class ResilienceHarness {
+    private static final int INVOCATION_TIMEOUT_MS = 3000;
+
+    private static final UserHandler handler = new UserHandler();
+    private static int nextId = 1;
+
+    public static void main(String[] args) throws Exception {
+        BenchmarkDatabase.start("resilience", 100, 200);
+
+        System.out.println("-- healthy");
+        call();
+
+        System.out.println("-- dropped connection");
+        LatencyDriver.failNext(1);
+        call();
+
+        System.out.println("-- slow database");
+        LatencyDriver.setSlowdown(5000);
+        call();
+        LatencyDriver.setSlowdown(0);
+
+        System.out.println("-- database down");
+        LatencyDriver.setDown(true);
+        APIGatewayV2HTTPResponse response;
+        do {
+            response = call();
+        } while (!response.getHeaders().containsKey("Retry-After"));
+        call();
+
+        System.out.println("-- recovered");
+        LatencyDriver.setDown(false);
+        Thread.sleep(Long.parseLong(response.getHeaders().get("Retry-After")) * 1000L);
+        call();
+        call();
+
+        Metrics.flush();
+        Db.shutdown();
+    }
+
+    private static APIGatewayV2HTTPResponse call() {
+        int id = nextId++;
+        long start = System.nanoTime();
+        APIGatewayV2HTTPResponse response = handler.handleRequest(
+                RoutingBenchmark.event("GET", "/users/" + id, null, null), context(INVOCATION_TIMEOUT_MS));
+        long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+        String retryAfter = response.getHeaders().get("Retry-After");
+        System.out.printf("GET /users/%d -> %d in %dms%s, circuit %s%n", id, response.getStatusCode(), elapsedMs,
+                          retryAfter != null ? " (Retry-After " + retryAfter + "s)" : "", Db.getCircuitState());
+        return response;
+    }
+
+    /**
+     * Lambda context that only knows its deadline
+     */
+    private static Context context(int timeoutMs) {
+        long deadline = System.nanoTime() + timeoutMs * 1_000_000L;
+        return (Context) Proxy.newProxyInstance(Context.class.getClassLoader(), new Class<?>[] {Context.class},
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "getRemainingTimeInMillis":
+                            return (int) Math.max(0, (deadline - System.nanoTime()) / 1_000_000);
+                        case "getMemoryLimitInMB":
+                            return 1024;
+                        default:
+                            return null;
+                    }
+                });
+    }
+}
@@ -0,0 +1,134 @@
+package com.example.lambda;
+
+import com.amazonaws.services.lambda.runtime.events.APIGatewayV2HTTPResponse;
+import com.example.lambda.model.User;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the original Map-based envelope serialisation with ResponseWriter.
+ *
+ * Run with the GC profiler to see allocation per operation:
+ * <pre>
+ * java -jar target/benchmarks.jar ResponseSerializationBenchmark -prof gc
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ResponseSerializationBenchmark {
+    private ObjectMapper objectMapper;
+    private ResponseWriter responseWriter;
+    private User user;
+    private Map<String, Object> page;
+
+    @Setup
+    public void setup() {
+        objectMapper = new ObjectMapper()
+                .registerModule(new com.fasterxml.jackson.datatype.jsr310.JavaTimeModule());
+        responseWriter = new ResponseWriter(objectMapper);
+
+        user = sampleUser(1);
+        List<User> users = new ArrayList<>();
+        for (int i = 1; i <= 10; i++) {
+            users.add(sampleUser(i));
+        }
+        page = new HashMap<>();
+        page.put("users", users);
+        page.put("pagination", Map.of("limit", 10, "offset", 0, "hasMore", true));
+    }
+
+    static User sampleUser(int id) {
+        return new User(id, "player_" + id, "player" + id + "@example.com", "secret" + id,
+                id * 100, "0x1234567890abcdef" + id, "ETH", LocalDateTime.of(2024, 1, 1, 12, 0));
+    }
+
+    @Benchmark
+    public APIGatewayV2HTTPResponse legacySingleUser() throws Exception {
+        return legacySuccess(200, user);
+    }
+
+    @Benchmark
+    public APIGatewayV2HTTPResponse writerSingleUser() {
+        return responseWriter.success(200, user);
+    }
+
+    @Benchmark
+    public APIGatewayV2HTTPResponse legacyUserPage() throws Exception {
+        return legacySuccess(200, page);
+    }
+
+    @Benchmark
+    public APIGatewayV2HTTPResponse writerUserPage() {
+        return responseWriter.success(200, page);
+    }
+
+    @Benchmark
+    public APIGatewayV2HTTPResponse legacyFixedError() throws Exception {
+        return legacyError(400, "Username is required");
+    }
+
+    @Benchmark
+    public APIGatewayV2HTTPResponse writerFixedError() {
+        return responseWriter.error(400, "Username is required");
+    }
+
+    /**
+     * The pre-ResponseWriter implementation of UserHandler.createSuccessResponse
+     */
+    private APIGatewayV2HTTPResponse legacySuccess(int statusCode, Object data) throws Exception {
+        Map<String, Object> responseBody = new HashMap<>();
+        responseBody.put("success", true);
+        responseBody.put("data", data);
+
+        String jsonResponse = objectMapper.writeValueAsString(responseBody);
+
+        Map<String, String> headers = new HashMap<>();
+        headers.put("Content-Type", "application/json");
+
+        return APIGatewayV2HTTPResponse.builder()
+                .withStatusCode(statusCode)
+                .withHeaders(headers)
+                .withBody(jsonResponse)
+                .build();
+    }
+
+    /**
+     * The pre-ResponseWriter implementation of UserHandler.createErrorResponse
+     */
+    private APIGatewayV2HTTPResponse legacyError(int statusCode, String errorMessage) throws Exception {
+        Map<String, Object> responseBody = new HashMap<>();
+        responseBody.put("success", false);
+        responseBody.put("error", errorMessage);
+
+        String jsonResponse = objectMapper.writeValueAsString(responseBody);
+
+        Map<String, String> headers = new HashMap<>();
+        headers.put("Content-Type", "application/json");
+
+        return APIGatewayV2HTTPResponse.builder()
+                .withStatusCode(statusCode)
+                .withHeaders(headers)
+                .withBody(jsonResponse)
+                .build();
+    }
+}
@@ -0,0 +1,135 @@
+package com.example.lambda;
+
+import com.amazonaws.services.lambda.runtime.events.APIGatewayV2HTTPEvent;
+import com.amazonaws.services.lambda.runtime.events.APIGatewayV2HTTPResponse;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Route matching only: the original switch + regex dispatch versus Router,
+ * with handlers that return a constant response
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RouterBenchmark {
+    private static final Pattern USER_ID_PATTERN = Pattern.compile("/users/(\\d+)");
+    private static final APIGatewayV2HTTPResponse OK = APIGatewayV2HTTPResponse.builder().withStatusCode(200).build();
+    private static final APIGatewayV2HTTPResponse NOT_FOUND = APIGatewayV2HTTPResponse.builder().withStatusCode(404).build();
+    private static final APIGatewayV2HTTPResponse NOT_ALLOWED = APIGatewayV2HTTPResponse.builder().withStatusCode(405).build();
+
+    @Param({"GET /users/12345", "GET /users", "PUT /users/7", "DELETE /users/987654", "GET /accounts/1"})
+    public String request;
+
+    private String method;
+    private String path;
+    private APIGatewayV2HTTPEvent event;
+    private Router<Blackhole> router;
+
+    @Setup
+    public void setup() {
+        int space = request.indexOf(' ');
+        method = request.substring(0, space);
+        path = request.substring(space + 1);
+        event = RoutingBenchmark.event(method, path, null, null);
+
+        // The parsed id goes to the Blackhole passed as the routing target
+        Router.Handler<Blackhole> handler = (blackhole, e, id) -> {
+            blackhole.consume(id);
+            return OK;
+        };
+        router = Router.<Blackhole>builder()
+                .route("POST", "/users", handler)
+                .route("GET", "/users", handler)
+                .route("POST", "/users/batch", handler)
+                .route("GET", "/users/export", handler)
+                .route("GET", "/users/{id}", handler)
+                .route("PUT", "/users/{id}", handler)
+                .route("DELETE", "/users/{id}", handler)
+                .fallback(new Router.Fallback<>() {
+                    @Override
+                    public APIGatewayV2HTTPResponse notFound(Blackhole target, String m, String p) {
+                        return NOT_FOUND;
+                    }
+
+                    @Override
+                    public APIGatewayV2HTTPResponse methodNotAllowed(Blackhole target, String m, String p, String allow) {
+                        return NOT_ALLOWED;
+                    }
+                })
+                .build();
+    }
+
+    @Benchmark
+    public APIGatewayV2HTTPResponse router(Blackhole blackhole) {
+        return router.route(blackhole, method, path, event);
+    }
+
+    @Benchmark
+    public APIGatewayV2HTTPResponse legacyRegex(Blackhole blackhole) {
+        return legacyRoute(method, path, blackhole);
+    }
+
+    /**
+     * The pre-Router implementation of UserHandler.routeRequest
+     */
+    private APIGatewayV2HTTPResponse legacyRoute(String httpMethod, String path, Blackhole blackhole) {
+        switch (httpMethod) {
+            case "POST":
+                if ("/users".equals(path)) {
+                    return OK;
+                } else if ("/users/batch".equals(path)) {
+                    return OK;
+                }
+                break;
+
+            case "GET":
+                if ("/users".equals(path)) {
+                    return OK;
+                } else if ("/users/export".equals(path)) {
+                    return OK;
+                } else {
+                    Matcher matcher = USER_ID_PATTERN.matcher(path);
+                    if (matcher.matches()) {
+                        blackhole.consume(Integer.parseInt(matcher.group(1)));
+                        return OK;
+                    }
+                }
+                break;
+
+            case "PUT":
+                Matcher putMatcher = USER_ID_PATTERN.matcher(path);
+                if (putMatcher.matches()) {
+                    blackhole.consume(Integer.parseInt(putMatcher.group(1)));
+                    return OK;
+                }
+                break;
+
+            case "DELETE":
+                Matcher deleteMatcher = USER_ID_PATTERN.matcher(path);
+                if (deleteMatcher.matches()) {
+                    blackhole.consume(Integer.parseInt(deleteMatcher.group(1)));
+                    return OK;
+                }
+                break;
+        }
+        return NOT_FOUND;
+    }
+}
@@ -0,0 +1,108 @@
+package com.example.lambda;
+
+import com.amazonaws.services.lambda.runtime.events.APIGatewayV2HTTPEvent;
+import com.amazonaws.services.lambda.runtime.events.APIGatewayV2HTTPResponse;
+import com.example.lambda.util.Db;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * UserHandler.routeRequest end to end (routing, validation, DAO, JSON)
+ * against an embedded database, using API Gateway HTTP API v2 events shaped
+ * like production traffic.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RoutingBenchmark {
+    private static final int ROWS = 1000;
+
+    private UserHandler handler;
+    private APIGatewayV2HTTPEvent getUser;
+    private APIGatewayV2HTTPEvent listUsers;
+    private APIGatewayV2HTTPEvent invalidCreate;
+    private APIGatewayV2HTTPEvent notFound;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        BenchmarkDatabase.start("routing", ROWS);
+        handler = new UserHandler();
+
+        getUser = event("GET", "/users/42", null, null);
+        listUsers = event("GET", "/users", Map.of("limit", "10", "offset", "100"), null);
+        invalidCreate = event("POST", "/users", null, "{\"username\":\"player\",\"email\":\"p@example.com\"}");
+        notFound = event("PATCH", "/accounts/7", null, null);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        Db.shutdown();
+    }
+
+    static APIGatewayV2HTTPEvent event(String method, String path, Map<String, String> query, String body) {
+        return APIGatewayV2HTTPEvent.builder()
+                .withVersion("2.0")
+                .withRouteKey("ANY " + (path.matches("/users/\\d+") ? "/users/{id}" : path))
+                .withRawPath(path)
+                .withRawQueryString("")
+                .withQueryStringParameters(query)
+                .withHeaders(Map.of(
+                        "content-type", "application/json",
+                        "user-agent", "game-client/1.4.2",
+                        "x-forwarded-for", "203.0.113.10"))
+                .withBody(body)
+                .withIsBase64Encoded(false)
+                .withRequestContext(APIGatewayV2HTTPEvent.RequestContext.builder()
+                        .withRequestId("c6af9ac6-7b61-11e6-9a41-93e8deadbeef")
+                        .withStage("prod")
+                        .withHttp(APIGatewayV2HTTPEvent.RequestContext.Http.builder()
+                                .withMethod(method)
+                                .withPath(path)
+                                .withProtocol("HTTP/1.1")
+                                .withSourceIp("203.0.113.10")
+                                .withUserAgent("game-client/1.4.2")
+                                .build())
+                        .build())
+                .build();
+    }
+
+    private APIGatewayV2HTTPResponse route(APIGatewayV2HTTPEvent event) {
+        return handler.routeRequest(event.getRequestContext().getHttp().getMethod(), event.getRawPath(), event);
+    }
+
+    @Benchmark
+    public APIGatewayV2HTTPResponse getUserById() {
+        return route(getUser);
+    }
+
+    @Benchmark
+    public APIGatewayV2HTTPResponse listUsersPage() {
+        return route(listUsers);
+    }
+
+    @Benchmark
+    public APIGatewayV2HTTPResponse createValidationError() {
+        return route(invalidCreate);
+    }
+
+    @Benchmark
+    public APIGatewayV2HTTPResponse unknownRoute() {
+        return route(notFound);
+    }
+}
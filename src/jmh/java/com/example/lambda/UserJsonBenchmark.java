@@ -0,0 +1,68 @@
+package com.example.lambda;
+
+import com.example.lambda.model.User;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * User JSON deserialisation and serialisation with the handler's
+ * JavaTimeModule ObjectMapper configuration
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class UserJsonBenchmark {
+    private ObjectMapper objectMapper;
+    private ObjectReader userReader;
+    private ObjectWriter userWriter;
+    private User user;
+    private String requestBody;
+
+    @Setup
+    public void setup() throws Exception {
+        objectMapper = new ObjectMapper()
+                .registerModule(new com.fasterxml.jackson.datatype.jsr310.JavaTimeModule());
+        userReader = objectMapper.readerFor(User.class);
+        userWriter = objectMapper.writerFor(User.class);
+        user = ResponseSerializationBenchmark.sampleUser(42);
+        requestBody = "{\"username\":\"player_42\",\"email\":\"player42@example.com\",\"password\":\"secret42\"," +
+                      "\"score\":4200,\"wallet_address\":\"0x1234567890abcdef\",\"wallet_type\":\"ETH\"," +
+                      "\"bind_time\":\"2024-01-01T12:00:00\"}";
+    }
+
+    @Benchmark
+    public User deserializeWithMapper() throws Exception {
+        return objectMapper.readValue(requestBody, User.class);
+    }
+
+    @Benchmark
+    public User deserializeWithReader() throws Exception {
+        return userReader.readValue(requestBody);
+    }
+
+    @Benchmark
+    public String serializeWithMapper() throws Exception {
+        return objectMapper.writeValueAsString(user);
+    }
+
+    @Benchmark
+    public String serializeWithWriter() throws Exception {
+        return userWriter.writeValueAsString(user);
+    }
+}
@@ -0,0 +1,96 @@
+package com.example.lambda.dao;
+
+import com.example.lambda.BenchmarkDatabase;
+import com.example.lambda.model.Projection;
+import com.example.lambda.model.User;
+import com.example.lambda.util.Db;
+import com.example.lambda.util.FanOut;
+import com.example.lambda.util.LruCache;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A GET /users page (11 rows at offset 100) with an exact total, as the
+ * list endpoint fetches it:
+ * <ul>
+ *   <li>withTotal: UserDao.listWithTotal, the endpoint's path. On MySQL page
+ *   and count are one multi-statement round trip; H2 cannot run multi-statements,
+ *   so here it is both statements on one connection</li>
+ *   <li>sequential: page query, then SELECT COUNT(*), each on its own connection</li>
+ *   <li>fanOut: SELECT COUNT(*) on a FanOut call while the page runs on the caller</li>
+ * </ul>
+ * latencyMicros adds a simulated network round trip to every statement
+ * (LatencyDriver), since in-process H2 has none.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ListFanOutBenchmark {
+    private static final int LIMIT = 10;
+    private static final int OFFSET = 100;
+
+    @Param({"withTotal", "sequential", "fanOut"})
+    public String mode;
+
+    @Param({"10000"})
+    public int rows;
+
+    @Param({"0", "1000"})
+    public long latencyMicros;
+
+    private UserDao userDao;
+
+    @Setup(Level.Trial)
+    public void setup() throws SQLException {
+        BenchmarkDatabase.start("fanout", rows, latencyMicros);
+        userDao = new UserDao(new LruCache<>(0, 0), new LruCache<>(0, 0));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        Db.shutdown();
+    }
+
+    @Benchmark
+    public int page() throws SQLException {
+        switch (mode) {
+            case "withTotal": {
+                UserPage page = userDao.listWithTotal(LIMIT + 1, OFFSET, Projection.ALL);
+                return page.getUsers().size() + page.getTotal();
+            }
+            case "sequential": {
+                List<User> users = userDao.list(LIMIT + 1, OFFSET);
+                return users.size() + userDao.getCount();
+            }
+            case "fanOut": {
+                FanOut.Call<Integer> count = FanOut.submit(userDao::getCount);
+                try {
+                    List<User> users = userDao.list(LIMIT + 1, OFFSET);
+                    return users.size() + count.get();
+                } finally {
+                    count.cancel();
+                }
+            }
+            default:
+                throw new IllegalArgumentException("Unknown mode: " + mode);
+        }
+    }
+}
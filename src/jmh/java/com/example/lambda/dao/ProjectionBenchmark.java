@@ -0,0 +1,79 @@
+package com.example.lambda.dao;
+
+import com.example.lambda.BenchmarkDatabase;
+import com.example.lambda.model.Projection;
+import com.example.lambda.model.User;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One 100-row list page read, mapped and serialised, with every column versus
+ * the leaderboard projection fields=username,score
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ProjectionBenchmark {
+    private static final int PAGE_SIZE = 100;
+
+    @Param({"all", "username,score"})
+    public String fields;
+
+    private UserDao userDao;
+    private ObjectMapper objectMapper;
+    private Projection projection;
+    private Connection connection;
+    private PreparedStatement statement;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        BenchmarkDatabase.start("projection", PAGE_SIZE);
+        userDao = new UserDao();
+        objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+        projection = "all".equals(fields) ? Projection.ALL : Projection.parse(fields);
+        connection = BenchmarkDatabase.connect("projection");
+        statement = connection.prepareStatement(projection.select(" FROM users ORDER BY id LIMIT ?"));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        statement.close();
+        connection.close();
+    }
+
+    @Benchmark
+    public byte[] listPage() throws Exception {
+        statement.setInt(1, PAGE_SIZE);
+        List<Object> users = new ArrayList<>(PAGE_SIZE);
+        try (ResultSet rs = statement.executeQuery()) {
+            while (rs.next()) {
+                User user = userDao.mapResultSetToUser(rs, projection);
+                users.add(projection.view(user));
+            }
+        }
+        return objectMapper.writeValueAsBytes(users);
+    }
+}
@@ -0,0 +1,121 @@
+package com.example.lambda.dao;
+
+import com.example.lambda.BenchmarkDatabase;
+import com.example.lambda.model.User;
+import com.example.lambda.util.LruCache;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Concurrent score writes against a few hot users, standing in for game
+ * servers in separate containers (caches off):
+ * <ul>
+ *   <li>readModifyWrite: getById, add locally, full update (the old PUT flow)</li>
+ *   <li>atomic: UserDao.incrementScore</li>
+ *   <li>batch: UserDao.incrementScores with 10 pairs per call</li>
+ * </ul>
+ *
+ * Doubles as the concurrency check: at the end of the trial the hot users'
+ * total score must equal the starting total plus every delta applied. The
+ * atomic and batch modes fail the run if any increment was lost;
+ * readModifyWrite reports how many were.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 2)
+@Threads(4)
+@Fork(1)
+public class ScoreIncrementBenchmark {
+    private static final int ROWS = 1_000;
+    private static final int HOT_USERS = 8;
+    private static final int BATCH_SIZE = 10;
+
+    @Param({"readModifyWrite", "atomic", "batch"})
+    public String mode;
+
+    private UserDao userDao;
+    private long initialTotal;
+    private final AtomicLong applied = new AtomicLong();
+
+    @Setup(Level.Trial)
+    public void setup() throws SQLException {
+        BenchmarkDatabase.start("scores", ROWS);
+        userDao = new UserDao(new LruCache<>(0, 0), new LruCache<>(0, 0));
+        initialTotal = hotTotal();
+    }
+
+    @TearDown(Level.Trial)
+    public void verify() throws SQLException {
+        long lost = initialTotal + applied.get() - hotTotal();
+        if ("readModifyWrite".equals(mode)) {
+            System.out.println();
+            System.out.println("readModifyWrite lost " + lost + " of " + applied.get() + " increments");
+        } else if (lost != 0) {
+            throw new IllegalStateException(mode + " lost " + lost + " of " + applied.get() + " increments");
+        }
+    }
+
+    @Benchmark
+    public Object increment() throws SQLException {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        switch (mode) {
+            case "readModifyWrite": {
+                int id = random.nextInt(HOT_USERS) + 1;
+                User user = userDao.getById(id);
+                user.setScore(user.getScore() + 1);
+                userDao.update(id, user);
+                applied.incrementAndGet();
+                return user;
+            }
+            case "atomic": {
+                Integer score = userDao.incrementScore(random.nextInt(HOT_USERS) + 1, 1);
+                applied.incrementAndGet();
+                return score;
+            }
+            case "batch": {
+                Map<Integer, Integer> deltas = new HashMap<>();
+                for (int i = 0; i < BATCH_SIZE; i++) {
+                    deltas.merge(random.nextInt(HOT_USERS) + 1, 1, Integer::sum);
+                }
+                Map<Integer, Integer> scores = userDao.incrementScores(deltas);
+                applied.addAndGet(BATCH_SIZE);
+                return scores;
+            }
+            default:
+                throw new IllegalArgumentException("Unknown mode: " + mode);
+        }
+    }
+
+    private static long hotTotal() throws SQLException {
+        try (Connection conn = BenchmarkDatabase.connect("scores");
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT SUM(score) FROM users WHERE id <= " + HOT_USERS)) {
+            rs.next();
+            return rs.getLong(1);
+        }
+    }
+}
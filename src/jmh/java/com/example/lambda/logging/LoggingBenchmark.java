@@ -0,0 +1,100 @@
+package com.example.lambda.logging;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.slf4j.Logger;
+import org.slf4j.event.Level;
+
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Logging cost of one GET /users/{id} invocation: the handler's request
+ * start/end lines and UserDao's two per-call INFO lines, ending with the
+ * end-of-invocation flush.
+ *
+ * Modes:
+ * <ul>
+ *   <li>sync: write and flush every line on the request thread (slf4j-simple behaviour)</li>
+ *   <li>buffered: hold lines in memory, one write at the end of the invocation</li>
+ *   <li>sampled: buffered with DAO INFO lines kept for 10% of invocations</li>
+ *   <li>warn: LOG_LEVEL=WARN, the floor when nothing is written</li>
+ * </ul>
+ *
+ * Lines go to /dev/null, so this measures formatting and syscalls rather
+ * than the Lambda log pipe.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LoggingBenchmark {
+
+    @Param({"sync", "buffered", "sampled", "warn"})
+    public String mode;
+
+    private FileOutputStream out;
+    private LambdaLoggerFactory factory;
+    private Logger handlerLogger;
+    private Logger daoLogger;
+    private int id;
+
+    @Setup
+    public void setup() throws IOException {
+        LogConfig config;
+        List<String> sampled = List.of("com.example.lambda.dao");
+        switch (mode) {
+            case "sync":
+                config = new LogConfig(Level.INFO, false, 256, 1.0, sampled);
+                break;
+            case "buffered":
+                config = new LogConfig(Level.INFO, true, 256, 1.0, sampled);
+                break;
+            case "sampled":
+                config = new LogConfig(Level.INFO, true, 256, 0.1, sampled);
+                break;
+            case "warn":
+                config = new LogConfig(Level.WARN, true, 256, 1.0, sampled);
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown mode: " + mode);
+        }
+        out = new FileOutputStream("/dev/null");
+        factory = new LambdaLoggerFactory(config, LogWriter.create(config, out));
+        handlerLogger = factory.getLogger("com.example.lambda.UserHandler");
+        daoLogger = factory.getLogger("com.example.lambda.dao.UserDao");
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        factory.endInvocation();
+        out.close();
+    }
+
+    @Benchmark
+    public void invocation() {
+        int userId = ++id;
+        long startTime = System.currentTimeMillis();
+        factory.beginInvocation();
+        handlerLogger.info("Received request: {} {}", "GET", "/users/12345");
+        daoLogger.info("Getting user by ID: {}", userId);
+        daoLogger.info("User found with ID: {}, took {}ms", userId, System.currentTimeMillis() - startTime);
+        handlerLogger.info("Request completed: {} {} - Status: {}, Duration: {}ms",
+                "GET", "/users/12345", 200, System.currentTimeMillis() - startTime);
+        factory.endInvocation();
+    }
+}
@@ -0,0 +1,86 @@
+package com.example.lambda.security;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Password hashing cost versus latency.
+ *
+ * hash/verify: one PBKDF2-HMAC-SHA256 hash at several iteration counts, i.e.
+ * the added latency of a create, update or login at that cost. Lambda CPU
+ * scales with memory, so run this at the function's memory size (or compare
+ * with the cost the handler logs as it calibrates) to pick a cost.
+ *
+ * hashBatch: 32 passwords at MIN_ITERATIONS through hashAll with one thread
+ * versus a thread per available processor, the batch-create path.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(1)
+public class PasswordHashBenchmark {
+    private static final int BATCH_SIZE = 32;
+
+    @State(Scope.Benchmark)
+    public static class Single {
+        @Param({"100000", "210000", "600000"})
+        public int iterations;
+
+        PasswordHasher hasher;
+        String stored;
+
+        @Setup
+        public void setup() {
+            hasher = new PasswordHasher(iterations, 0, 1);
+            stored = hasher.hash("correct horse battery staple");
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class Batch {
+        @Param({"1", "0"})
+        public int threads;
+
+        PasswordHasher hasher;
+        List<String> passwords;
+
+        @Setup
+        public void setup() {
+            int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+            hasher = new PasswordHasher(PasswordHasher.MIN_ITERATIONS, 0, poolSize);
+            passwords = new ArrayList<>(BATCH_SIZE);
+            for (int i = 0; i < BATCH_SIZE; i++) {
+                passwords.add("password-" + i);
+            }
+        }
+    }
+
+    @Benchmark
+    public String hash(Single state) {
+        return state.hasher.hash("correct horse battery staple");
+    }
+
+    @Benchmark
+    public boolean verify(Single state) {
+        return state.hasher.verify("correct horse battery staple", state.stored);
+    }
+
+    @Benchmark
+    public List<String> hashBatch(Batch state) {
+        return state.hasher.hashAll(state.passwords);
+    }
+}
@@ -0,0 +1,94 @@
+package com.example.lambda.util;
+
+import com.example.lambda.BenchmarkDatabase;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Borrow a pooled connection, prepare, execute and close, with the
+ * per-connection statement cache off (0) and on.
+ *
+ * H2's own per-session query cache is turned off so that, like MySQL without
+ * statement reuse, every prepare parses and plans the SQL again. Against
+ * MySQL with useServerPrepStmts the cache additionally saves the
+ * COM_STMT_PREPARE/CLOSE round trips, which this does not measure.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 10, time = 1)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class StatementCacheBenchmark {
+    private static final int ROWS = 10_000;
+
+    private static final String SELECT_BY_ID_SQL =
+            "SELECT id, username, email, password, score, wallet_address, wallet_type, bind_time " +
+            "FROM users WHERE id = ?";
+    private static final String LIST_AFTER_SQL =
+            "SELECT id, username, email, password, score, wallet_address, wallet_type, bind_time " +
+            "FROM users WHERE id > ? ORDER BY id LIMIT ?";
+
+    @Param({"0", "64"})
+    public int statementCacheSize;
+
+    private ConnectionPool pool;
+    private int id;
+
+    @Setup
+    public void setup() throws SQLException {
+        BenchmarkDatabase.start("statements", ROWS);
+        pool = new ConnectionPool(BenchmarkDatabase.url("statements") + ";QUERY_CACHE_SIZE=0", "sa", "", 2,
+                0, 30_000, 0, 5_000, statementCacheSize);
+    }
+
+    @TearDown
+    public void tearDown() {
+        pool.close();
+    }
+
+    @Benchmark
+    public int getById() throws SQLException {
+        id = id % ROWS + 1;
+        try (Connection conn = pool.acquire();
+             PreparedStatement stmt = conn.prepareStatement(SELECT_BY_ID_SQL)) {
+            stmt.setInt(1, id);
+            try (ResultSet rs = stmt.executeQuery()) {
+                return rs.next() ? rs.getInt(1) : 0;
+            }
+        }
+    }
+
+    @Benchmark
+    public int listAfter() throws SQLException {
+        id = id % ROWS + 1;
+        try (Connection conn = pool.acquire();
+             PreparedStatement stmt = conn.prepareStatement(LIST_AFTER_SQL)) {
+            stmt.setInt(1, id);
+            stmt.setInt(2, 20);
+            int count = 0;
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    count++;
+                }
+            }
+            return count;
+        }
+    }
+}
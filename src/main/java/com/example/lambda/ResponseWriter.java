@@ -0,0 +1,169 @@
+package com.example.lambda;
+
+import com.amazonaws.services.lambda.runtime.events.APIGatewayV2HTTPResponse;
+import com.example.lambda.metrics.Metrics;
+import com.example.lambda.metrics.Phase;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Serialises the {"success": ..., "data"/"error": ...} response envelope.
+ *
+ * Envelopes are typed classes written through ObjectWriters bound once at
+ * construction, headers are shared immutable maps, and bodies for fixed
+ * error messages are rendered up front, so the per-request cost is a single
+ * streaming write of the payload.
+ */
+public class ResponseWriter {
+    private static final Logger logger = LoggerFactory.getLogger(ResponseWriter.class);
+
+    public static final Map<String, String> JSON_HEADERS = Map.of("Content-Type", "application/json");
+
+    private static final String FALLBACK_ERROR_BODY = "{\"success\":false,\"error\":\"Internal server error\"}";
+
+    // Error messages that never vary, rendered once
+    private static final List<String> FIXED_ERROR_MESSAGES = List.of(
+            "Request body is required",
+            "Username is required",
+            "Email is required",
+            "Password is required",
+            "Invalid limit parameter",
+            "Invalid offset parameter",
+            "Invalid cursor parameter",
+            "Invalid ids parameter",
+            "Offset must be non-negative",
+            "Cursor and offset cannot be combined",
+            "At least one user is required",
+            "Internal server error");
+
+    private final ObjectWriter successWriter;
+    private final ObjectWriter errorWriter;
+    private final Map<String, String> fixedErrorBodies;
+
+    public ResponseWriter(ObjectMapper objectMapper) {
+        this.successWriter = objectMapper.writerFor(SuccessEnvelope.class);
+        this.errorWriter = objectMapper.writerFor(ErrorEnvelope.class);
+
+        Map<String, String> bodies = new HashMap<>();
+        for (String message : FIXED_ERROR_MESSAGES) {
+            try {
+                bodies.put(message, errorWriter.writeValueAsString(new ErrorEnvelope(message, null)));
+            } catch (Exception e) {
+                throw new IllegalStateException("Cannot render error body: " + message, e);
+            }
+        }
+        this.fixedErrorBodies = Map.copyOf(bodies);
+    }
+
+    /**
+     * Create a success response
+     * @param statusCode HTTP status code
+     * @param data Payload written under "data"
+     * @return API Gateway response
+     */
+    public APIGatewayV2HTTPResponse success(int statusCode, Object data) {
+        long writeStart = Metrics.start();
+        try {
+            return build(statusCode, successWriter.writeValueAsString(new SuccessEnvelope(data)));
+        } catch (Exception e) {
+            logger.error("Error creating success response: {}", e.getMessage(), e);
+            return error(500, "Internal server error");
+        } finally {
+            Metrics.record(Phase.JSON_WRITE, writeStart);
+        }
+    }
+
+    /**
+     * Create an error response
+     * @param statusCode HTTP status code
+     * @param errorMessage Message written under "error"
+     * @return API Gateway response
+     */
+    public APIGatewayV2HTTPResponse error(int statusCode, String errorMessage) {
+        String body = fixedErrorBodies.get(errorMessage);
+        if (body != null) {
+            return build(statusCode, body);
+        }
+        return error(statusCode, errorMessage, null);
+    }
+
+    /**
+     * Create an error response with additional details (e.g. per-item errors)
+     * @param statusCode HTTP status code
+     * @param errorMessage Message written under "error"
+     * @param details Optional payload written under "details"
+     * @return API Gateway response
+     */
+    public APIGatewayV2HTTPResponse error(int statusCode, String errorMessage, Object details) {
+        long writeStart = Metrics.start();
+        try {
+            return build(statusCode, errorWriter.writeValueAsString(new ErrorEnvelope(errorMessage, details)));
+        } catch (Exception e) {
+            logger.error("Error creating error response: {}", e.getMessage(), e);
+            // Fallback to simple text response
+            return build(statusCode, FALLBACK_ERROR_BODY);
+        } finally {
+            Metrics.record(Phase.JSON_WRITE, writeStart);
+        }
+    }
+
+    /**
+     * Add a header to a response, replacing its shared immutable header map
+     * with a copy
+     * @param response Response to modify
+     * @param name Header name
+     * @param value Header value
+     * @return Response with the header added
+     */
+    public APIGatewayV2HTTPResponse withHeader(APIGatewayV2HTTPResponse response, String name, String value) {
+        Map<String, String> headers = new HashMap<>(response.getHeaders());
+        headers.put(name, value);
+        response.setHeaders(headers);
+        return response;
+    }
+
+    private static APIGatewayV2HTTPResponse build(int statusCode, String body) {
+        return APIGatewayV2HTTPResponse.builder()
+                .withStatusCode(statusCode)
+                .withHeaders(JSON_HEADERS)
+                .withBody(body)
+                .build();
+    }
+
+    /**
+     * Envelope for successful responses
+     */
+    @JsonPropertyOrder({"success", "data"})
+    public static final class SuccessEnvelope {
+        public final boolean success = true;
+        public final Object data;
+
+        public SuccessEnvelope(Object data) {
+            this.data = data;
+        }
+    }
+
+    /**
+     * Envelope for error responses
+     */
+    @JsonPropertyOrder({"success", "error", "details"})
+    public static final class ErrorEnvelope {
+        public final boolean success = false;
+        public final String error;
+        @JsonInclude(JsonInclude.Include.NON_NULL)
+        public final Object details;
+
+        public ErrorEnvelope(String error, Object details) {
+            this.error = error;
+            this.details = details;
+        }
+    }
+}
@@ -0,0 +1,224 @@
+package com.example.lambda;
+
+import com.amazonaws.services.lambda.runtime.events.APIGatewayV2HTTPEvent;
+import com.amazonaws.services.lambda.runtime.events.APIGatewayV2HTTPResponse;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Route table mapping (HTTP method, path template) to a handler.
+ *
+ * Templates are compiled once into a literal prefix, an optional numeric
+ * {id} segment and a literal suffix; matching compares the literals and
+ * parses the id digits in place, so dispatch allocates nothing and uses no
+ * regular expressions. A path that matches a template under a different
+ * method yields 405 with an Allow list rather than 404.
+ *
+ * @param <T> Target the handlers are invoked on (e.g. the Lambda handler)
+ */
+public final class Router<T> {
+
+    /**
+     * Route handler; id is the parsed {id} segment, or -1 if the template has none
+     */
+    @FunctionalInterface
+    public interface Handler<T> {
+        APIGatewayV2HTTPResponse handle(T target, APIGatewayV2HTTPEvent event, int id);
+    }
+
+    /**
+     * Responses for requests that match no route
+     */
+    public interface Fallback<T> {
+        APIGatewayV2HTTPResponse notFound(T target, String method, String path);
+
+        APIGatewayV2HTTPResponse methodNotAllowed(T target, String method, String path, String allow);
+    }
+
+    private static final String ID_PARAM = "{id}";
+
+    /**
+     * A compiled template and the handlers registered for it per method
+     */
+    private static final class Template<T> {
+        // Literal text before {id}, or the whole template if it has no {id}
+        final String prefix;
+        // Literal text after {id}; null if the template has no {id}
+        final String suffix;
+        final String[] methods;
+        final Handler<T>[] handlers;
+        final String allow;
+
+        @SuppressWarnings("unchecked")
+        Template(String template, Map<String, Handler<T>> byMethod) {
+            int param = template.indexOf(ID_PARAM);
+            if (param < 0) {
+                this.prefix = template;
+                this.suffix = null;
+            } else {
+                this.prefix = template.substring(0, param);
+                this.suffix = template.substring(param + ID_PARAM.length());
+            }
+            this.methods = byMethod.keySet().toArray(new String[0]);
+            this.handlers = (Handler<T>[]) byMethod.values().toArray(new Handler<?>[0]);
+            this.allow = String.join(", ", byMethod.keySet());
+        }
+
+        Handler<T> handlerFor(String method) {
+            for (int i = 0; i < methods.length; i++) {
+                if (methods[i].equals(method)) {
+                    return handlers[i];
+                }
+            }
+            return null;
+        }
+    }
+
+    private final Template<T>[] templates;
+    private final Fallback<T> fallback;
+
+    @SuppressWarnings("unchecked")
+    private Router(List<Template<T>> templates, Fallback<T> fallback) {
+        this.templates = (Template<T>[]) templates.toArray(new Template<?>[0]);
+        this.fallback = fallback;
+    }
+
+    public static <T> Builder<T> builder() {
+        return new Builder<>();
+    }
+
+    /**
+     * Dispatch a request
+     * @param target Object the handler is invoked on
+     * @param method HTTP method
+     * @param path Raw request path
+     * @param event Request event
+     * @return Handler response, or the fallback's 404/405 response
+     */
+    public APIGatewayV2HTTPResponse route(T target, String method, String path, APIGatewayV2HTTPEvent event) {
+        Template<T> pathMatch = null;
+
+        for (Template<T> template : templates) {
+            int id = match(template, path);
+            if (id == NO_MATCH) {
+                continue;
+            }
+            Handler<T> handler = template.handlerFor(method);
+            if (handler != null) {
+                return handler.handle(target, event, id);
+            }
+            if (pathMatch == null) {
+                pathMatch = template;
+            }
+        }
+
+        if (pathMatch != null) {
+            return fallback.methodNotAllowed(target, method, path, pathMatch.allow);
+        }
+        return fallback.notFound(target, method, path);
+    }
+
+    private static final int NO_MATCH = -2;
+
+    /**
+     * Match a path against a compiled template
+     * @return Parsed id, -1 if the template has no id, or NO_MATCH
+     */
+    private static int match(Template<?> template, String path) {
+        String prefix = template.prefix;
+        String suffix = template.suffix;
+        if (suffix == null) {
+            return prefix.equals(path) ? -1 : NO_MATCH;
+        }
+        if (!path.startsWith(prefix)) {
+            return NO_MATCH;
+        }
+
+        // Numeric id: one or more digits, must fit in an int
+        int length = path.length() - suffix.length();
+        int start = prefix.length();
+        if (length <= start) {
+            return NO_MATCH;
+        }
+        long value = 0;
+        for (int pos = start; pos < length; pos++) {
+            char c = path.charAt(pos);
+            if (c < '0' || c > '9') {
+                return NO_MATCH;
+            }
+            value = value * 10 + (c - '0');
+            if (value > Integer.MAX_VALUE) {
+                return NO_MATCH;
+            }
+        }
+        if (!suffix.isEmpty() && !path.endsWith(suffix)) {
+            return NO_MATCH;
+        }
+        return (int) value;
+    }
+
+    /**
+     * Collects routes and compiles them into a Router
+     */
+    public static final class Builder<T> {
+        private final Map<String, Map<String, Handler<T>>> routes = new LinkedHashMap<>();
+        private Fallback<T> fallback;
+
+        /**
+         * Register a route
+         * @param method HTTP method
+         * @param template Path template such as /users or /users/{id}
+         * @param handler Handler for matching requests
+         * @return This builder
+         */
+        public Builder<T> route(String method, String template, Handler<T> handler) {
+            validate(template);
+            Map<String, Handler<T>> byMethod = routes.computeIfAbsent(template, key -> new LinkedHashMap<>());
+            if (byMethod.putIfAbsent(method, handler) != null) {
+                throw new IllegalArgumentException("Duplicate route: " + method + " " + template);
+            }
+            return this;
+        }
+
+        /**
+         * Set responses for unmatched requests
+         * @param fallback 404/405 responses
+         * @return This builder
+         */
+        public Builder<T> fallback(Fallback<T> fallback) {
+            this.fallback = fallback;
+            return this;
+        }
+
+        public Router<T> build() {
+            if (fallback == null) {
+                throw new IllegalStateException("Fallback is required");
+            }
+            List<Template<T>> templates = new ArrayList<>();
+            for (Map.Entry<String, Map<String, Handler<T>>> entry : routes.entrySet()) {
+                templates.add(new Template<>(entry.getKey(), entry.getValue()));
+            }
+            return new Router<>(templates, fallback);
+        }
+
+        private static void validate(String template) {
+            if (!template.startsWith("/") || template.endsWith("/") || template.contains("//")) {
+                throw new IllegalArgumentException("Invalid route template: " + template);
+            }
+            int param = template.indexOf(ID_PARAM);
+            String rest = param < 0 ? template
+                    : template.substring(0, param) + template.substring(param + ID_PARAM.length());
+            if (rest.indexOf('{') >= 0 || rest.indexOf('}') >= 0) {
+                throw new IllegalArgumentException("Only one {id} segment per template: " + template);
+            }
+            if (param >= 0 && (template.charAt(param - 1) != '/'
+                    || (param + ID_PARAM.length() < template.length()
+                        && template.charAt(param + ID_PARAM.length()) != '/'))) {
+                throw new IllegalArgumentException("{id} must be a whole segment: " + template);
+            }
+        }
+    }
+}
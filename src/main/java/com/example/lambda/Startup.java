@@ -0,0 +1,182 @@
+package com.example.lambda;
+
+import com.example.lambda.metrics.Metrics;
+import com.example.lambda.model.User;
+import com.example.lambda.util.Db;
+import com.example.lambda.util.Env;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.crac.Context;
+import org.crac.Core;
+import org.crac.Resource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.net.ssl.SSLContext;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Cold-start priming and checkpoint/restore hooks.
+ *
+ * Runs during the Lambda init phase (handler class initialisation) so the
+ * first request does not pay for Jackson serializer construction, JDBC
+ * driver loading, default SSL context setup or, optionally, the first
+ * database handshake. Also registers an org.crac Resource so that under
+ * SnapStart/CRaC pooled sockets are closed before the snapshot and
+ * re-established after restore.
+ *
+ * Controlled by STARTUP_PRIMING: none, eager (default) or pool.
+ */
+public final class Startup {
+    private static final Logger logger = LoggerFactory.getLogger(Startup.class);
+
+    private static final String PRIMING_ENV = "STARTUP_PRIMING";
+    private static final String MYSQL_DRIVER = "com.mysql.cj.jdbc.Driver";
+
+    /**
+     * How much work is done ahead of the first request
+     */
+    public enum Mode {
+        /** Nothing beyond normal class initialisation */
+        NONE,
+        /** Warm Jackson, load the JDBC driver and initialise SSL */
+        EAGER,
+        /** EAGER plus open a pooled database connection */
+        POOL
+    }
+
+    // CRaC holds resources weakly, so keep a strong reference
+    private static Resource checkpointResource;
+
+    private Startup() {}
+
+    /**
+     * Get the configured priming mode
+     * @return Mode from STARTUP_PRIMING, defaulting to EAGER
+     */
+    public static Mode getMode() {
+        String value = Env.get(PRIMING_ENV, "eager");
+        try {
+            return Mode.valueOf(value.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            logger.warn("Unknown {} '{}', using eager", PRIMING_ENV, value);
+            return Mode.EAGER;
+        }
+    }
+
+    /**
+     * Prime the handler's dependencies and register checkpoint/restore hooks
+     * @param objectMapper Handler ObjectMapper
+     * @param responseWriter Handler ResponseWriter, or null for handlers that
+     *                       do not write HTTP responses
+     * @param onRestore Callback run after restore, e.g. to drop caches that
+     *                  were captured in the snapshot
+     */
+    public static synchronized void initialize(ObjectMapper objectMapper, ResponseWriter responseWriter,
+                                               Runnable onRestore) {
+        Mode mode = getMode();
+        long startTime = System.currentTimeMillis();
+
+        if (mode != Mode.NONE) {
+            primeJson(objectMapper, responseWriter);
+            primeDriver();
+            primeSsl();
+        }
+        if (mode == Mode.POOL) {
+            primePool();
+        }
+
+        if (checkpointResource == null) {
+            checkpointResource = new CheckpointResource(mode, onRestore);
+            Core.getGlobalContext().register(checkpointResource);
+        }
+
+        logger.info("Startup priming ({}) took {}ms", mode, System.currentTimeMillis() - startTime);
+    }
+
+    private static void primeJson(ObjectMapper objectMapper, ResponseWriter responseWriter) {
+        try {
+            User user = objectMapper.readValue(
+                    "{\"id\":1,\"username\":\"prime\",\"email\":\"prime@example.com\",\"password\":\"prime\"," +
+                    "\"score\":0,\"wallet_address\":\"0x0\",\"wallet_type\":\"ETH\",\"bind_time\":\"2024-01-01T00:00:00\"}",
+                    User.class);
+            user.setBindTime(LocalDateTime.now());
+            if (responseWriter == null) {
+                return;
+            }
+            responseWriter.success(200, user);
+            responseWriter.success(200, List.of(user));
+            responseWriter.error(400, "Priming", List.of());
+        } catch (Exception e) {
+            logger.warn("JSON priming failed: {}", e.getMessage());
+        }
+    }
+
+    private static void primeDriver() {
+        try {
+            Class.forName(MYSQL_DRIVER);
+        } catch (ClassNotFoundException e) {
+            logger.warn("JDBC driver priming failed: {}", e.getMessage());
+        }
+    }
+
+    private static void primeSsl() {
+        try {
+            SSLContext.getDefault();
+        } catch (Exception e) {
+            logger.warn("SSL priming failed: {}", e.getMessage());
+        }
+    }
+
+    private static void primePool() {
+        // Read first: a primary connection would send it to the primary too
+        try {
+            Db.getReadConnection().close();
+            logger.debug("Primed pooled read connection");
+        } catch (Exception e) {
+            logger.warn("Read connection pool priming failed: {}", e.getMessage());
+        }
+        try {
+            Db.getConnection().close();
+            logger.debug("Primed pooled connection");
+        } catch (Exception e) {
+            // The first request will retry; don't fail initialisation
+            logger.warn("Connection pool priming failed: {}", e.getMessage());
+        } finally {
+            Db.endRequest();
+        }
+    }
+
+    /**
+     * Closes pooled sockets and emits pending metrics before a snapshot, and
+     * re-primes after restore
+     */
+    private static final class CheckpointResource implements Resource {
+        private final Mode mode;
+        private final Runnable onRestore;
+
+        CheckpointResource(Mode mode, Runnable onRestore) {
+            this.mode = mode;
+            this.onRestore = onRestore;
+        }
+
+        @Override
+        public void beforeCheckpoint(Context<? extends Resource> context) {
+            logger.info("Before checkpoint: closing idle database connections");
+            Db.evictIdle();
+            Metrics.flush();
+        }
+
+        @Override
+        public void afterRestore(Context<? extends Resource> context) {
+            logger.info("After restore: re-establishing state ({})", mode);
+            if (onRestore != null) {
+                onRestore.run();
+            }
+            if (mode == Mode.POOL) {
+                primePool();
+            }
+        }
+    }
+}
@@ -4,17 +4,46 @@ import com.amazonaws.services.lambda.runtime.Context;
 import com.amazonaws.services.lambda.runtime.RequestHandler;
 import com.amazonaws.services.lambda.runtime.events.APIGatewayV2HTTPEvent;
 import com.amazonaws.services.lambda.runtime.events.APIGatewayV2HTTPResponse;
+import com.example.lambda.dao.Leaderboard;
+import com.example.lambda.dao.UserCounter;
 import com.example.lambda.dao.UserDao;
+import com.example.lambda.dao.UserPage;
+import com.example.lambda.export.UserExporter;
+import com.example.lambda.logging.Logging;
+import com.example.lambda.metrics.Metrics;
+import com.example.lambda.metrics.Phase;
+import com.example.lambda.model.LeaderboardEntry;
+import com.example.lambda.model.Projection;
 import com.example.lambda.model.User;
+import com.example.lambda.model.UserField;
+import com.example.lambda.model.UserValidation;
+import com.example.lambda.security.PasswordHasher;
+import com.example.lambda.util.CircuitOpenException;
+import com.example.lambda.util.Db;
+import com.example.lambda.util.Deadline;
+import com.example.lambda.util.Env;
+import com.example.lambda.util.FanOut;
+import com.example.lambda.util.PageCursor;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.util.ArrayList;
+import java.util.EnumSet;
 import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.Set;
+import java.util.concurrent.TimeoutException;
 
 /**
  * Main Lambda handler for user CRUD operations
@@ -23,23 +52,97 @@ public class UserHandler implements RequestHandler<APIGatewayV2HTTPEvent, APIGat
     private static final Logger logger = LoggerFactory.getLogger(UserHandler.class);
     private static final ObjectMapper objectMapper = new ObjectMapper()
             .registerModule(new com.fasterxml.jackson.datatype.jsr310.JavaTimeModule());
+    private static final ResponseWriter responseWriter = new ResponseWriter(objectMapper);
     
-    private static final Pattern USER_ID_PATTERN = Pattern.compile("/users/(\\d+)");
     private static final UserDao userDao = new UserDao();
+    private static final UserCounter userCounter = new UserCounter(userDao,
+            parseCountStrategy(Env.get("USER_COUNT_STRATEGY", "cached")),
+            Env.getLong("USER_COUNT_CACHE_TTL_MS", 30_000L));
+    private static final PasswordHasher passwordHasher = PasswordHasher.fromEnv();
+    private static volatile String dummyHash;
+    private static final Leaderboard leaderboard = new Leaderboard(userDao,
+            Env.getInt("LEADERBOARD_CACHE_SIZE", 100),
+            Env.getLong("LEADERBOARD_CACHE_TTL_MS", 5_000L));
     
     // Default pagination values
     private static final int DEFAULT_LIMIT = 10;
     private static final int DEFAULT_OFFSET = 0;
     private static final int MAX_LIMIT = 100;
+    
+    // Maximum users accepted by POST /users/batch. Each costs a password hash,
+    // about 240ms of a 512 MB function's CPU at the minimum cost, so the
+    // invocation deadline usually limits a batch before this does
+    private static final int MAX_BATCH_SIZE = Env.getInt("USER_BATCH_MAX_SIZE", 5000);
+    // Time a batch keeps back from password hashing for its insert and response
+    private static final long BATCH_RESERVE_MS = Env.getLong("USER_BATCH_RESERVE_MS", 2_000L);
+    // Maximum items accepted by POST /users/scores
+    private static final int MAX_SCORE_BATCH_SIZE = Env.getInt("USER_SCORE_BATCH_MAX_SIZE", 5000);
+    // Maximum IDs accepted by GET /users?ids=
+    private static final int MAX_LOOKUP_IDS = 100;
+    // Maximum rows per GET /users/export response, keeping it under the Lambda payload limit
+    private static final int MAX_EXPORT_ROWS = Env.getInt("USER_EXPORT_MAX_ROWS", 10000);
+    private static final UserExporter userExporter = new UserExporter(userDao, objectMapper,
+            Env.getInt("USER_EXPORT_FETCH_SIZE", UserExporter.DEFAULT_FETCH_SIZE));
+    private static final TypeReference<List<User>> USER_LIST_TYPE = new TypeReference<>() {};
+    // GET /users parameters that look up a single user by a unique column
+    private static final UserField[] LOOKUP_FIELDS = {UserField.EMAIL, UserField.USERNAME, UserField.WALLET_ADDRESS};
+    // Fields PATCH may change but not clear
+    private static final UserField[] REQUIRED_FIELDS = {UserField.USERNAME, UserField.EMAIL, UserField.PASSWORD};
+    
+    // Route table, compiled once at class load
+    private static final Router<UserHandler> ROUTER = Router.<UserHandler>builder()
+            .route("POST", "/users", (h, event, id) -> h.handleCreateUser(event))
+            .route("GET", "/users", (h, event, id) -> h.handleListUsers(event))
+            .route("POST", "/users/batch", (h, event, id) -> h.handleBatchCreateUsers(event))
+            .route("GET", "/users/export", (h, event, id) -> h.handleExportUsers(event))
+            .route("GET", "/users/leaderboard", (h, event, id) -> h.handleLeaderboard(event))
+            .route("POST", "/users/scores", (h, event, id) -> h.handleBatchIncrementScores(event))
+            .route("POST", "/users/verify", (h, event, id) -> h.handleVerifyPassword(event))
+            .route("GET", "/users/{id}", (h, event, id) -> h.handleGetUser(id, event))
+            .route("PUT", "/users/{id}", (h, event, id) -> h.handleUpdateUser(id, event))
+            .route("PATCH", "/users/{id}", (h, event, id) -> h.handlePatchUser(id, event))
+            .route("DELETE", "/users/{id}", (h, event, id) -> h.handleDeleteUser(id))
+            .route("GET", "/users/{id}/rank", (h, event, id) -> h.handleGetRank(id))
+            .route("POST", "/users/{id}/score", (h, event, id) -> h.handleIncrementScore(id, event))
+            .fallback(new Router.Fallback<>() {
+                @Override
+                public APIGatewayV2HTTPResponse notFound(UserHandler h, String method, String path) {
+                    return h.createErrorResponse(404, "Endpoint not found: " + method + " " + path);
+                }
+                
+                @Override
+                public APIGatewayV2HTTPResponse methodNotAllowed(UserHandler h, String method, String path, String allow) {
+                    return responseWriter.withHeader(
+                            h.createErrorResponse(405, "Method not allowed: " + method + " " + path), "Allow", allow);
+                }
+            })
+            .build();
+    
+    static {
+        // Prime during the init phase; caches captured in a snapshot are dropped on restore
+        Startup.initialize(objectMapper, responseWriter, () -> {
+            userDao.clearCache();
+            userCounter.invalidate();
+            passwordHasher.reset();
+            dummyHash = null;
+            leaderboard.invalidate();
+            Metrics.reset();
+            Db.resetCircuit();
+        });
+    }
 
     @Override
     public APIGatewayV2HTTPResponse handleRequest(APIGatewayV2HTTPEvent event, Context context) {
         long startTime = System.currentTimeMillis();
+        Logging.beginInvocation();
         String httpMethod = event.getRequestContext().getHttp().getMethod();
         String path = event.getRawPath();
         
         logger.info("Received request: {} {}", httpMethod, path);
         
+        Deadline.begin(context);
+        Db.beginRequest();
+        Metrics.begin();
         try {
             // Route the request based on HTTP method and path
             APIGatewayV2HTTPResponse response = routeRequest(httpMethod, path, event);
@@ -47,61 +150,38 @@ public class UserHandler implements RequestHandler<APIGatewayV2HTTPEvent, APIGat
             long duration = System.currentTimeMillis() - startTime;
             logger.info("Request completed: {} {} - Status: {}, Duration: {}ms", 
                        httpMethod, path, response.getStatusCode(), duration);
+            if (logger.isDebugEnabled()) {
+                logger.debug("Connection pool: {}", Db.getPoolStats());
+                logger.debug("Replica pools: {}", Db.getReplicaPoolStats());
+                logger.debug("User cache: {}", userDao.getCacheStats());
+            }
             
             return response;
             
         } catch (Exception e) {
             logger.error("Error processing request: {} {} - {}", httpMethod, path, e.getMessage(), e);
-            return createErrorResponse(500, "Internal server error: " + e.getMessage());
+            return serverError("Internal server error", e);
+        } finally {
+            Metrics.end();
+            Db.endRequest();
+            Deadline.end();
+            Logging.endInvocation();
         }
     }
     
     /**
      * Route the request to appropriate handler based on HTTP method and path
+     * (package-private for benchmarks)
      */
-    private APIGatewayV2HTTPResponse routeRequest(String httpMethod, String path, APIGatewayV2HTTPEvent event) {
-        
-        switch (httpMethod) {
-            case "POST":
-                if ("/users".equals(path)) {
-                    return handleCreateUser(event);
-                }
-                break;
-                
-            case "GET":
-                if ("/users".equals(path)) {
-                    return handleListUsers(event);
-                } else {
-                    Matcher matcher = USER_ID_PATTERN.matcher(path);
-                    if (matcher.matches()) {
-                        int userId = Integer.parseInt(matcher.group(1));
-                        return handleGetUser(userId);
-                    }
-                }
-                break;
-                
-            case "PUT":
-                Matcher putMatcher = USER_ID_PATTERN.matcher(path);
-                if (putMatcher.matches()) {
-                    int userId = Integer.parseInt(putMatcher.group(1));
-                    return handleUpdateUser(userId, event);
-                }
-                break;
-                
-            case "DELETE":
-                Matcher deleteMatcher = USER_ID_PATTERN.matcher(path);
-                if (deleteMatcher.matches()) {
-                    int userId = Integer.parseInt(deleteMatcher.group(1));
-                    return handleDeleteUser(userId);
-                }
-                break;
-        }
-        
-        return createErrorResponse(404, "Endpoint not found: " + httpMethod + " " + path);
+    APIGatewayV2HTTPResponse routeRequest(String httpMethod, String path, APIGatewayV2HTTPEvent event) {
+        return ROUTER.route(this, httpMethod, path, event);
     }
     
     /**
      * Handle POST /users - Create new user
+     *
+     * The password is hashed before the insert, on the request path; like
+     * PUT and PATCH, this takes one full hash time longer than other writes.
      */
     private APIGatewayV2HTTPResponse handleCreateUser(APIGatewayV2HTTPEvent event) {
         try {
@@ -110,43 +190,204 @@ public class UserHandler implements RequestHandler<APIGatewayV2HTTPEvent, APIGat
                 return createErrorResponse(400, "Request body is required");
             }
             
+            long parseStart = Metrics.start();
             User user = objectMapper.readValue(body, User.class);
+            Metrics.record(Phase.JSON_PARSE, parseStart);
             
             // Validate required fields
-            if (user.getUsername() == null || user.getUsername().trim().isEmpty()) {
-                return createErrorResponse(400, "Username is required");
-            }
-            if (user.getEmail() == null || user.getEmail().trim().isEmpty()) {
-                return createErrorResponse(400, "Email is required");
-            }
-            if (user.getPassword() == null || user.getPassword().trim().isEmpty()) {
-                return createErrorResponse(400, "Password is required");
+            String validationError = UserValidation.validate(user);
+            if (validationError != null) {
+                return createErrorResponse(400, validationError);
             }
             
+            user.setPassword(passwordHasher.hashForRequest(user.getPassword()));
             User createdUser = userDao.create(user);
+            userCounter.adjust(1);
+            leaderboard.scoreChanged(createdUser.getId(), createdUser.getScore());
             return createSuccessResponse(201, createdUser);
             
         } catch (Exception e) {
+            if (UserValidation.isUniqueViolation(e)) {
+                return createErrorResponse(409, UserValidation.DUPLICATE_USER_MESSAGE);
+            }
             logger.error("Error creating user: {}", e.getMessage(), e);
-            return createErrorResponse(500, "Failed to create user: " + e.getMessage());
+            return serverError("Failed to create user", e);
+        }
+    }
+    
+    /**
+     * Handle POST /users/batch - Create many users in one transaction
+     *
+     * The body is a JSON array of users. All items are validated first; if any
+     * is invalid nothing is inserted and the per-item errors are returned.
+     * Password hashing is bounded by the invocation deadline: a batch that
+     * cannot be hashed in time is rejected with 413 up front, or with 504 if
+     * the time runs out while hashing.
+     */
+    private APIGatewayV2HTTPResponse handleBatchCreateUsers(APIGatewayV2HTTPEvent event) {
+        try {
+            String body = event.getBody();
+            if (body == null || body.trim().isEmpty()) {
+                return createErrorResponse(400, "Request body is required");
+            }
+            
+            long parseStart = Metrics.start();
+            List<User> users = objectMapper.readValue(body, USER_LIST_TYPE);
+            Metrics.record(Phase.JSON_PARSE, parseStart);
+            if (users == null || users.isEmpty()) {
+                return createErrorResponse(400, "At least one user is required");
+            }
+            if (users.size() > MAX_BATCH_SIZE) {
+                return createErrorResponse(400, "Batch size must not exceed " + MAX_BATCH_SIZE);
+            }
+            
+            List<Map<String, Object>> errors = new ArrayList<>();
+            for (int i = 0; i < users.size(); i++) {
+                User user = users.get(i);
+                String validationError = user == null ? "User is required" : UserValidation.validate(user);
+                if (validationError != null) {
+                    errors.add(Map.of("index", i, "error", validationError));
+                }
+            }
+            if (!errors.isEmpty()) {
+                return createErrorResponse(400, "Validation failed for " + errors.size() + " users", errors);
+            }
+            
+            long remainingMs = Deadline.remainingMillis();
+            long hashBudgetMs = remainingMs == Long.MAX_VALUE ? remainingMs : remainingMs - BATCH_RESERVE_MS;
+            int fits = hashBudgetMs <= 0 ? 0 : passwordHasher.capacity(hashBudgetMs);
+            if (users.size() > fits) {
+                return createErrorResponse(413, "Batch of " + users.size() + " users cannot be hashed in the " +
+                                                remainingMs + "ms left; send at most " + fits);
+            }
+            
+            List<String> passwords = new ArrayList<>(users.size());
+            for (User user : users) {
+                passwords.add(user.getPassword());
+            }
+            List<String> hashes;
+            try {
+                hashes = passwordHasher.hashAll(passwords, hashBudgetMs);
+            } catch (TimeoutException e) {
+                logger.warn("Batch of {} users ran out of time: {}", users.size(), e.getMessage());
+                return createErrorResponse(504, "Failed to create users: " + e.getMessage() + "; send a smaller batch");
+            }
+            for (int i = 0; i < users.size(); i++) {
+                users.get(i).setPassword(hashes.get(i));
+            }
+            
+            List<User> createdUsers = userDao.createAll(users);
+            userCounter.adjust(createdUsers.size());
+            
+            List<Integer> ids = new ArrayList<>(createdUsers.size());
+            for (User user : createdUsers) {
+                ids.add(user.getId());
+                leaderboard.scoreChanged(user.getId(), user.getScore());
+            }
+            return createSuccessResponse(201, Map.of("ids", ids, "count", ids.size()));
+            
+        } catch (Exception e) {
+            if (UserValidation.isUniqueViolation(e)) {
+                return createErrorResponse(409, UserValidation.DUPLICATE_USER_MESSAGE);
+            }
+            logger.error("Error creating users in batch: {}", e.getMessage(), e);
+            return serverError("Failed to create users", e);
         }
     }
     
     /**
      * Handle GET /users/{id} - Get user by ID
      */
-    private APIGatewayV2HTTPResponse handleGetUser(int userId) {
+    private APIGatewayV2HTTPResponse handleGetUser(int userId, APIGatewayV2HTTPEvent event) {
         try {
-            User user = userDao.getById(userId);
+            Projection projection;
+            try {
+                projection = parseFields(event.getQueryStringParameters());
+            } catch (IllegalArgumentException e) {
+                return createErrorResponse(400, "Invalid fields parameter: " + e.getMessage());
+            }
+            
+            User user = userDao.getById(userId, projection);
             if (user == null) {
                 return createErrorResponse(404, "User not found with ID: " + userId);
             }
             
-            return createSuccessResponse(200, user);
+            return createSuccessResponse(200, projection.view(user));
             
         } catch (Exception e) {
             logger.error("Error getting user {}: {}", userId, e.getMessage(), e);
-            return createErrorResponse(500, "Failed to get user: " + e.getMessage());
+            return serverError("Failed to get user", e);
+        }
+    }
+    
+    /**
+     * Handle GET /users?ids=1,2,3 - Get many users by ID in one query
+     *
+     * Users are returned in request order (duplicates collapsed); IDs with no
+     * matching user are listed under "missing".
+     */
+    private APIGatewayV2HTTPResponse handleGetUsersByIds(String idsParam, Projection projection) {
+        try {
+            if (idsParam == null || idsParam.trim().isEmpty()) {
+                return createErrorResponse(400, "ids parameter must not be empty");
+            }
+            
+            Set<Integer> ids = new LinkedHashSet<>();
+            for (String part : idsParam.split(",")) {
+                try {
+                    int id = Integer.parseInt(part.trim());
+                    if (id <= 0) {
+                        return createErrorResponse(400, "Invalid ids parameter");
+                    }
+                    ids.add(id);
+                } catch (NumberFormatException e) {
+                    return createErrorResponse(400, "Invalid ids parameter");
+                }
+                if (ids.size() > MAX_LOOKUP_IDS) {
+                    return createErrorResponse(400, "At most " + MAX_LOOKUP_IDS + " ids are allowed");
+                }
+            }
+            
+            Map<Integer, User> found = userDao.getByIds(new ArrayList<>(ids));
+            
+            List<Object> users = new ArrayList<>(found.size());
+            List<Integer> missing = new ArrayList<>();
+            for (Integer id : ids) {
+                User user = found.get(id);
+                if (user != null) {
+                    users.add(projection.view(user));
+                } else {
+                    missing.add(id);
+                }
+            }
+            
+            return createSuccessResponse(200, Map.of("users", users, "missing", missing));
+            
+        } catch (Exception e) {
+            logger.error("Error getting users by IDs: {}", e.getMessage(), e);
+            return serverError("Failed to get users", e);
+        }
+    }
+    
+    /**
+     * Handle GET /users?email=, ?username= or ?wallet_address= - Get one user by a unique field
+     */
+    private APIGatewayV2HTTPResponse handleGetUserByKey(UserField field, String value, Projection projection) {
+        try {
+            if (value == null || value.trim().isEmpty()) {
+                return createErrorResponse(400, "Parameter " + field.getFieldName() + " must not be empty");
+            }
+            
+            User user = userDao.getByKey(field, value.trim());
+            if (user == null) {
+                return createErrorResponse(404, "User not found with " + field.getFieldName() + ": " + value.trim());
+            }
+            
+            return createSuccessResponse(200, projection.view(user));
+            
+        } catch (Exception e) {
+            logger.error("Error getting user by {}: {}", field.getFieldName(), e.getMessage(), e);
+            return serverError("Failed to get user", e);
         }
     }
     
@@ -160,34 +401,272 @@ public class UserHandler implements RequestHandler<APIGatewayV2HTTPEvent, APIGat
                 return createErrorResponse(400, "Request body is required");
             }
             
+            long parseStart = Metrics.start();
             User user = objectMapper.readValue(body, User.class);
+            Metrics.record(Phase.JSON_PARSE, parseStart);
             
             // Validate required fields
-            if (user.getUsername() == null || user.getUsername().trim().isEmpty()) {
-                return createErrorResponse(400, "Username is required");
-            }
-            if (user.getEmail() == null || user.getEmail().trim().isEmpty()) {
-                return createErrorResponse(400, "Email is required");
-            }
-            if (user.getPassword() == null || user.getPassword().trim().isEmpty()) {
-                return createErrorResponse(400, "Password is required");
+            String validationError = UserValidation.validate(user);
+            if (validationError != null) {
+                return createErrorResponse(400, validationError);
             }
             
+            user.setPassword(passwordHasher.hashForRequest(user.getPassword()));
             boolean updated = userDao.update(userId, user);
             if (!updated) {
                 return createErrorResponse(404, "User not found with ID: " + userId);
             }
+            leaderboard.scoreChanged(userId, user.getScore());
             
-            // Get the updated user
+            // Get the updated user (served from the cache populated by update, or
+            // from the primary since this request wrote)
             User updatedUser = userDao.getById(userId);
             return createSuccessResponse(200, updatedUser);
             
         } catch (Exception e) {
+            if (UserValidation.isUniqueViolation(e)) {
+                return createErrorResponse(409, UserValidation.DUPLICATE_USER_MESSAGE);
+            }
             logger.error("Error updating user {}: {}", userId, e.getMessage(), e);
-            return createErrorResponse(500, "Failed to update user: " + e.getMessage());
+            return serverError("Failed to update user", e);
         }
     }
     
+    /**
+     * Handle PATCH /users/{id} - Update only the fields present in the body
+     *
+     * Fields given as null are cleared; username, email and password cannot
+     * be. The response is the updated user.
+     */
+    private APIGatewayV2HTTPResponse handlePatchUser(int userId, APIGatewayV2HTTPEvent event) {
+        try {
+            String body = event.getBody();
+            if (body == null || body.trim().isEmpty()) {
+                return createErrorResponse(400, "Request body is required");
+            }
+            
+            long parseStart = Metrics.start();
+            JsonNode node = objectMapper.readTree(body);
+            Set<UserField> fields = EnumSet.noneOf(UserField.class);
+            if (node != null && node.isObject()) {
+                Iterator<String> names = node.fieldNames();
+                while (names.hasNext()) {
+                    String name = names.next();
+                    UserField field = UserField.fromName(name);
+                    if (field == null || field == UserField.ID) {
+                        return createErrorResponse(400, "Field cannot be updated: " + name);
+                    }
+                    fields.add(field);
+                }
+            }
+            if (fields.isEmpty()) {
+                return createErrorResponse(400, "Request body must be a JSON object with at least one field");
+            }
+            User changes = objectMapper.treeToValue(node, User.class);
+            Metrics.record(Phase.JSON_PARSE, parseStart);
+            
+            for (UserField field : REQUIRED_FIELDS) {
+                Object value = field.get(changes);
+                if (fields.contains(field) && (value == null || value.toString().trim().isEmpty())) {
+                    return createErrorResponse(400, "Field must not be empty: " + field.getFieldName());
+                }
+            }
+            if (changes.getWalletAddress() != null && changes.getWalletAddress().trim().isEmpty()) {
+                changes.setWalletAddress(null);
+            }
+            
+            if (fields.contains(UserField.PASSWORD)) {
+                changes.setPassword(passwordHasher.hashForRequest(changes.getPassword()));
+            }
+            
+            User updatedUser = userDao.patch(userId, changes, fields);
+            if (updatedUser == null) {
+                return createErrorResponse(404, "User not found with ID: " + userId);
+            }
+            leaderboard.scoreChanged(userId, fields.contains(UserField.SCORE) ? updatedUser.getScore() : null);
+            
+            return createSuccessResponse(200, updatedUser);
+            
+        } catch (Exception e) {
+            if (UserValidation.isUniqueViolation(e)) {
+                return createErrorResponse(409, UserValidation.DUPLICATE_USER_MESSAGE);
+            }
+            logger.error("Error patching user {}: {}", userId, e.getMessage(), e);
+            return serverError("Failed to update user", e);
+        }
+    }
+    
+    /**
+     * Handle POST /users/{id}/score - Atomically add {"delta": n} to a user's score
+     */
+    private APIGatewayV2HTTPResponse handleIncrementScore(int userId, APIGatewayV2HTTPEvent event) {
+        try {
+            String body = event.getBody();
+            if (body == null || body.trim().isEmpty()) {
+                return createErrorResponse(400, "Request body is required");
+            }
+            
+            long parseStart = Metrics.start();
+            JsonNode node = objectMapper.readTree(body);
+            Metrics.record(Phase.JSON_PARSE, parseStart);
+            JsonNode delta = node != null ? node.get("delta") : null;
+            if (delta == null || !delta.isIntegralNumber() || !delta.canConvertToInt()) {
+                return createErrorResponse(400, "delta must be an integer");
+            }
+            
+            Integer score = userDao.incrementScore(userId, delta.intValue());
+            if (score == null) {
+                return createErrorResponse(404, "User not found with ID: " + userId);
+            }
+            leaderboard.scoreChanged(userId, score);
+            
+            return createSuccessResponse(200, Map.of("id", userId, "score", score));
+            
+        } catch (Exception e) {
+            if (UserValidation.isOutOfRange(e)) {
+                return createErrorResponse(400, UserValidation.SCORE_OUT_OF_RANGE_MESSAGE);
+            }
+            logger.error("Error incrementing score of user {}: {}", userId, e.getMessage(), e);
+            return serverError("Failed to update score", e);
+        }
+    }
+    
+    /**
+     * Handle POST /users/scores - Apply [{"id": 1, "delta": n}, ...] in one transaction
+     *
+     * Deltas for the same user are summed. Unknown IDs are listed under
+     * missing; if any update fails, none are applied.
+     */
+    private APIGatewayV2HTTPResponse handleBatchIncrementScores(APIGatewayV2HTTPEvent event) {
+        try {
+            String body = event.getBody();
+            if (body == null || body.trim().isEmpty()) {
+                return createErrorResponse(400, "Request body is required");
+            }
+            
+            long parseStart = Metrics.start();
+            JsonNode node = objectMapper.readTree(body);
+            Metrics.record(Phase.JSON_PARSE, parseStart);
+            if (node == null || !node.isArray() || node.isEmpty()) {
+                return createErrorResponse(400, "Request body must be a non-empty array of {id, delta}");
+            }
+            if (node.size() > MAX_SCORE_BATCH_SIZE) {
+                return createErrorResponse(400, "Batch size must not exceed " + MAX_SCORE_BATCH_SIZE);
+            }
+            
+            Map<Integer, Integer> deltas = new LinkedHashMap<>();
+            List<Map<String, Object>> errors = new ArrayList<>();
+            for (int i = 0; i < node.size(); i++) {
+                JsonNode item = node.get(i);
+                JsonNode id = item.get("id");
+                JsonNode delta = item.get("delta");
+                if (id == null || !id.isIntegralNumber() || !id.canConvertToInt() || id.intValue() <= 0) {
+                    errors.add(Map.of("index", i, "error", "id must be a positive integer"));
+                } else if (delta == null || !delta.isIntegralNumber() || !delta.canConvertToInt()) {
+                    errors.add(Map.of("index", i, "error", "delta must be an integer"));
+                } else {
+                    try {
+                        deltas.merge(id.intValue(), delta.intValue(), Math::addExact);
+                    } catch (ArithmeticException e) {
+                        errors.add(Map.of("index", i, "error", UserValidation.SCORE_OUT_OF_RANGE_MESSAGE));
+                    }
+                }
+            }
+            if (!errors.isEmpty()) {
+                return createErrorResponse(400, "Validation failed for " + errors.size() + " items", errors);
+            }
+            
+            Map<Integer, Integer> scores = userDao.incrementScores(deltas);
+            
+            List<Map<String, Object>> updated = new ArrayList<>(scores.size());
+            List<Integer> missing = new ArrayList<>();
+            for (Integer id : deltas.keySet()) {
+                Integer score = scores.get(id);
+                if (score != null) {
+                    updated.add(Map.of("id", id, "score", score));
+                    leaderboard.scoreChanged(id, score);
+                } else {
+                    missing.add(id);
+                }
+            }
+            return createSuccessResponse(200, Map.of("scores", updated, "missing", missing));
+            
+        } catch (Exception e) {
+            if (UserValidation.isOutOfRange(e)) {
+                return createErrorResponse(400, UserValidation.SCORE_OUT_OF_RANGE_MESSAGE);
+            }
+            logger.error("Error incrementing scores in batch: {}", e.getMessage(), e);
+            return serverError("Failed to update scores", e);
+        }
+    }
+    
+    /**
+     * Handle POST /users/verify - Check {"email" or "username", "password"}
+     *
+     * Unknown users cost the same hash as wrong passwords, so response time
+     * does not reveal which accounts exist. A password stored in plain text
+     * or below the full cost (see PasswordHasher.hashForRequest) is rehashed
+     * after a successful check.
+     */
+    private APIGatewayV2HTTPResponse handleVerifyPassword(APIGatewayV2HTTPEvent event) {
+        try {
+            String body = event.getBody();
+            if (body == null || body.trim().isEmpty()) {
+                return createErrorResponse(400, "Request body is required");
+            }
+            
+            long parseStart = Metrics.start();
+            JsonNode node = objectMapper.readTree(body);
+            Metrics.record(Phase.JSON_PARSE, parseStart);
+            String password = node != null ? node.path("password").asText(null) : null;
+            if (password == null || password.isEmpty()) {
+                return createErrorResponse(400, "Password is required");
+            }
+            UserField field = node.hasNonNull("email") ? UserField.EMAIL
+                    : node.hasNonNull("username") ? UserField.USERNAME : null;
+            String value = field != null ? node.get(field.getFieldName()).asText().trim() : "";
+            if (value.isEmpty()) {
+                return createErrorResponse(400, "Email or username is required");
+            }
+            
+            User user = userDao.getByKey(field, value);
+            String stored = user != null ? user.getPassword() : null;
+            boolean valid = passwordHasher.verify(password, stored != null ? stored : dummyHash());
+            if (user == null || !valid) {
+                return createErrorResponse(401, "Invalid credentials");
+            }
+            
+            if (passwordHasher.needsRehash(stored)) {
+                try {
+                    User changes = new User();
+                    changes.setPassword(passwordHasher.hash(password));
+                    userDao.patch(user.getId(), changes, EnumSet.of(UserField.PASSWORD));
+                } catch (Exception e) {
+                    // The check succeeded; upgrading the stored hash can wait for the next one
+                    logger.warn("Failed to rehash password for user {}: {}", user.getId(), e.getMessage());
+                }
+            }
+            
+            return createSuccessResponse(200, Map.of("id", user.getId(), "valid", true));
+            
+        } catch (Exception e) {
+            logger.error("Error verifying password: {}", e.getMessage(), e);
+            return serverError("Failed to verify password", e);
+        }
+    }
+    
+    /**
+     * A hash at the current cost for unknown users to be checked against
+     */
+    private static String dummyHash() {
+        String hash = dummyHash;
+        if (hash == null) {
+            hash = passwordHasher.hash("unknown-user");
+            dummyHash = hash;
+        }
+        return hash;
+    }
+    
     /**
      * Handle DELETE /users/{id} - Delete user
      */
@@ -197,17 +676,73 @@ public class UserHandler implements RequestHandler<APIGatewayV2HTTPEvent, APIGat
             if (!deleted) {
                 return createErrorResponse(404, "User not found with ID: " + userId);
             }
+            userCounter.adjust(-1);
+            leaderboard.removed(userId);
             
             return createSuccessResponse(200, Map.of("message", "User deleted successfully"));
             
         } catch (Exception e) {
             logger.error("Error deleting user {}: {}", userId, e.getMessage(), e);
-            return createErrorResponse(500, "Failed to delete user: " + e.getMessage());
+            return serverError("Failed to delete user", e);
+        }
+    }
+    
+    /**
+     * Handle GET /users/leaderboard - Highest-scoring users
+     */
+    private APIGatewayV2HTTPResponse handleLeaderboard(APIGatewayV2HTTPEvent event) {
+        try {
+            int limit = DEFAULT_LIMIT;
+            Map<String, String> queryParams = event.getQueryStringParameters();
+            if (queryParams != null && queryParams.containsKey("limit")) {
+                try {
+                    limit = Integer.parseInt(queryParams.get("limit"));
+                    if (limit <= 0 || limit > MAX_LIMIT) {
+                        return createErrorResponse(400, "Limit must be between 1 and " + MAX_LIMIT);
+                    }
+                } catch (NumberFormatException e) {
+                    return createErrorResponse(400, "Invalid limit parameter");
+                }
+            }
+            
+            List<LeaderboardEntry> entries = leaderboard.top(limit);
+            
+            Map<String, Object> response = new HashMap<>();
+            response.put("leaderboard", entries);
+            response.put("limit", limit);
+            
+            return createSuccessResponse(200, response);
+            
+        } catch (Exception e) {
+            logger.error("Error getting leaderboard: {}", e.getMessage(), e);
+            return serverError("Failed to get leaderboard", e);
+        }
+    }
+    
+    /**
+     * Handle GET /users/{id}/rank - A user's leaderboard rank
+     */
+    private APIGatewayV2HTTPResponse handleGetRank(int userId) {
+        try {
+            LeaderboardEntry entry = leaderboard.rank(userId);
+            if (entry == null) {
+                return createErrorResponse(404, "User not found with ID: " + userId);
+            }
+            
+            return createSuccessResponse(200, entry);
+            
+        } catch (Exception e) {
+            logger.error("Error getting rank for user {}: {}", userId, e.getMessage(), e);
+            return serverError("Failed to get rank", e);
         }
     }
     
     /**
      * Handle GET /users - List users with pagination
+     *
+     * Supports offset mode (limit/offset) and keyset mode (limit/cursor).
+     * Keyset mode is selected by passing a cursor parameter; an empty cursor
+     * requests the first page.
      */
     private APIGatewayV2HTTPResponse handleListUsers(APIGatewayV2HTTPEvent event) {
         try {
@@ -215,8 +750,40 @@ public class UserHandler implements RequestHandler<APIGatewayV2HTTPEvent, APIGat
             Map<String, String> queryParams = event.getQueryStringParameters();
             int limit = DEFAULT_LIMIT;
             int offset = DEFAULT_OFFSET;
+            UserCounter.Strategy countStrategy = userCounter.getDefaultStrategy();
+            Projection projection;
+            try {
+                projection = parseFields(queryParams);
+            } catch (IllegalArgumentException e) {
+                return createErrorResponse(400, "Invalid fields parameter: " + e.getMessage());
+            }
             
             if (queryParams != null) {
+                UserField lookupField = null;
+                for (UserField field : LOOKUP_FIELDS) {
+                    if (queryParams.containsKey(field.getFieldName())) {
+                        if (lookupField != null || queryParams.containsKey("ids")) {
+                            return createErrorResponse(400, "Only one of ids, email, username, wallet_address may be given");
+                        }
+                        lookupField = field;
+                    }
+                }
+                if (lookupField != null) {
+                    return handleGetUserByKey(lookupField, queryParams.get(lookupField.getFieldName()), projection);
+                }
+                
+                if (queryParams.containsKey("ids")) {
+                    return handleGetUsersByIds(queryParams.get("ids"), projection);
+                }
+                
+                if (queryParams.containsKey("count")) {
+                    try {
+                        countStrategy = UserCounter.Strategy.parse(queryParams.get("count"));
+                    } catch (IllegalArgumentException e) {
+                        return createErrorResponse(400, "Count must be one of exact, cached, estimate, none");
+                    }
+                }
+                
                 if (queryParams.containsKey("limit")) {
                     try {
                         limit = Integer.parseInt(queryParams.get("limit"));
@@ -228,6 +795,13 @@ public class UserHandler implements RequestHandler<APIGatewayV2HTTPEvent, APIGat
                     }
                 }
                 
+                if (queryParams.containsKey("cursor")) {
+                    if (queryParams.containsKey("offset")) {
+                        return createErrorResponse(400, "Cursor and offset cannot be combined");
+                    }
+                    return handleListUsersByCursor(queryParams.get("cursor"), limit, countStrategy, projection);
+                }
+                
                 if (queryParams.containsKey("offset")) {
                     try {
                         offset = Integer.parseInt(queryParams.get("offset"));
@@ -240,83 +814,282 @@ public class UserHandler implements RequestHandler<APIGatewayV2HTTPEvent, APIGat
                 }
             }
             
-            List<User> users = userDao.list(limit, offset);
-            int totalCount = userDao.getCount();
+            // Fetch one extra row so hasMore is exact whichever count strategy is used.
+            // An exact total comes back with the page on the same connection (one
+            // round trip on MySQL); an estimate runs alongside the page, or after it
+            // without fan-out.
+            List<User> users;
+            UserCounter.Result count;
+            if (userCounter.needsExactCount(countStrategy)) {
+                UserPage page = userDao.listWithTotal(limit + 1, offset, projection);
+                users = page.getUsers();
+                count = userCounter.record(page.getTotal(), countStrategy);
+            } else {
+                FanOut.Call<UserCounter.Result> countCall = startCount(countStrategy);
+                try {
+                    users = userDao.list(limit + 1, offset, projection);
+                    count = countCall != null ? countCall.get() : userCounter.count(countStrategy);
+                } finally {
+                    if (countCall != null) {
+                        countCall.cancel();
+                    }
+                }
+            }
+            boolean hasMore = users.size() > limit;
+            if (hasMore) {
+                users = users.subList(0, limit);
+            }
+            
+            Map<String, Object> pagination = new HashMap<>();
+            pagination.put("limit", limit);
+            pagination.put("offset", offset);
+            pagination.put("hasMore", hasMore);
+            putTotal(pagination, count);
             
             Map<String, Object> response = new HashMap<>();
-            response.put("users", users);
-            response.put("pagination", Map.of(
-                "limit", limit,
-                "offset", offset,
-                "total", totalCount,
-                "hasMore", (offset + limit) < totalCount
-            ));
+            response.put("users", views(users, projection));
+            response.put("pagination", pagination);
             
             return createSuccessResponse(200, response);
             
         } catch (Exception e) {
             logger.error("Error listing users: {}", e.getMessage(), e);
-            return createErrorResponse(500, "Failed to list users: " + e.getMessage());
+            return serverError("Failed to list users", e);
         }
     }
     
     /**
-     * Create a success response
+     * List users by keyset cursor. Fetches one extra row to learn whether a
+     * further page exists in the direction of travel, so the query is an index
+     * seek on id regardless of page depth.
      */
-    private APIGatewayV2HTTPResponse createSuccessResponse(int statusCode, Object data) {
+    private APIGatewayV2HTTPResponse handleListUsersByCursor(String token, int limit,
+                                                             UserCounter.Strategy countStrategy,
+                                                             Projection projection) throws Exception {
+        PageCursor cursor = null;
+        if (token != null && !token.isEmpty()) {
+            try {
+                cursor = PageCursor.decode(token);
+            } catch (IllegalArgumentException e) {
+                return createErrorResponse(400, "Invalid cursor parameter");
+            }
+        }
+        
+        UserCounter.Result count;
+        List<User> users;
+        boolean hasNext;
+        boolean hasPrevious;
+        if (userCounter.needsExactCount(countStrategy)) {
+            UserPage page = cursor != null && cursor.isBefore()
+                    ? userDao.listBeforeWithTotal(cursor.getId(), limit + 1, projection)
+                    : userDao.listAfterWithTotal(cursor == null ? 0 : cursor.getId(), limit + 1, projection);
+            users = page.getUsers();
+            count = userCounter.record(page.getTotal(), countStrategy);
+        } else {
+            FanOut.Call<UserCounter.Result> countCall = startCount(countStrategy);
+            try {
+                if (cursor != null && cursor.isBefore()) {
+                    users = userDao.listBefore(cursor.getId(), limit + 1, projection);
+                } else {
+                    users = userDao.listAfter(cursor == null ? 0 : cursor.getId(), limit + 1, projection);
+                }
+                count = countCall != null ? countCall.get() : userCounter.count(countStrategy);
+            } finally {
+                if (countCall != null) {
+                    countCall.cancel();
+                }
+            }
+        }
+        if (cursor != null && cursor.isBefore()) {
+            hasPrevious = users.size() > limit;
+            if (hasPrevious) {
+                users = users.subList(1, users.size());
+            }
+            hasNext = true;
+        } else {
+            int afterId = cursor == null ? 0 : cursor.getId();
+            hasNext = users.size() > limit;
+            if (hasNext) {
+                users = users.subList(0, limit);
+            }
+            hasPrevious = afterId > 0;
+        }
+        
+        String nextCursor = null;
+        String prevCursor = null;
+        if (!users.isEmpty()) {
+            if (hasNext) {
+                nextCursor = PageCursor.after(users.get(users.size() - 1).getId()).encode();
+            }
+            if (hasPrevious) {
+                prevCursor = PageCursor.before(users.get(0).getId()).encode();
+            }
+        }
+        
+        Map<String, Object> pagination = new HashMap<>();
+        pagination.put("limit", limit);
+        pagination.put("nextCursor", nextCursor);
+        pagination.put("prevCursor", prevCursor);
+        pagination.put("hasMore", nextCursor != null);
+        putTotal(pagination, count);
+        
+        Map<String, Object> response = new HashMap<>();
+        response.put("users", views(users, projection));
+        response.put("pagination", pagination);
+        
+        return createSuccessResponse(200, response);
+    }
+    
+    /**
+     * Start counting concurrently with the page query when the count needs a
+     * round trip of its own (an estimate; exact totals come with the page)
+     * @return Running count, or null if fan-out is off or the count is free
+     */
+    private static FanOut.Call<UserCounter.Result> startCount(UserCounter.Strategy strategy) {
+        if (!FanOut.isEnabled() || !userCounter.needsQuery(strategy)) {
+            return null;
+        }
+        return FanOut.submit(() -> userCounter.count(strategy));
+    }
+    
+    /**
+     * Handle GET /users/export - Stream users as newline-delimited JSON
+     *
+     * Returns up to limit rows after afterId; the X-Export-Last-Id header gives
+     * the afterId for the next chunk. Use UserExporter directly for a full
+     * unbounded dump.
+     */
+    private APIGatewayV2HTTPResponse handleExportUsers(APIGatewayV2HTTPEvent event) {
         try {
-            Map<String, Object> responseBody = new HashMap<>();
-            responseBody.put("success", true);
-            responseBody.put("data", data);
+            Map<String, String> queryParams = event.getQueryStringParameters();
+            int afterId = 0;
+            int limit = MAX_EXPORT_ROWS;
             
-            String jsonResponse = objectMapper.writeValueAsString(responseBody);
+            if (queryParams != null) {
+                if (queryParams.containsKey("afterId")) {
+                    try {
+                        afterId = Integer.parseInt(queryParams.get("afterId"));
+                        if (afterId < 0) {
+                            return createErrorResponse(400, "afterId must be non-negative");
+                        }
+                    } catch (NumberFormatException e) {
+                        return createErrorResponse(400, "Invalid afterId parameter");
+                    }
+                }
+                
+                if (queryParams.containsKey("limit")) {
+                    try {
+                        limit = Integer.parseInt(queryParams.get("limit"));
+                        if (limit <= 0 || limit > MAX_EXPORT_ROWS) {
+                            return createErrorResponse(400, "Limit must be between 1 and " + MAX_EXPORT_ROWS);
+                        }
+                    } catch (NumberFormatException e) {
+                        return createErrorResponse(400, "Invalid limit parameter");
+                    }
+                }
+            }
             
-            Map<String, String> headers = new HashMap<>();
-            headers.put("Content-Type", "application/json");
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            UserExporter.Result result = userExporter.export(out, afterId, limit);
             
             return APIGatewayV2HTTPResponse.builder()
-                    .withStatusCode(statusCode)
-                    .withHeaders(headers)
-                    .withBody(jsonResponse)
+                    .withStatusCode(200)
+                    .withHeaders(Map.of(
+                            "Content-Type", UserExporter.CONTENT_TYPE,
+                            "X-Export-Count", String.valueOf(result.getCount()),
+                            "X-Export-Last-Id", String.valueOf(result.getLastId())))
+                    .withBody(out.toString(StandardCharsets.UTF_8))
                     .build();
-                    
+            
         } catch (Exception e) {
-            logger.error("Error creating success response: {}", e.getMessage(), e);
-            return createErrorResponse(500, "Internal server error");
+            logger.error("Error exporting users: {}", e.getMessage(), e);
+            return serverError("Failed to export users", e);
         }
     }
     
     /**
-     * Create an error response
+     * Parse the optional fields= parameter
+     * @return Projection.ALL when absent
+     * @throws IllegalArgumentException if a field is empty, unknown or not selectable
      */
-    private APIGatewayV2HTTPResponse createErrorResponse(int statusCode, String errorMessage) {
+    private static Projection parseFields(Map<String, String> queryParams) {
+        if (queryParams == null || !queryParams.containsKey("fields")) {
+            return Projection.ALL;
+        }
+        return Projection.parse(queryParams.get("fields"));
+    }
+    
+    /**
+     * Wrap users in sparse views unless every field is selected
+     */
+    private static List<?> views(List<User> users, Projection projection) {
+        if (projection.isAll()) {
+            return users;
+        }
+        List<Object> views = new ArrayList<>(users.size());
+        for (User user : users) {
+            views.add(projection.view(user));
+        }
+        return views;
+    }
+    
+    /**
+     * Add total and totalStrategy to a pagination block; NONE omits the total
+     */
+    private void putTotal(Map<String, Object> pagination, UserCounter.Result count) {
+        if (count.getTotal() != null) {
+            pagination.put("total", count.getTotal());
+        }
+        pagination.put("totalStrategy", count.getStrategy().label());
+    }
+    
+    private static UserCounter.Strategy parseCountStrategy(String value) {
         try {
-            Map<String, Object> responseBody = new HashMap<>();
-            responseBody.put("success", false);
-            responseBody.put("error", errorMessage);
-            
-            String jsonResponse = objectMapper.writeValueAsString(responseBody);
-            
-            Map<String, String> headers = new HashMap<>();
-            headers.put("Content-Type", "application/json");
-            
-            return APIGatewayV2HTTPResponse.builder()
-                    .withStatusCode(statusCode)
-                    .withHeaders(headers)
-                    .withBody(jsonResponse)
-                    .build();
-                    
-        } catch (Exception e) {
-            logger.error("Error creating error response: {}", e.getMessage(), e);
-            // Fallback to simple text response
-            Map<String, String> headers = new HashMap<>();
-            headers.put("Content-Type", "application/json");
-            
-            return APIGatewayV2HTTPResponse.builder()
-                    .withStatusCode(statusCode)
-                    .withHeaders(headers)
-                    .withBody("{\"success\":false,\"error\":\"Internal server error\"}")
-                    .build();
+            return UserCounter.Strategy.parse(value);
+        } catch (IllegalArgumentException e) {
+            logger.warn("Unknown USER_COUNT_STRATEGY '{}', using cached", value);
+            return UserCounter.Strategy.CACHED;
+        }
+    }
+    
+    /**
+     * Create a success response
+     */
+    private APIGatewayV2HTTPResponse createSuccessResponse(int statusCode, Object data) {
+        return responseWriter.success(statusCode, data);
+    }
+    
+    /**
+     * Create the response for an unexpected failure: 503 with Retry-After
+     * while the database circuit is open, 503 for other connection failures,
+     * 504 when a query ran out of time, 500 otherwise
+     */
+    private APIGatewayV2HTTPResponse serverError(String message, Exception e) {
+        if (e instanceof CircuitOpenException) {
+            long retryAfterSeconds = Math.max(1, (((CircuitOpenException) e).getRetryAfterMillis() + 999) / 1000);
+            return responseWriter.withHeader(createErrorResponse(503, message + ": database unavailable"),
+                                             "Retry-After", String.valueOf(retryAfterSeconds));
+        }
+        if (e instanceof SQLTimeoutException) {
+            return createErrorResponse(504, message + ": database timed out");
+        }
+        if (e instanceof SQLException && Db.isUnavailable((SQLException) e)) {
+            return createErrorResponse(503, message + ": database unavailable");
         }
+        return createErrorResponse(500, message + ": " + e.getMessage());
+    }
+    
+    /**
+     * Create an error response
+     */
+    private APIGatewayV2HTTPResponse createErrorResponse(int statusCode, String errorMessage) {
+        return responseWriter.error(statusCode, errorMessage);
+    }
+    
+    /**
+     * Create an error response with additional details (e.g. per-item errors)
+     */
+    private APIGatewayV2HTTPResponse createErrorResponse(int statusCode, String errorMessage, Object details) {
+        return responseWriter.error(statusCode, errorMessage, details);
     }
 }
@@ -0,0 +1,301 @@
+package com.example.lambda;
+
+import com.example.lambda.dao.MutationResult;
+import com.example.lambda.dao.UserDao;
+import com.example.lambda.metrics.Metrics;
+import com.example.lambda.metrics.Phase;
+import com.example.lambda.model.User;
+import com.example.lambda.model.UserMutation;
+import com.example.lambda.model.UserValidation;
+import com.example.lambda.security.PasswordHasher;
+import com.example.lambda.util.Db;
+import com.example.lambda.util.Deadline;
+import com.example.lambda.util.Env;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Applies a batch of queued user mutations for the SQS and Kinesis handlers.
+ *
+ * Records are parsed and validated one by one; a record that can never
+ * succeed (bad JSON, failed validation, unknown user, duplicate key, score
+ * overflow) is REJECTED. The rest go to UserDao.applyMutations as one
+ * transaction, minus superseded work: an update replaces earlier updates and
+ * score changes for the same user. If that transaction fails, the mutations
+ * are applied one at a time in record order to isolate the bad ones, unless
+ * it failed because the database is unreachable or timed out, when every
+ * valid record is left for retry at once. The first failure that might
+ * succeed later (connection loss, lock timeout, or a password that cannot be
+ * hashed before the invocation deadline) stops processing, and it and every
+ * later record are marked RETRY, so nothing is applied out of order when the
+ * source redelivers them.
+ */
+final class UserMutationProcessor {
+    private static final Logger logger = LoggerFactory.getLogger(UserMutationProcessor.class);
+    // Time kept back from hashing for the batch's writes
+    private static final long HASH_RESERVE_MS = Env.getLong("USER_BATCH_RESERVE_MS", 2_000L);
+
+    /**
+     * What happened to one record
+     */
+    enum Outcome {
+        /** Written, or superseded by a later record in the batch */
+        APPLIED,
+        /** Will never succeed; logged with the reason */
+        REJECTED,
+        /** Not applied; redeliver it */
+        RETRY
+    }
+
+    private final UserDao userDao;
+    private final PasswordHasher passwordHasher;
+    private final ObjectReader mutationReader;
+
+    UserMutationProcessor(UserDao userDao, PasswordHasher passwordHasher, ObjectMapper objectMapper) {
+        this.userDao = userDao;
+        this.passwordHasher = passwordHasher;
+        this.mutationReader = objectMapper.readerFor(UserMutation.class);
+    }
+
+    /**
+     * Apply a batch of records
+     * @param ids Record identifiers (message IDs or sequence numbers), for logging
+     * @param bodies Record payloads, in delivery order
+     * @return Outcome of each record, in the same order
+     */
+    Outcome[] process(List<String> ids, List<String> bodies) {
+        Outcome[] outcomes = new Outcome[bodies.size()];
+        UserMutation[] mutations = new UserMutation[bodies.size()];
+
+        long parseStart = Metrics.start();
+        for (int i = 0; i < bodies.size(); i++) {
+            if (bodies.get(i) == null) {
+                outcomes[i] = reject(ids.get(i), "Record body is empty");
+                continue;
+            }
+            try {
+                UserMutation mutation = mutationReader.readValue(bodies.get(i));
+                String validationError = validate(mutation);
+                if (validationError != null) {
+                    outcomes[i] = reject(ids.get(i), validationError);
+                } else {
+                    mutations[i] = mutation;
+                }
+            } catch (JsonProcessingException e) {
+                outcomes[i] = reject(ids.get(i), "Invalid JSON: " + e.getOriginalMessage());
+            }
+        }
+        Metrics.record(Phase.JSON_PARSE, parseStart);
+
+        hashPasswords(ids, mutations, outcomes);
+
+        try {
+            applyBatch(ids, mutations, outcomes);
+        } catch (SQLException | ArithmeticException e) {
+            if (e instanceof SQLException && Db.isUnavailable((SQLException) e)) {
+                // One at a time would only fail again, or be refused by the open circuit
+                logger.warn("Database unavailable ({}), leaving the batch for retry", e.getMessage());
+                for (int i = 0; i < mutations.length; i++) {
+                    if (mutations[i] != null) {
+                        outcomes[i] = Outcome.RETRY;
+                    }
+                }
+                return outcomes;
+            }
+            logger.warn("Batch transaction failed ({}), applying mutations one at a time", e.getMessage());
+            applyEach(ids, mutations, outcomes);
+        }
+        return outcomes;
+    }
+
+    private static String validate(UserMutation mutation) {
+        if (mutation == null || mutation.getType() == null) {
+            return "type is required";
+        }
+        if (mutation.getType() != UserMutation.Type.CREATE && (mutation.getId() == null || mutation.getId() <= 0)) {
+            return "id must be a positive integer";
+        }
+        switch (mutation.getType()) {
+            case CREATE:
+            case UPDATE:
+                return mutation.getUser() == null ? "user is required" : UserValidation.validate(mutation.getUser());
+            case SCORE:
+                return mutation.getDelta() == null ? "delta is required" : null;
+            default:
+                return "Unknown type: " + mutation.getType();
+        }
+    }
+
+    /**
+     * Hash the passwords of creates and updates in the invocation's time,
+     * less USER_BATCH_RESERVE_MS for the write. The first record whose hash
+     * does not fit, and every valid record after it, is left for retry.
+     */
+    private void hashPasswords(List<String> ids, UserMutation[] mutations, Outcome[] outcomes) {
+        List<Integer> indexes = new ArrayList<>();
+        for (int i = 0; i < mutations.length; i++) {
+            if (mutations[i] != null && mutations[i].getUser() != null) {
+                indexes.add(i);
+            }
+        }
+        if (indexes.isEmpty()) {
+            return;
+        }
+
+        long remainingMs = Deadline.remainingMillis();
+        long hashBudgetMs = remainingMs == Long.MAX_VALUE ? remainingMs : remainingMs - HASH_RESERVE_MS;
+        int fits = hashBudgetMs <= 0 ? 0 : passwordHasher.capacity(hashBudgetMs);
+        if (fits < indexes.size()) {
+            int first = indexes.get(fits);
+            logger.warn("Only {} of {} passwords can be hashed in the {}ms left, leaving records from {} for retry",
+                        fits, indexes.size(), remainingMs, ids.get(first));
+            retryFrom(first, mutations, outcomes);
+            indexes = indexes.subList(0, fits);
+            if (indexes.isEmpty()) {
+                return;
+            }
+        }
+
+        List<String> passwords = new ArrayList<>(indexes.size());
+        for (int index : indexes) {
+            passwords.add(mutations[index].getUser().getPassword());
+        }
+        List<String> hashes;
+        try {
+            hashes = passwordHasher.hashAll(passwords, hashBudgetMs);
+        } catch (TimeoutException e) {
+            logger.warn("Hashing ran out of time ({}), leaving records from {} for retry",
+                        e.getMessage(), ids.get(indexes.get(0)));
+            retryFrom(indexes.get(0), mutations, outcomes);
+            return;
+        }
+        for (int i = 0; i < indexes.size(); i++) {
+            mutations[indexes.get(i)].getUser().setPassword(hashes.get(i));
+        }
+    }
+
+    /**
+     * Leave a record and every valid record after it for retry
+     */
+    private static void retryFrom(int first, UserMutation[] mutations, Outcome[] outcomes) {
+        for (int i = first; i < mutations.length; i++) {
+            if (mutations[i] != null) {
+                outcomes[i] = Outcome.RETRY;
+                mutations[i] = null;
+            }
+        }
+    }
+
+    /**
+     * Apply every valid mutation in one transaction
+     * @throws ArithmeticException if a user's summed score changes overflow
+     */
+    private void applyBatch(List<String> ids, UserMutation[] mutations, Outcome[] outcomes) throws SQLException {
+        Map<Integer, Integer> lastUpdate = new HashMap<>();
+        for (int i = 0; i < mutations.length; i++) {
+            if (mutations[i] != null && mutations[i].getType() == UserMutation.Type.UPDATE) {
+                lastUpdate.put(mutations[i].getId(), i);
+            }
+        }
+
+        List<User> creates = new ArrayList<>();
+        Map<Integer, User> updates = new HashMap<>();
+        Map<Integer, Integer> deltas = new HashMap<>();
+        for (int i = 0; i < mutations.length; i++) {
+            UserMutation mutation = mutations[i];
+            if (mutation == null) {
+                continue;
+            }
+            Integer updateIndex = lastUpdate.get(mutation.getId());
+            switch (mutation.getType()) {
+                case CREATE:
+                    creates.add(mutation.getUser());
+                    break;
+                case UPDATE:
+                    if (updateIndex == i) {
+                        updates.put(mutation.getId(), mutation.getUser());
+                    }
+                    break;
+                case SCORE:
+                    if (updateIndex == null || updateIndex < i) {
+                        deltas.merge(mutation.getId(), mutation.getDelta(), Math::addExact);
+                    }
+                    break;
+            }
+        }
+
+        MutationResult result = userDao.applyMutations(creates, updates, deltas);
+        for (int i = 0; i < mutations.length; i++) {
+            UserMutation mutation = mutations[i];
+            if (mutation == null) {
+                continue;
+            }
+            outcomes[i] = mutation.getType() != UserMutation.Type.CREATE && result.getMissing().contains(mutation.getId())
+                    ? reject(ids.get(i), "User not found with ID: " + mutation.getId())
+                    : Outcome.APPLIED;
+        }
+    }
+
+    /**
+     * Apply valid mutations one by one, in order, until one needs a retry
+     */
+    private void applyEach(List<String> ids, UserMutation[] mutations, Outcome[] outcomes) {
+        boolean stopped = false;
+        for (int i = 0; i < mutations.length; i++) {
+            UserMutation mutation = mutations[i];
+            if (mutation == null) {
+                continue;
+            }
+            if (stopped) {
+                outcomes[i] = Outcome.RETRY;
+                continue;
+            }
+            try {
+                outcomes[i] = apply(mutation) ? Outcome.APPLIED
+                        : reject(ids.get(i), "User not found with ID: " + mutation.getId());
+            } catch (SQLException e) {
+                if (UserValidation.isUniqueViolation(e)) {
+                    outcomes[i] = reject(ids.get(i), UserValidation.DUPLICATE_USER_MESSAGE);
+                } else if (UserValidation.isOutOfRange(e)) {
+                    outcomes[i] = reject(ids.get(i), UserValidation.SCORE_OUT_OF_RANGE_MESSAGE);
+                } else {
+                    logger.warn("Mutation {} failed, leaving it and later records for retry: {}", ids.get(i), e.getMessage());
+                    outcomes[i] = Outcome.RETRY;
+                    stopped = true;
+                }
+            }
+        }
+    }
+
+    /**
+     * @return false if the user to change does not exist
+     */
+    private boolean apply(UserMutation mutation) throws SQLException {
+        switch (mutation.getType()) {
+            case CREATE:
+                userDao.create(mutation.getUser());
+                return true;
+            case UPDATE:
+                return userDao.update(mutation.getId(), mutation.getUser());
+            case SCORE:
+                return userDao.incrementScore(mutation.getId(), mutation.getDelta()) != null;
+            default:
+                throw new IllegalArgumentException("Unknown type: " + mutation.getType());
+        }
+    }
+
+    private static Outcome reject(String id, String reason) {
+        logger.warn("Rejected mutation {}: {}", id, reason);
+        return Outcome.REJECTED;
+    }
+}
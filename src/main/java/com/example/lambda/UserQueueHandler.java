@@ -0,0 +1,87 @@
+package com.example.lambda;
+
+import com.amazonaws.services.lambda.runtime.Context;
+import com.amazonaws.services.lambda.runtime.RequestHandler;
+import com.amazonaws.services.lambda.runtime.events.SQSBatchResponse;
+import com.amazonaws.services.lambda.runtime.events.SQSEvent;
+import com.example.lambda.dao.UserDao;
+import com.example.lambda.logging.Logging;
+import com.example.lambda.metrics.Metrics;
+import com.example.lambda.security.PasswordHasher;
+import com.example.lambda.util.Db;
+import com.example.lambda.util.Deadline;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Lambda handler for SQS batches of user mutations (see UserMutation).
+ *
+ * The event source mapping must enable ReportBatchItemFailures. Messages that
+ * were rejected or need a retry are returned as batch item failures, so only
+ * they become visible again; rejected ones reach the dead-letter queue after
+ * maxReceiveCount. SQS delivers at least once, so a redelivered score change
+ * is applied again.
+ */
+public class UserQueueHandler implements RequestHandler<SQSEvent, SQSBatchResponse> {
+    private static final Logger logger = LoggerFactory.getLogger(UserQueueHandler.class);
+    private static final ObjectMapper objectMapper = new ObjectMapper()
+            .registerModule(new com.fasterxml.jackson.datatype.jsr310.JavaTimeModule());
+
+    private static final UserDao userDao = new UserDao();
+    private static final PasswordHasher passwordHasher = PasswordHasher.fromEnv();
+    private static final UserMutationProcessor processor =
+            new UserMutationProcessor(userDao, passwordHasher, objectMapper);
+
+    static {
+        Startup.initialize(objectMapper, null, () -> {
+            userDao.clearCache();
+            passwordHasher.reset();
+            Metrics.reset();
+            Db.resetCircuit();
+        });
+    }
+
+    @Override
+    public SQSBatchResponse handleRequest(SQSEvent event, Context context) {
+        long startTime = System.currentTimeMillis();
+        Logging.beginInvocation();
+        Deadline.begin(context);
+        Db.beginRequest();
+        Metrics.begin();
+        try {
+            List<SQSEvent.SQSMessage> messages = event.getRecords() != null ? event.getRecords() : Collections.emptyList();
+            logger.info("Received {} queued mutations", messages.size());
+
+            List<String> ids = new ArrayList<>(messages.size());
+            List<String> bodies = new ArrayList<>(messages.size());
+            for (SQSEvent.SQSMessage message : messages) {
+                ids.add(message.getMessageId());
+                bodies.add(message.getBody());
+            }
+            UserMutationProcessor.Outcome[] outcomes = processor.process(ids, bodies);
+
+            List<SQSBatchResponse.BatchItemFailure> failures = new ArrayList<>();
+            for (int i = 0; i < outcomes.length; i++) {
+                if (outcomes[i] != UserMutationProcessor.Outcome.APPLIED) {
+                    failures.add(SQSBatchResponse.BatchItemFailure.builder()
+                            .withItemIdentifier(ids.get(i))
+                            .build());
+                }
+            }
+
+            logger.info("Processed {} queued mutations - Failed: {}, Duration: {}ms",
+                        messages.size(), failures.size(), System.currentTimeMillis() - startTime);
+            return SQSBatchResponse.builder().withBatchItemFailures(failures).build();
+        } finally {
+            Metrics.end();
+            Db.endRequest();
+            Deadline.end();
+            Logging.endInvocation();
+        }
+    }
+}
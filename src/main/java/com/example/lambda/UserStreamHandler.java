@@ -0,0 +1,93 @@
+package com.example.lambda;
+
+import com.amazonaws.services.lambda.runtime.Context;
+import com.amazonaws.services.lambda.runtime.RequestHandler;
+import com.amazonaws.services.lambda.runtime.events.KinesisEvent;
+import com.amazonaws.services.lambda.runtime.events.StreamsEventResponse;
+import com.example.lambda.dao.UserDao;
+import com.example.lambda.logging.Logging;
+import com.example.lambda.metrics.Metrics;
+import com.example.lambda.security.PasswordHasher;
+import com.example.lambda.util.Db;
+import com.example.lambda.util.Deadline;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Lambda handler for Kinesis batches of user mutations (see UserMutation).
+ *
+ * The event source mapping must enable ReportBatchItemFailures. Lambda
+ * replays a shard from the lowest sequence number reported, so only the
+ * first record that needs a retry is reported; nothing after it has been
+ * applied. Rejected records are logged and skipped, since reporting them
+ * would hold up the shard until they expire.
+ */
+public class UserStreamHandler implements RequestHandler<KinesisEvent, StreamsEventResponse> {
+    private static final Logger logger = LoggerFactory.getLogger(UserStreamHandler.class);
+    private static final ObjectMapper objectMapper = new ObjectMapper()
+            .registerModule(new com.fasterxml.jackson.datatype.jsr310.JavaTimeModule());
+
+    private static final UserDao userDao = new UserDao();
+    private static final PasswordHasher passwordHasher = PasswordHasher.fromEnv();
+    private static final UserMutationProcessor processor =
+            new UserMutationProcessor(userDao, passwordHasher, objectMapper);
+
+    static {
+        Startup.initialize(objectMapper, null, () -> {
+            userDao.clearCache();
+            passwordHasher.reset();
+            Metrics.reset();
+            Db.resetCircuit();
+        });
+    }
+
+    @Override
+    public StreamsEventResponse handleRequest(KinesisEvent event, Context context) {
+        long startTime = System.currentTimeMillis();
+        Logging.beginInvocation();
+        Deadline.begin(context);
+        Db.beginRequest();
+        Metrics.begin();
+        try {
+            List<KinesisEvent.KinesisEventRecord> records =
+                    event.getRecords() != null ? event.getRecords() : Collections.emptyList();
+            logger.info("Received {} streamed mutations", records.size());
+
+            List<String> ids = new ArrayList<>(records.size());
+            List<String> bodies = new ArrayList<>(records.size());
+            for (KinesisEvent.KinesisEventRecord record : records) {
+                ids.add(record.getKinesis().getSequenceNumber());
+                bodies.add(StandardCharsets.UTF_8.decode(record.getKinesis().getData().duplicate()).toString());
+            }
+            UserMutationProcessor.Outcome[] outcomes = processor.process(ids, bodies);
+
+            List<StreamsEventResponse.BatchItemFailure> failures = new ArrayList<>(1);
+            int rejected = 0;
+            for (int i = 0; i < outcomes.length; i++) {
+                if (outcomes[i] == UserMutationProcessor.Outcome.REJECTED) {
+                    rejected++;
+                } else if (outcomes[i] == UserMutationProcessor.Outcome.RETRY && failures.isEmpty()) {
+                    failures.add(StreamsEventResponse.BatchItemFailure.builder()
+                            .withItemIdentifier(ids.get(i))
+                            .build());
+                }
+            }
+
+            logger.info("Processed {} streamed mutations - Rejected: {}, Retry from: {}, Duration: {}ms",
+                        records.size(), rejected, failures.isEmpty() ? "none" : failures.get(0).getItemIdentifier(),
+                        System.currentTimeMillis() - startTime);
+            return StreamsEventResponse.builder().withBatchItemFailures(failures).build();
+        } finally {
+            Metrics.end();
+            Db.endRequest();
+            Deadline.end();
+            Logging.endInvocation();
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package com.example.lambda.dao;
+
+import com.example.lambda.model.LeaderboardEntry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Score leaderboard with the top entries cached in the warm container.
+ *
+ * The cached top-N is reloaded once its TTL expires, and writes made through
+ * this container drop it early when they could change it: a user already in
+ * it, or a new score at or above the lowest cached score. Other writes cannot
+ * move anyone into the top-N, so they leave it in place; the TTL bounds drift
+ * caused by writes from other containers.
+ */
+public class Leaderboard {
+    private static final Logger logger = LoggerFactory.getLogger(Leaderboard.class);
+
+    private static final class Snapshot {
+        final List<LeaderboardEntry> entries;
+        final Map<Integer, LeaderboardEntry> byId;
+        final long expiresAt;
+
+        Snapshot(List<LeaderboardEntry> entries, long expiresAt) {
+            this.entries = entries;
+            this.byId = new HashMap<>(entries.size() * 2);
+            for (LeaderboardEntry entry : entries) {
+                byId.put(entry.getId(), entry);
+            }
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    private final UserDao userDao;
+    private final int cacheSize;
+    private final long ttlNanos;
+    private volatile Snapshot snapshot;
+    // Bumped on every invalidation so a load that raced one is not installed
+    private long generation;
+
+    public Leaderboard(UserDao userDao, int cacheSize, long ttlMs) {
+        this.userDao = userDao;
+        this.cacheSize = Math.max(0, cacheSize);
+        this.ttlNanos = TimeUnit.MILLISECONDS.toNanos(ttlMs);
+    }
+
+    /**
+     * Get the highest-scoring users
+     * @param limit Maximum number of entries
+     * @return Entries in rank order; served from the cache when limit fits in it
+     * @throws SQLException if database operation fails
+     */
+    public List<LeaderboardEntry> top(int limit) throws SQLException {
+        if (limit > cacheSize) {
+            return userDao.getTopByScore(limit);
+        }
+        List<LeaderboardEntry> entries = current().entries;
+        return entries.size() > limit ? entries.subList(0, limit) : entries;
+    }
+
+    /**
+     * Get a user's rank, from the cached top-N when the user is in it
+     * @param id User ID
+     * @return Entry, or null if the user does not exist
+     * @throws SQLException if database operation fails
+     */
+    public LeaderboardEntry rank(int id) throws SQLException {
+        Snapshot current = cacheSize > 0 ? current() : null;
+        if (current != null) {
+            LeaderboardEntry entry = current.byId.get(id);
+            if (entry != null) {
+                return entry;
+            }
+        }
+        return userDao.getRank(id);
+    }
+
+    private Snapshot current() throws SQLException {
+        Snapshot current = snapshot;
+        if (current != null && System.nanoTime() - current.expiresAt < 0) {
+            return current;
+        }
+        long loadGeneration;
+        synchronized (this) {
+            current = snapshot;
+            if (current != null && System.nanoTime() - current.expiresAt < 0) {
+                return current;
+            }
+            loadGeneration = generation;
+        }
+        Snapshot loaded = new Snapshot(List.copyOf(userDao.getTopByScore(cacheSize)), System.nanoTime() + ttlNanos);
+        synchronized (this) {
+            if (generation == loadGeneration) {
+                snapshot = loaded;
+            }
+        }
+        logger.debug("Refreshed leaderboard cache: {} entries", loaded.entries.size());
+        return loaded;
+    }
+
+    /**
+     * Apply a local create or update, dropping the cache if it could change
+     * @param id User ID
+     * @param score New score, or null if the user has none
+     */
+    public synchronized void scoreChanged(int id, Integer score) {
+        Snapshot current = snapshot;
+        if (current == null) {
+            return;
+        }
+        boolean affected = current.byId.containsKey(id)
+                || (score != null && (current.entries.size() < cacheSize
+                        || score >= current.entries.get(current.entries.size() - 1).getScore()));
+        if (affected) {
+            invalidate();
+        }
+    }
+
+    /**
+     * Apply a local delete, dropping the cache if the user was in it
+     * @param id User ID
+     */
+    public synchronized void removed(int id) {
+        Snapshot current = snapshot;
+        if (current != null && current.byId.containsKey(id)) {
+            invalidate();
+        }
+    }
+
+    /**
+     * Drop the cached top-N so the next request reloads it
+     */
+    public synchronized void invalidate() {
+        snapshot = null;
+        generation++;
+    }
+}
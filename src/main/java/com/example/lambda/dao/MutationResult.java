@@ -0,0 +1,28 @@
+package com.example.lambda.dao;
+
+import com.example.lambda.model.User;
+
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Outcome of UserDao.applyMutations: the inserted users and the IDs that
+ * could not be updated because they do not exist
+ */
+public class MutationResult {
+    private final List<User> created;
+    private final Set<Integer> missing;
+
+    public MutationResult(List<User> created, Set<Integer> missing) {
+        this.created = created;
+        this.missing = missing;
+    }
+
+    public List<User> getCreated() {
+        return created;
+    }
+
+    public Set<Integer> getMissing() {
+        return missing;
+    }
+}
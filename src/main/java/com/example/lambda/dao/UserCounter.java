@@ -0,0 +1,187 @@
+package com.example.lambda.dao;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.SQLException;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Total user count with selectable cost/accuracy strategies.
+ *
+ * The cached value lives in the warm container; writes made through this
+ * container adjust it incrementally, and the TTL bounds drift caused by
+ * writes from other containers.
+ */
+public class UserCounter {
+    private static final Logger logger = LoggerFactory.getLogger(UserCounter.class);
+
+    /**
+     * How the total is produced
+     */
+    public enum Strategy {
+        /** SELECT COUNT(*) on every request */
+        EXACT,
+        /** SELECT COUNT(*) cached for a TTL and adjusted on local writes */
+        CACHED,
+        /** Table statistics estimate from information_schema */
+        ESTIMATE,
+        /** No total; callers derive hasMore from an extra fetched row */
+        NONE;
+
+        /**
+         * Parse a strategy name, case-insensitive
+         * @param value Strategy name
+         * @return Strategy
+         * @throws IllegalArgumentException if the name is unknown
+         */
+        public static Strategy parse(String value) {
+            return valueOf(value.trim().toUpperCase(Locale.ROOT));
+        }
+
+        public String label() {
+            return name().toLowerCase(Locale.ROOT);
+        }
+    }
+
+    /**
+     * A total together with the strategy that produced it
+     */
+    public static class Result {
+        private final Integer total;
+        private final Strategy strategy;
+
+        Result(Integer total, Strategy strategy) {
+            this.total = total;
+            this.strategy = strategy;
+        }
+
+        /**
+         * @return Total, or null for {@link Strategy#NONE}
+         */
+        public Integer getTotal() {
+            return total;
+        }
+
+        public Strategy getStrategy() {
+            return strategy;
+        }
+    }
+
+    private static final class Cached {
+        final int count;
+        final long expiresAt;
+
+        Cached(int count, long expiresAt) {
+            this.count = count;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    private final UserDao userDao;
+    private final Strategy defaultStrategy;
+    private final long ttlNanos;
+    private volatile Cached cached;
+
+    public UserCounter(UserDao userDao, Strategy defaultStrategy, long ttlMs) {
+        this.userDao = userDao;
+        this.defaultStrategy = defaultStrategy;
+        this.ttlNanos = TimeUnit.MILLISECONDS.toNanos(ttlMs);
+    }
+
+    public Strategy getDefaultStrategy() {
+        return defaultStrategy;
+    }
+
+    /**
+     * Count users using the given strategy
+     * @param strategy Strategy to use
+     * @return Count result
+     * @throws SQLException if database operation fails
+     */
+    public Result count(Strategy strategy) throws SQLException {
+        switch (strategy) {
+            case EXACT:
+                return new Result(userDao.getCount(), strategy);
+            case CACHED:
+                return new Result(cachedCount(), strategy);
+            case ESTIMATE:
+                return new Result(userDao.estimateCount(), strategy);
+            case NONE:
+            default:
+                return new Result(null, Strategy.NONE);
+        }
+    }
+
+    /**
+     * Whether the strategy needs an exact COUNT(*) right now, in which case the
+     * caller can fetch it alongside its page and pass it to {@link #record}
+     * @param strategy Strategy to use
+     * @return true for EXACT, or CACHED with no fresh value
+     */
+    public boolean needsExactCount(Strategy strategy) {
+        if (strategy == Strategy.EXACT) {
+            return true;
+        }
+        if (strategy == Strategy.CACHED) {
+            Cached current = cached;
+            return current == null || System.nanoTime() - current.expiresAt >= 0;
+        }
+        return false;
+    }
+
+    /**
+     * Whether count() would query the database right now
+     * @param strategy Strategy to use
+     * @return true for EXACT, ESTIMATE, or CACHED with no fresh value
+     */
+    public boolean needsQuery(Strategy strategy) {
+        return strategy == Strategy.ESTIMATE || needsExactCount(strategy);
+    }
+
+    /**
+     * Use an exact count obtained elsewhere, refreshing the cache
+     * @param total Exact count
+     * @param strategy Strategy the caller is serving
+     * @return Count result
+     */
+    public Result record(int total, Strategy strategy) {
+        synchronized (this) {
+            cached = new Cached(total, System.nanoTime() + ttlNanos);
+        }
+        return new Result(total, strategy);
+    }
+
+    private int cachedCount() throws SQLException {
+        long now = System.nanoTime();
+        Cached current = cached;
+        if (current != null && now - current.expiresAt < 0) {
+            return current.count;
+        }
+        int count = userDao.getCount();
+        synchronized (this) {
+            cached = new Cached(count, now + ttlNanos);
+        }
+        logger.debug("Refreshed cached user count: {}", count);
+        return count;
+    }
+
+    /**
+     * Apply a local write to the cached count without a new COUNT(*)
+     * @param delta Number of rows added (positive) or removed (negative)
+     */
+    public synchronized void adjust(int delta) {
+        Cached current = cached;
+        if (current != null) {
+            cached = new Cached(Math.max(0, current.count + delta), current.expiresAt);
+        }
+    }
+
+    /**
+     * Drop the cached count so the next request recounts
+     */
+    public synchronized void invalidate() {
+        cached = null;
+    }
+}
@@ -1,20 +1,143 @@
 package com.example.lambda.dao;
 
+import com.example.lambda.metrics.Metrics;
+import com.example.lambda.metrics.Phase;
+import com.example.lambda.model.LeaderboardEntry;
+import com.example.lambda.model.Projection;
 import com.example.lambda.model.User;
+import com.example.lambda.model.UserField;
+import com.example.lambda.util.CacheStats;
 import com.example.lambda.util.Db;
+import com.example.lambda.util.Env;
+import com.example.lambda.util.LruCache;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import java.io.IOException;
 import java.sql.*;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
 
 /**
  * Data Access Object for User entity
+ *
+ * Reads run through Db.read(), so one that hits a connection failure is
+ * retried; writes and the streaming export never are. Reads and the export
+ * use Db.getReadConnection(), so they go to a read replica when one is
+ * configured, unless the request has already written. Only rows read from
+ * the primary fill the caches, so replication lag is never cached. Every
+ * statement gets the invocation's query timeout.
  */
 public class UserDao {
     private static final Logger logger = LoggerFactory.getLogger(UserDao.class);
     
+    // Read-through cache of users by ID, kept in the warm container
+    private static final String CACHE_MAX_SIZE_ENV = "USER_CACHE_MAX_SIZE";
+    private static final String CACHE_TTL_MS_ENV = "USER_CACHE_TTL_MS";
+    private static final int DEFAULT_CACHE_MAX_SIZE = 1000;
+    private static final long DEFAULT_CACHE_TTL_MS = 60 * 1000L;
+    
+    // SQL is fixed per method (and per projection, see Projection.select) so
+    // each statement text is prepared once per pooled connection and then
+    // served from its statement cache
+    private static final String USER_COLUMNS =
+            "id, username, email, password, score, wallet_address, wallet_type, bind_time";
+    private static final String INSERT_SQL =
+            "INSERT INTO users (username, email, password, score, wallet_address, wallet_type, bind_time) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?)";
+    private static final String SELECT_BY_ID_FROM = " FROM users WHERE id = ?";
+    // Backed by the unique indexes in sql/migrations/002_users_lookup_indexes.sql
+    private static final String SELECT_BY_EMAIL_SQL = "SELECT " + USER_COLUMNS + " FROM users WHERE email = ?";
+    private static final String SELECT_BY_USERNAME_SQL = "SELECT " + USER_COLUMNS + " FROM users WHERE username = ?";
+    private static final String SELECT_BY_WALLET_SQL =
+            "SELECT " + USER_COLUMNS + " FROM users WHERE wallet_address = ?";
+    private static final String UPDATE_SQL =
+            "UPDATE users SET username = ?, email = ?, password = ?, score = ?, " +
+            "wallet_address = ?, wallet_type = ?, bind_time = ? WHERE id = ?";
+    // PATCH statements by bitmask of UserField ordinals, built on first use;
+    // the read-back variants wrap the UPDATE and a SELECT in one transaction
+    private static final String[] PATCH_SQL = new String[1 << UserField.values().length];
+    private static final String[] PATCH_READ_BACK_SQL = new String[PATCH_SQL.length];
+    private static final String DELETE_SQL = "DELETE FROM users WHERE id = ?";
+    private static final String ADD_SCORE_SQL = "UPDATE users SET score = COALESCE(score, 0) + ? WHERE id = ?";
+    private static final String ADD_SCORE_READ_BACK_SQL = withReadBack(ADD_SCORE_SQL);
+    private static final String LIST_FROM = " FROM users ORDER BY id LIMIT ? OFFSET ?";
+    private static final String LIST_AFTER_FROM = " FROM users WHERE id > ? ORDER BY id LIMIT ?";
+    private static final String LIST_BEFORE_FROM = " FROM users WHERE id < ? ORDER BY id DESC LIMIT ?";
+    private static final String STREAM_SQL = "SELECT " + USER_COLUMNS + " FROM users WHERE id > ? ORDER BY id";
+    private static final String STREAM_LIMIT_SQL = STREAM_SQL + " LIMIT ?";
+    private static final String COUNT_SQL = "SELECT COUNT(*) FROM users";
+    // A page and the total as one multi-statement, so MySQL returns both
+    // result sets in a single round trip (allowMultiQueries, see Db)
+    private static final String WITH_TOTAL = "; " + COUNT_SQL;
+    private static final String ESTIMATE_COUNT_SQL =
+            "SELECT TABLE_ROWS FROM information_schema.TABLES " +
+            "WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'users'";
+    // Both walk idx_users_score (score DESC, id); users without a score are unranked
+    private static final String TOP_BY_SCORE_SQL =
+            "SELECT id, username, score FROM users WHERE score IS NOT NULL ORDER BY score DESC, id LIMIT ?";
+    private static final String RANK_SQL =
+            "SELECT u.username, u.score, " +
+            "(SELECT COUNT(*) FROM users r WHERE r.score > u.score) + " +
+            "(SELECT COUNT(*) FROM users r WHERE r.score = u.score AND r.id < u.id) + 1 AS user_rank " +
+            "FROM users u WHERE u.id = ?";
+
+    // IN-list lookups are padded to a power of two of placeholders, so at most
+    // log2(MAX_IN_LIST_SIZE) + 1 distinct statements are cached
+    static final int MAX_IN_LIST_SIZE = 128;
+    private static final String[] SELECT_BY_IDS_SQL = new String[Integer.numberOfTrailingZeros(MAX_IN_LIST_SIZE) + 1];
+    // Locks existing rows in primary key order, so concurrent batches cannot deadlock
+    private static final String[] LOCK_BY_IDS_SQL = new String[SELECT_BY_IDS_SQL.length];
+
+    static {
+        for (int i = 0; i < SELECT_BY_IDS_SQL.length; i++) {
+            StringBuilder placeholders = new StringBuilder();
+            for (int p = 0; p < 1 << i; p++) {
+                placeholders.append(p == 0 ? "?" : ", ?");
+            }
+            SELECT_BY_IDS_SQL[i] = "SELECT " + USER_COLUMNS + " FROM users WHERE id IN (" + placeholders + ")";
+            LOCK_BY_IDS_SQL[i] = "SELECT id FROM users WHERE id IN (" + placeholders + ") ORDER BY id FOR UPDATE";
+        }
+    }
+    
+    private final LruCache<Integer, User> cache;
+    // Lookup key ("email:a@b.c") to user ID; the user itself comes from cache
+    private final LruCache<String, Integer> keyCache;
+    
+    public UserDao() {
+        this(new LruCache<>(Env.getInt(CACHE_MAX_SIZE_ENV, DEFAULT_CACHE_MAX_SIZE),
+                            Env.getLong(CACHE_TTL_MS_ENV, DEFAULT_CACHE_TTL_MS)),
+             new LruCache<>(Env.getInt(CACHE_MAX_SIZE_ENV, DEFAULT_CACHE_MAX_SIZE),
+                            Env.getLong(CACHE_TTL_MS_ENV, DEFAULT_CACHE_TTL_MS)));
+    }
+    
+    public UserDao(LruCache<Integer, User> cache, LruCache<String, Integer> keyCache) {
+        this.cache = cache;
+        this.keyCache = keyCache;
+    }
+    
+    /**
+     * Get user cache counters (hit ratio, evictions)
+     * @return Cache stats snapshot
+     */
+    public CacheStats getCacheStats() {
+        return cache.getStats();
+    }
+    
+    /**
+     * Drop all cached users
+     */
+    public void clearCache() {
+        cache.clear();
+        keyCache.clear();
+    }
+    
     /**
      * Create a new user
      * @param user User object to create
@@ -25,11 +148,8 @@ public class UserDao {
         long startTime = System.currentTimeMillis();
         logger.info("Creating user with email: {}", user.getEmail());
         
-        String sql = "INSERT INTO users (username, email, password, score, wallet_address, wallet_type, bind_time) " +
-                     "VALUES (?, ?, ?, ?, ?, ?, ?)";
-        
         try (Connection conn = Db.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+             PreparedStatement stmt = conn.prepareStatement(INSERT_SQL, Statement.RETURN_GENERATED_KEYS)) {
             
             stmt.setString(1, user.getUsername());
             stmt.setString(2, user.getEmail());
@@ -39,7 +159,7 @@ public class UserDao {
             stmt.setString(6, user.getWalletType());
             stmt.setObject(7, user.getBindTime());
             
-            int affectedRows = stmt.executeUpdate();
+            int affectedRows = executeUpdate(stmt);
             if (affectedRows == 0) {
                 throw new SQLException("Creating user failed, no rows affected.");
             }
@@ -47,6 +167,7 @@ public class UserDao {
             try (ResultSet generatedKeys = stmt.getGeneratedKeys()) {
                 if (generatedKeys.next()) {
                     user.setId(generatedKeys.getInt(1));
+                    cache.put(user.getId(), new User(user));
                     logger.info("User created successfully with ID: {}, took {}ms", user.getId(), System.currentTimeMillis() - startTime);
                     return user;
                 } else {
@@ -56,6 +177,172 @@ public class UserDao {
         }
     }
     
+    /**
+     * Create many users with one batched insert in a single transaction.
+     * With rewriteBatchedStatements enabled the driver sends multi-row
+     * INSERTs instead of one statement per row.
+     * @param users Users to create
+     * @return Created users with generated IDs, in input order
+     * @throws SQLException if database operation fails; nothing is inserted
+     */
+    public List<User> createAll(List<User> users) throws SQLException {
+        if (users.isEmpty()) {
+            return users;
+        }
+        long startTime = System.currentTimeMillis();
+        logger.info("Creating {} users in batch", users.size());
+
+        try (Connection conn = Db.getConnection()) {
+            conn.setAutoCommit(false);
+            try {
+                insertAll(conn, users);
+                conn.commit();
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            }
+        }
+
+        for (User user : users) {
+            cache.put(user.getId(), new User(user));
+        }
+        logger.info("Created {} users in batch, took {}ms", users.size(), System.currentTimeMillis() - startTime);
+        return users;
+    }
+
+    /**
+     * Batch-insert users on the given connection and set their generated IDs
+     */
+    private static void insertAll(Connection conn, List<User> users) throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement(INSERT_SQL, Statement.RETURN_GENERATED_KEYS)) {
+            for (User user : users) {
+                stmt.setString(1, user.getUsername());
+                stmt.setString(2, user.getEmail());
+                stmt.setString(3, user.getPassword());
+                stmt.setObject(4, user.getScore());
+                stmt.setString(5, user.getWalletAddress());
+                stmt.setString(6, user.getWalletType());
+                stmt.setObject(7, user.getBindTime());
+                stmt.addBatch();
+            }
+
+            executeBatch(stmt);
+
+            try (ResultSet generatedKeys = stmt.getGeneratedKeys()) {
+                for (User user : users) {
+                    if (!generatedKeys.next()) {
+                        throw new SQLException("Creating users failed, fewer IDs obtained than rows inserted.");
+                    }
+                    user.setId(generatedKeys.getInt(1));
+                }
+            }
+        }
+    }
+
+    /**
+     * Apply creates, full updates and score increments in one transaction,
+     * one JDBC batch per kind. Rows to update are locked up front in ID order,
+     * which also finds the IDs that do not exist; those are skipped. Updates
+     * run before increments, so an increment for a user also being updated
+     * adds to the new score.
+     * @param creates Users to insert; their IDs are set on success
+     * @param updates Replacement values by user ID, as for update()
+     * @param deltas Points to add by user ID
+     * @return Created users and the IDs that were not found
+     * @throws SQLException if database operation fails; nothing is applied
+     */
+    public MutationResult applyMutations(List<User> creates, Map<Integer, User> updates,
+                                         Map<Integer, Integer> deltas) throws SQLException {
+        long startTime = System.currentTimeMillis();
+        logger.info("Applying {} creates, {} updates and {} score changes in one transaction",
+                    creates.size(), updates.size(), deltas.size());
+
+        Set<Integer> touched = new TreeSet<>(updates.keySet());
+        touched.addAll(deltas.keySet());
+        List<Integer> ids = new ArrayList<>(touched);
+        Set<Integer> missing = new TreeSet<>(touched);
+
+        try (Connection conn = Db.getConnection()) {
+            conn.setAutoCommit(false);
+            try {
+                if (!creates.isEmpty()) {
+                    insertAll(conn, creates);
+                }
+
+                for (int start = 0; start < ids.size(); start += MAX_IN_LIST_SIZE) {
+                    List<Integer> chunk = ids.subList(start, Math.min(ids.size(), start + MAX_IN_LIST_SIZE));
+                    int sizeIndex = 32 - Integer.numberOfLeadingZeros(chunk.size() - 1);
+                    try (PreparedStatement stmt = conn.prepareStatement(LOCK_BY_IDS_SQL[sizeIndex])) {
+                        for (int i = 0; i < 1 << sizeIndex; i++) {
+                            stmt.setInt(i + 1, chunk.get(Math.min(i, chunk.size() - 1)));
+                        }
+                        try (ResultSet rs = executeQuery(stmt)) {
+                            while (rs.next()) {
+                                missing.remove(rs.getInt(1));
+                            }
+                        }
+                    }
+                }
+
+                boolean anyUpdates = false;
+                try (PreparedStatement stmt = conn.prepareStatement(UPDATE_SQL)) {
+                    for (Integer id : ids) {
+                        User user = updates.get(id);
+                        if (user == null || missing.contains(id)) {
+                            continue;
+                        }
+                        stmt.setString(1, user.getUsername());
+                        stmt.setString(2, user.getEmail());
+                        stmt.setString(3, user.getPassword());
+                        stmt.setObject(4, user.getScore());
+                        stmt.setString(5, user.getWalletAddress());
+                        stmt.setString(6, user.getWalletType());
+                        stmt.setObject(7, user.getBindTime());
+                        stmt.setInt(8, id);
+                        stmt.addBatch();
+                        anyUpdates = true;
+                    }
+                    if (anyUpdates) {
+                        executeBatch(stmt);
+                    }
+                }
+
+                boolean anyDeltas = false;
+                try (PreparedStatement stmt = conn.prepareStatement(ADD_SCORE_SQL)) {
+                    for (Integer id : ids) {
+                        Integer delta = deltas.get(id);
+                        if (delta == null || missing.contains(id)) {
+                            continue;
+                        }
+                        stmt.setInt(1, delta);
+                        stmt.setInt(2, id);
+                        stmt.addBatch();
+                        anyDeltas = true;
+                    }
+                    if (anyDeltas) {
+                        executeBatch(stmt);
+                    }
+                }
+
+                conn.commit();
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                for (Integer id : ids) {
+                    cache.invalidate(id);
+                }
+            }
+        }
+
+        for (User user : creates) {
+            cache.put(user.getId(), new User(user));
+        }
+        logger.info("Applied {} creates and {} of {} updated users in one transaction, took {}ms",
+                    creates.size(), ids.size() - missing.size(), ids.size(), System.currentTimeMillis() - startTime);
+        return new MutationResult(creates, missing);
+    }
+
     /**
      * Get user by ID
      * @param id User ID
@@ -63,30 +350,209 @@ public class UserDao {
      * @throws SQLException if database operation fails
      */
     public User getById(int id) throws SQLException {
+        return getById(id, Projection.ALL);
+    }
+    
+    /**
+     * Get user by ID, reading only the projected columns on a cache miss
+     * @param id User ID
+     * @param projection Columns to read; a cache hit returns the full user
+     * @return User object or null if not found
+     * @throws SQLException if database operation fails
+     */
+    public User getById(int id, Projection projection) throws SQLException {
         long startTime = System.currentTimeMillis();
         logger.info("Getting user by ID: {}", id);
         
-        String sql = "SELECT id, username, email, password, score, wallet_address, wallet_type, " +
-                     "bind_time FROM users WHERE id = ?";
+        User cached = cache.get(id);
+        if (cached != null) {
+            logger.info("User found in cache with ID: {}", id);
+            return new User(cached);
+        }
         
-        try (Connection conn = Db.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
+        return Db.read(() -> {
+            try (Connection conn = Db.getReadConnection();
+                 PreparedStatement stmt = conn.prepareStatement(projection.select(SELECT_BY_ID_FROM))) {
             
-            stmt.setInt(1, id);
+                boolean fromPrimary = Db.isOnPrimary();
+                stmt.setInt(1, id);
             
-            try (ResultSet rs = stmt.executeQuery()) {
-                if (rs.next()) {
-                    User user = mapResultSetToUser(rs);
-                    logger.info("User found with ID: {}, took {}ms", id, System.currentTimeMillis() - startTime);
-                    return user;
-                } else {
-                    logger.info("User not found with ID: {}, took {}ms", id, System.currentTimeMillis() - startTime);
+                try (ResultSet rs = executeQuery(stmt)) {
+                    if (rs.next()) {
+                        User user = mapResultSetToUser(rs, projection);
+                        // Only complete rows from the primary are cached
+                        if (projection.isAll() && fromPrimary) {
+                            cache.put(id, new User(user));
+                        }
+                        logger.info("User found with ID: {}, took {}ms", id, System.currentTimeMillis() - startTime);
+                        return user;
+                    } else {
+                        logger.info("User not found with ID: {}, took {}ms", id, System.currentTimeMillis() - startTime);
+                        return null;
+                    }
+                }
+            }
+        });
+    }
+    
+    /**
+     * Get user by email
+     * @param email Email address
+     * @return User object or null if not found
+     * @throws SQLException if database operation fails
+     */
+    public User getByEmail(String email) throws SQLException {
+        return getByKey(UserField.EMAIL, email);
+    }
+
+    /**
+     * Get user by username
+     * @param username Username
+     * @return User object or null if not found
+     * @throws SQLException if database operation fails
+     */
+    public User getByUsername(String username) throws SQLException {
+        return getByKey(UserField.USERNAME, username);
+    }
+
+    /**
+     * Get user by bound wallet address
+     * @param walletAddress Wallet address
+     * @return User object or null if not found
+     * @throws SQLException if database operation fails
+     */
+    public User getByWalletAddress(String walletAddress) throws SQLException {
+        return getByKey(UserField.WALLET_ADDRESS, walletAddress);
+    }
+
+    /**
+     * Get user by a unique lookup field.
+     *
+     * The key cache maps the value to a user ID and the user comes from the ID
+     * cache, so a local update or delete is seen immediately: if the cached
+     * user is gone or no longer has this value, the row is read again.
+     * Values are compared case-insensitively, as the column collation does.
+     * @param field EMAIL, USERNAME or WALLET_ADDRESS
+     * @param value Value to match
+     * @return User object or null if not found
+     * @throws SQLException if database operation fails
+     * @throws IllegalArgumentException if the field is not a lookup field
+     */
+    public User getByKey(UserField field, String value) throws SQLException {
+        String sql;
+        switch (field) {
+            case EMAIL:
+                sql = SELECT_BY_EMAIL_SQL;
+                break;
+            case USERNAME:
+                sql = SELECT_BY_USERNAME_SQL;
+                break;
+            case WALLET_ADDRESS:
+                sql = SELECT_BY_WALLET_SQL;
+                break;
+            default:
+                throw new IllegalArgumentException("Not a lookup field: " + field.getFieldName());
+        }
+
+        long startTime = System.currentTimeMillis();
+        logger.info("Getting user by {}", field.getFieldName());
+
+        String key = field.getFieldName() + ":" + value.toLowerCase(Locale.ROOT);
+        Integer cachedId = keyCache.get(key);
+        if (cachedId != null) {
+            User cached = cache.get(cachedId);
+            if (cached != null && value.equalsIgnoreCase((String) field.get(cached))) {
+                logger.info("User found in cache by {} with ID: {}", field.getFieldName(), cachedId);
+                return new User(cached);
+            }
+            keyCache.invalidate(key);
+        }
+
+        return Db.read(() -> {
+            try (Connection conn = Db.getReadConnection();
+                 PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+                boolean fromPrimary = Db.isOnPrimary();
+                stmt.setString(1, value);
+
+                try (ResultSet rs = executeQuery(stmt)) {
+                    if (rs.next()) {
+                        User user = mapResultSetToUser(rs);
+                        if (fromPrimary) {
+                            cache.put(user.getId(), new User(user));
+                            keyCache.put(key, user.getId());
+                        }
+                        logger.info("User found by {} with ID: {}, took {}ms",
+                                    field.getFieldName(), user.getId(), System.currentTimeMillis() - startTime);
+                        return user;
+                    }
+                    logger.info("User not found by {}, took {}ms", field.getFieldName(), System.currentTimeMillis() - startTime);
                     return null;
                 }
             }
+        });
+    }
+
+    /**
+     * Get many users by ID with a single IN-list query; cached users are not
+     * re-read
+     * @param ids Distinct user IDs
+     * @return Map of found users by ID; missing IDs are absent
+     * @throws SQLException if database operation fails
+     */
+    public Map<Integer, User> getByIds(List<Integer> ids) throws SQLException {
+        long startTime = System.currentTimeMillis();
+        logger.info("Getting {} users by ID", ids.size());
+
+        Map<Integer, User> found = new HashMap<>();
+        List<Integer> misses = new ArrayList<>();
+        for (Integer id : ids) {
+            User cached = cache.get(id);
+            if (cached != null) {
+                found.put(id, new User(cached));
+            } else {
+                misses.add(id);
+            }
+        }
+        if (misses.isEmpty()) {
+            logger.info("All {} users found in cache", ids.size());
+            return found;
         }
+
+        found.putAll(Db.read(() -> {
+            Map<Integer, User> loaded = new HashMap<>();
+            try (Connection conn = Db.getReadConnection()) {
+                boolean fromPrimary = Db.isOnPrimary();
+                for (int start = 0; start < misses.size(); start += MAX_IN_LIST_SIZE) {
+                    List<Integer> chunk = misses.subList(start, Math.min(misses.size(), start + MAX_IN_LIST_SIZE));
+                    int sizeIndex = 32 - Integer.numberOfLeadingZeros(chunk.size() - 1);
+
+                    try (PreparedStatement stmt = conn.prepareStatement(SELECT_BY_IDS_SQL[sizeIndex])) {
+                        // Pad unused placeholders with the last ID; duplicates in IN match once
+                        for (int i = 0; i < 1 << sizeIndex; i++) {
+                            stmt.setInt(i + 1, chunk.get(Math.min(i, chunk.size() - 1)));
+                        }
+
+                        try (ResultSet rs = executeQuery(stmt)) {
+                            while (rs.next()) {
+                                User user = mapResultSetToUser(rs);
+                                if (fromPrimary) {
+                                    cache.put(user.getId(), new User(user));
+                                }
+                                loaded.put(user.getId(), user);
+                            }
+                        }
+                    }
+                }
+            }
+            return loaded;
+        }));
+
+        logger.info("Found {} of {} users ({} from cache), took {}ms",
+                    found.size(), ids.size(), ids.size() - misses.size(), System.currentTimeMillis() - startTime);
+        return found;
     }
-    
+
     /**
      * Update user by ID
      * @param id User ID
@@ -98,11 +564,8 @@ public class UserDao {
         long startTime = System.currentTimeMillis();
         logger.info("Updating user with ID: {}", id);
         
-        String sql = "UPDATE users SET username = ?, email = ?, password = ?, score = ?, " +
-                     "wallet_address = ?, wallet_type = ?, bind_time = ? WHERE id = ?";
-        
         try (Connection conn = Db.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
+             PreparedStatement stmt = conn.prepareStatement(UPDATE_SQL)) {
             
             stmt.setString(1, user.getUsername());
             stmt.setString(2, user.getEmail());
@@ -113,13 +576,299 @@ public class UserDao {
             stmt.setObject(7, user.getBindTime());
             stmt.setInt(8, id);
             
-            int affectedRows = stmt.executeUpdate();
+            int affectedRows = executeUpdate(stmt);
             boolean updated = affectedRows > 0;
+            if (updated) {
+                User cached = new User(user);
+                cached.setId(id);
+                cache.put(id, cached);
+            } else {
+                cache.invalidate(id);
+            }
             logger.info("User update result: {}, took {}ms", updated ? "success" : "not found", System.currentTimeMillis() - startTime);
             return updated;
         }
     }
     
+    /**
+     * Update only the given fields of a user and read the row back in the same
+     * transaction, so the result is exactly what this write left, never a
+     * cached copy another container may have made stale. Where the connection
+     * allows multi-statements (MySQL) the transaction, UPDATE and read-back
+     * are a single round trip.
+     * @param id User ID
+     * @param changes New values; only the given fields are read from it
+     * @param fields Fields to write, not including ID
+     * @return Updated user, or null if not found
+     * @throws SQLException if database operation fails; nothing is written
+     */
+    public User patch(int id, User changes, Set<UserField> fields) throws SQLException {
+        if (fields.isEmpty() || fields.contains(UserField.ID)) {
+            throw new IllegalArgumentException("Patch fields must be non-empty and exclude id");
+        }
+        long startTime = System.currentTimeMillis();
+        logger.info("Patching user with ID: {} ({} fields)", id, fields.size());
+
+        Object[] params = new Object[fields.size()];
+        int index = 0;
+        for (UserField field : UserField.values()) {
+            if (fields.contains(field)) {
+                params[index++] = field.get(changes);
+            }
+        }
+
+        User updated;
+        boolean combined;
+        try (Connection conn = Db.getConnection()) {
+            combined = Db.allowsMultiStatements(conn);
+            updated = updateAndReadBack(conn, patchSql(fields, combined), combined, id, params);
+        }
+
+        if (updated == null) {
+            cache.invalidate(id);
+            logger.info("User patch result: not found, took {}ms", System.currentTimeMillis() - startTime);
+            return null;
+        }
+        cache.put(id, new User(updated));
+        logger.info("User patch result: success ({}), took {}ms",
+                    combined ? "one round trip" : "transaction", System.currentTimeMillis() - startTime);
+        return updated;
+    }
+
+    /**
+     * Run an UPDATE of one row and read the row back in the same transaction,
+     * so the result is exactly what this write left
+     * @param sql UPDATE ending in WHERE id = ?, or with oneTrip the same
+     *            wrapped by withReadBack
+     * @param oneTrip Whether sql is a multi-statement from withReadBack
+     * @param id Row ID, bound after params
+     * @param params Values of the UPDATE's other parameters, in order
+     * @return Row after the update, or null if no row has the ID
+     * @throws SQLException if database operation fails; nothing is written
+     */
+    private User updateAndReadBack(Connection conn, String sql, boolean oneTrip, int id, Object... params)
+            throws SQLException {
+        return oneTrip ? updateAndReadBackInOneTrip(conn, sql, id, params) : updateAndReadBackInTransaction(conn, sql, id, params);
+    }
+
+    /**
+     * Wrap an UPDATE by ID so that, with its read-back, it is one transaction
+     * sent as one multi-statement; the row ID is bound twice
+     */
+    private static String withReadBack(String updateSql) {
+        return "START TRANSACTION; " + updateSql + "; " + Projection.ALL.select(SELECT_BY_ID_FROM) + "; COMMIT";
+    }
+
+    /**
+     * The server stops at a failing statement with the transaction still
+     * open, so it is rolled back explicitly
+     */
+    private User updateAndReadBackInOneTrip(Connection conn, String sql, int id, Object... params)
+            throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            int index = bind(stmt, params);
+            stmt.setInt(index, id);
+            stmt.setInt(index + 1, id);
+
+            boolean isResultSet = execute(stmt);
+            int updateCounts = 0;
+            int affectedRows = 0;
+            User updated = null;
+            while (true) {
+                if (isResultSet) {
+                    try (ResultSet rs = stmt.getResultSet()) {
+                        if (rs.next()) {
+                            updated = mapResultSetToUser(rs);
+                        }
+                    }
+                } else {
+                    int count = stmt.getUpdateCount();
+                    if (count == -1) {
+                        break;
+                    }
+                    // START TRANSACTION, then the UPDATE, then COMMIT
+                    if (updateCounts++ == 1) {
+                        affectedRows = count;
+                    }
+                }
+                isResultSet = stmt.getMoreResults();
+            }
+            return affectedRows > 0 ? updated : null;
+        } catch (SQLException e) {
+            try (Statement rollback = conn.createStatement()) {
+                rollback.execute("ROLLBACK");
+            } catch (SQLException rollbackFailure) {
+                e.addSuppressed(rollbackFailure);
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * UPDATE then SELECT in a JDBC transaction; the UPDATE's row lock is held
+     * until commit, so the read sees exactly this write
+     */
+    private User updateAndReadBackInTransaction(Connection conn, String sql, int id, Object... params)
+            throws SQLException {
+        conn.setAutoCommit(false);
+        try {
+            try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+                stmt.setInt(bind(stmt, params), id);
+                if (executeUpdate(stmt) == 0) {
+                    conn.rollback();
+                    return null;
+                }
+            }
+            User updated = null;
+            try (PreparedStatement stmt = conn.prepareStatement(Projection.ALL.select(SELECT_BY_ID_FROM))) {
+                stmt.setInt(1, id);
+                try (ResultSet rs = executeQuery(stmt)) {
+                    if (rs.next()) {
+                        updated = mapResultSetToUser(rs);
+                    }
+                }
+            }
+            conn.commit();
+            return updated;
+        } catch (SQLException e) {
+            conn.rollback();
+            throw e;
+        }
+    }
+
+    /**
+     * @return Index of the first parameter after params
+     */
+    private static int bind(PreparedStatement stmt, Object... params) throws SQLException {
+        for (int i = 0; i < params.length; i++) {
+            stmt.setObject(i + 1, params[i]);
+        }
+        return params.length + 1;
+    }
+
+    private static String patchSql(Set<UserField> fields, boolean withReadBack) {
+        int mask = 0;
+        for (UserField field : fields) {
+            mask |= 1 << field.ordinal();
+        }
+        String[] statements = withReadBack ? PATCH_READ_BACK_SQL : PATCH_SQL;
+        String sql = statements[mask];
+        if (sql == null) {
+            StringBuilder columns = new StringBuilder();
+            for (UserField field : UserField.values()) {
+                if (fields.contains(field)) {
+                    columns.append(columns.length() == 0 ? "" : ", ").append(field.getFieldName()).append(" = ?");
+                }
+            }
+            sql = "UPDATE users SET " + columns + " WHERE id = ?";
+            if (withReadBack) {
+                sql = withReadBack(sql);
+            }
+            // Racing builders produce equal strings, so a plain write is safe
+            statements[mask] = sql;
+        }
+        return sql;
+    }
+
+    /**
+     * Atomically add to a user's score. The read-modify-write happens inside
+     * one UPDATE, so concurrent increments never overwrite each other, and the
+     * row is read back while the UPDATE's lock is held, so the result is this
+     * increment's. On MySQL both go as one multi-statement round trip.
+     * @param id User ID
+     * @param delta Points to add, may be negative
+     * @return New score, or null if not found
+     * @throws SQLException if database operation fails, including score overflow
+     */
+    public Integer incrementScore(int id, int delta) throws SQLException {
+        long startTime = System.currentTimeMillis();
+        logger.info("Incrementing score of user {} by {}", id, delta);
+
+        User updated;
+        try (Connection conn = Db.getConnection()) {
+            boolean combined = Db.allowsMultiStatements(conn);
+            updated = updateAndReadBack(conn, combined ? ADD_SCORE_READ_BACK_SQL : ADD_SCORE_SQL, combined, id, delta);
+        }
+
+        if (updated != null) {
+            cache.put(id, updated);
+        } else {
+            cache.invalidate(id);
+        }
+        logger.info("Score increment result: {}, took {}ms",
+                    updated != null ? "success" : "not found", System.currentTimeMillis() - startTime);
+        return updated != null ? updated.getScore() : null;
+    }
+
+    /**
+     * Add to many users' scores in one transaction. Deltas for the same ID are
+     * summed, and rows are updated in ID order so concurrent batches lock them
+     * in the same order and cannot deadlock.
+     * @param deltas Points to add by user ID
+     * @return New scores by ID; IDs that do not exist are absent
+     * @throws SQLException if database operation fails; nothing is applied
+     */
+    public Map<Integer, Integer> incrementScores(Map<Integer, Integer> deltas) throws SQLException {
+        if (deltas.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        long startTime = System.currentTimeMillis();
+        logger.info("Incrementing scores of {} users in batch", deltas.size());
+
+        List<Integer> ids = new ArrayList<>(deltas.keySet());
+        Collections.sort(ids);
+        Map<Integer, Integer> scores = new HashMap<>();
+        List<User> rows = new ArrayList<>(ids.size());
+
+        try (Connection conn = Db.getConnection()) {
+            conn.setAutoCommit(false);
+            try {
+                try (PreparedStatement stmt = conn.prepareStatement(ADD_SCORE_SQL)) {
+                    for (Integer id : ids) {
+                        stmt.setInt(1, deltas.get(id));
+                        stmt.setInt(2, id);
+                        stmt.addBatch();
+                    }
+                    executeBatch(stmt);
+                }
+
+                // The rows are locked until commit, so these are exactly the values written
+                for (int start = 0; start < ids.size(); start += MAX_IN_LIST_SIZE) {
+                    List<Integer> chunk = ids.subList(start, Math.min(ids.size(), start + MAX_IN_LIST_SIZE));
+                    int sizeIndex = 32 - Integer.numberOfLeadingZeros(chunk.size() - 1);
+                    try (PreparedStatement stmt = conn.prepareStatement(SELECT_BY_IDS_SQL[sizeIndex])) {
+                        for (int i = 0; i < 1 << sizeIndex; i++) {
+                            stmt.setInt(i + 1, chunk.get(Math.min(i, chunk.size() - 1)));
+                        }
+                        try (ResultSet rs = executeQuery(stmt)) {
+                            while (rs.next()) {
+                                User user = mapResultSetToUser(rs);
+                                scores.put(user.getId(), user.getScore());
+                                rows.add(user);
+                            }
+                        }
+                    }
+                }
+
+                conn.commit();
+            } catch (SQLException e) {
+                conn.rollback();
+                for (Integer id : ids) {
+                    cache.invalidate(id);
+                }
+                throw e;
+            }
+        }
+
+        // Only committed values are cached
+        for (User user : rows) {
+            cache.put(user.getId(), user);
+        }
+        logger.info("Incremented {} of {} scores in batch, took {}ms",
+                    scores.size(), deltas.size(), System.currentTimeMillis() - startTime);
+        return scores;
+    }
+
     /**
      * Delete user by ID
      * @param id User ID
@@ -130,15 +879,14 @@ public class UserDao {
         long startTime = System.currentTimeMillis();
         logger.info("Deleting user with ID: {}", id);
         
-        String sql = "DELETE FROM users WHERE id = ?";
-        
         try (Connection conn = Db.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
+             PreparedStatement stmt = conn.prepareStatement(DELETE_SQL)) {
             
             stmt.setInt(1, id);
             
-            int affectedRows = stmt.executeUpdate();
+            int affectedRows = executeUpdate(stmt);
             boolean deleted = affectedRows > 0;
+            cache.invalidate(id);
             logger.info("User deletion result: {}, took {}ms", deleted ? "success" : "not found", System.currentTimeMillis() - startTime);
             return deleted;
         }
@@ -152,71 +900,472 @@ public class UserDao {
      * @throws SQLException if database operation fails
      */
     public List<User> list(int limit, int offset) throws SQLException {
+        return list(limit, offset, Projection.ALL);
+    }
+    
+    /**
+     * List users with pagination, reading only the projected columns
+     * @param limit Maximum number of records to return
+     * @param offset Number of records to skip
+     * @param projection Columns to read
+     * @return List of users
+     * @throws SQLException if database operation fails
+     */
+    public List<User> list(int limit, int offset, Projection projection) throws SQLException {
         long startTime = System.currentTimeMillis();
         logger.info("Listing users with limit: {}, offset: {}", limit, offset);
         
-        String sql = "SELECT id, username, email, password, score, wallet_address, wallet_type, " +
-                     "bind_time FROM users ORDER BY id LIMIT ? OFFSET ?";
-        
-        try (Connection conn = Db.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
+        return Db.read(() -> {
+            try (Connection conn = Db.getReadConnection();
+                 PreparedStatement stmt = conn.prepareStatement(projection.select(LIST_FROM))) {
             
-            stmt.setInt(1, limit);
-            stmt.setInt(2, offset);
+                stmt.setInt(1, limit);
+                stmt.setInt(2, offset);
             
-            try (ResultSet rs = stmt.executeQuery()) {
+                try (ResultSet rs = executeQuery(stmt)) {
+                    List<User> users = new ArrayList<>();
+                    while (rs.next()) {
+                        users.add(mapResultSetToUser(rs, projection));
+                    }
+                    logger.info("Found {} users, took {}ms", users.size(), System.currentTimeMillis() - startTime);
+                    return users;
+                }
+            }
+        });
+    }
+    
+    /**
+     * List users with id greater than the given id (keyset pagination)
+     * @param afterId Exclusive lower bound on id; 0 for the first page
+     * @param limit Maximum number of records to return
+     * @return Users in ascending id order
+     * @throws SQLException if database operation fails
+     */
+    public List<User> listAfter(int afterId, int limit) throws SQLException {
+        return listAfter(afterId, limit, Projection.ALL);
+    }
+
+    /**
+     * List users with id greater than afterId, reading only the projected columns
+     * @param afterId Exclusive lower bound on id; 0 for the first page
+     * @param limit Maximum number of records to return
+     * @param projection Columns to read
+     * @return Users in ascending id order
+     * @throws SQLException if database operation fails
+     */
+    public List<User> listAfter(int afterId, int limit, Projection projection) throws SQLException {
+        long startTime = System.currentTimeMillis();
+        logger.info("Listing users after ID: {}, limit: {}", afterId, limit);
+
+        return Db.read(() -> {
+            try (Connection conn = Db.getReadConnection();
+                 PreparedStatement stmt = conn.prepareStatement(projection.select(LIST_AFTER_FROM))) {
+
+                stmt.setInt(1, afterId);
+                stmt.setInt(2, limit);
+
+                try (ResultSet rs = executeQuery(stmt)) {
+                    List<User> users = new ArrayList<>();
+                    while (rs.next()) {
+                        users.add(mapResultSetToUser(rs, projection));
+                    }
+                    logger.info("Found {} users, took {}ms", users.size(), System.currentTimeMillis() - startTime);
+                    return users;
+                }
+            }
+        });
+    }
+
+    /**
+     * List users with id less than the given id (keyset pagination, backwards)
+     * @param beforeId Exclusive upper bound on id
+     * @param limit Maximum number of records to return
+     * @return Users in ascending id order, i.e. the page immediately before beforeId
+     * @throws SQLException if database operation fails
+     */
+    public List<User> listBefore(int beforeId, int limit) throws SQLException {
+        return listBefore(beforeId, limit, Projection.ALL);
+    }
+
+    /**
+     * List users with id less than beforeId, reading only the projected columns
+     * @param beforeId Exclusive upper bound on id
+     * @param limit Maximum number of records to return
+     * @param projection Columns to read
+     * @return Users in ascending id order
+     * @throws SQLException if database operation fails
+     */
+    public List<User> listBefore(int beforeId, int limit, Projection projection) throws SQLException {
+        long startTime = System.currentTimeMillis();
+        logger.info("Listing users before ID: {}, limit: {}", beforeId, limit);
+
+        return Db.read(() -> {
+            try (Connection conn = Db.getReadConnection();
+                 PreparedStatement stmt = conn.prepareStatement(projection.select(LIST_BEFORE_FROM))) {
+
+                stmt.setInt(1, beforeId);
+                stmt.setInt(2, limit);
+
+                try (ResultSet rs = executeQuery(stmt)) {
+                    List<User> users = new ArrayList<>();
+                    while (rs.next()) {
+                        users.add(mapResultSetToUser(rs, projection));
+                    }
+                    Collections.reverse(users);
+                    logger.info("Found {} users, took {}ms", users.size(), System.currentTimeMillis() - startTime);
+                    return users;
+                }
+            }
+        });
+    }
+
+    /**
+     * List a page of users by offset together with the total row count
+     * @param limit Maximum number of records to return
+     * @param offset Number of records to skip
+     * @param projection Columns to read
+     * @return Page of users and total count
+     * @throws SQLException if database operation fails
+     */
+    public UserPage listWithTotal(int limit, int offset, Projection projection) throws SQLException {
+        logger.info("Listing users with total, limit: {}, offset: {}", limit, offset);
+        return pageWithTotal(LIST_FROM, limit, offset, projection, false);
+    }
+
+    /**
+     * List users with id greater than afterId together with the total row count
+     * @param afterId Exclusive lower bound on id; 0 for the first page
+     * @param limit Maximum number of records to return
+     * @param projection Columns to read
+     * @return Users in ascending id order and total count
+     * @throws SQLException if database operation fails
+     */
+    public UserPage listAfterWithTotal(int afterId, int limit, Projection projection) throws SQLException {
+        logger.info("Listing users with total after ID: {}, limit: {}", afterId, limit);
+        return pageWithTotal(LIST_AFTER_FROM, afterId, limit, projection, false);
+    }
+
+    /**
+     * List users with id less than beforeId together with the total row count
+     * @param beforeId Exclusive upper bound on id
+     * @param limit Maximum number of records to return
+     * @param projection Columns to read
+     * @return Users in ascending id order and total count
+     * @throws SQLException if database operation fails
+     */
+    public UserPage listBeforeWithTotal(int beforeId, int limit, Projection projection) throws SQLException {
+        logger.info("Listing users with total before ID: {}, limit: {}", beforeId, limit);
+        return pageWithTotal(LIST_BEFORE_FROM, beforeId, limit, projection, true);
+    }
+
+    /**
+     * Run a two-parameter page query and COUNT(*) on one connection: as one
+     * multi-statement round trip where the connection allows it, otherwise
+     * one statement after the other
+     */
+    private UserPage pageWithTotal(String pageFrom, int first, int second, Projection projection, boolean reverse)
+            throws SQLException {
+        long startTime = System.currentTimeMillis();
+
+        return Db.read(() -> {
+            try (Connection conn = Db.getReadConnection()) {
+                boolean combined = Db.allowsMultiStatements(conn);
+                String sql = projection.select(combined ? pageFrom + WITH_TOTAL : pageFrom);
                 List<User> users = new ArrayList<>();
+                int total;
+                try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+                    stmt.setInt(1, first);
+                    stmt.setInt(2, second);
+                    if (combined) {
+                        execute(stmt);
+                        try (ResultSet rs = stmt.getResultSet()) {
+                            while (rs.next()) {
+                                users.add(mapResultSetToUser(rs, projection));
+                            }
+                        }
+                        if (!stmt.getMoreResults()) {
+                            throw new SQLException("Count result missing from multi-statement list query");
+                        }
+                        try (ResultSet rs = stmt.getResultSet()) {
+                            total = rs.next() ? rs.getInt(1) : 0;
+                        }
+                    } else {
+                        try (ResultSet rs = executeQuery(stmt)) {
+                            while (rs.next()) {
+                                users.add(mapResultSetToUser(rs, projection));
+                            }
+                        }
+                        try (PreparedStatement count = conn.prepareStatement(COUNT_SQL);
+                             ResultSet rs = executeQuery(count)) {
+                            total = rs.next() ? rs.getInt(1) : 0;
+                        }
+                    }
+                }
+                if (reverse) {
+                    Collections.reverse(users);
+                }
+                logger.info("Found {} of {} users ({}), took {}ms", users.size(), total,
+                            combined ? "one round trip" : "two statements", System.currentTimeMillis() - startTime);
+                return new UserPage(users, total);
+            }
+        });
+    }
+
+    /**
+     * Callback for rows streamed by {@link #forEach}
+     */
+    @FunctionalInterface
+    public interface UserConsumer {
+        void accept(User user) throws IOException;
+    }
+
+    /**
+     * Stream users in id order without materialising them in memory. Uses a
+     * forward-only, read-only statement with a bounded fetch size so the driver
+     * pulls rows from a server-side cursor in chunks.
+     * @param afterId Exclusive lower bound on id; 0 to start from the beginning
+     * @param maxRows Maximum rows to stream; 0 for no limit
+     * @param fetchSize Rows fetched per round trip
+     * @param consumer Called once per user, in ascending id order
+     * @return Number of users streamed
+     * @throws SQLException if database operation fails
+     * @throws IOException if the consumer fails
+     */
+    public long forEach(int afterId, int maxRows, int fetchSize, UserConsumer consumer) throws SQLException, IOException {
+        long startTime = System.currentTimeMillis();
+        logger.info("Streaming users after ID: {}, max rows: {}, fetch size: {}", afterId, maxRows, fetchSize);
+
+        String sql = maxRows > 0 ? STREAM_LIMIT_SQL : STREAM_SQL;
+
+        try (Connection conn = Db.getReadConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+
+            stmt.setFetchSize(fetchSize);
+            stmt.setInt(1, afterId);
+            if (maxRows > 0) {
+                stmt.setInt(2, maxRows);
+            }
+
+            long count = 0;
+            try (ResultSet rs = executeQuery(stmt)) {
                 while (rs.next()) {
-                    users.add(mapResultSetToUser(rs));
+                    consumer.accept(mapResultSetToUser(rs));
+                    count++;
                 }
-                logger.info("Found {} users, took {}ms", users.size(), System.currentTimeMillis() - startTime);
-                return users;
             }
+            logger.info("Streamed {} users, took {}ms", count, System.currentTimeMillis() - startTime);
+            return count;
         }
     }
-    
+
     /**
      * Get total count of users
      * @return Total number of users
      * @throws SQLException if database operation fails
      */
     public int getCount() throws SQLException {
-        String sql = "SELECT COUNT(*) FROM users";
-        
-        try (Connection conn = Db.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql);
-             ResultSet rs = stmt.executeQuery()) {
+        return Db.read(() -> {
+            try (Connection conn = Db.getReadConnection();
+                 PreparedStatement stmt = conn.prepareStatement(COUNT_SQL);
+                 ResultSet rs = executeQuery(stmt)) {
             
-            if (rs.next()) {
-                return rs.getInt(1);
+                if (rs.next()) {
+                    return rs.getInt(1);
+                }
+                return 0;
+            }
+        });
+    }
+
+    /**
+     * Get estimated count of users from InnoDB table statistics
+     * @return Approximate number of users
+     * @throws SQLException if database operation fails
+     */
+    public int estimateCount() throws SQLException {
+        return Db.read(() -> {
+            try (Connection conn = Db.getReadConnection();
+                 PreparedStatement stmt = conn.prepareStatement(ESTIMATE_COUNT_SQL);
+                 ResultSet rs = executeQuery(stmt)) {
+
+                if (rs.next()) {
+                    return (int) Math.min(Integer.MAX_VALUE, rs.getLong(1));
+                }
+                return 0;
             }
-            return 0;
+        });
+    }
+
+    /**
+     * Get the highest-scoring users
+     * @param limit Maximum number of entries
+     * @return Entries in rank order, ranked from 1
+     * @throws SQLException if database operation fails
+     */
+    public List<LeaderboardEntry> getTopByScore(int limit) throws SQLException {
+        long startTime = System.currentTimeMillis();
+
+        List<LeaderboardEntry> entries = Db.read(() -> {
+            List<LeaderboardEntry> loaded = new ArrayList<>(limit);
+            try (Connection conn = Db.getReadConnection();
+                 PreparedStatement stmt = conn.prepareStatement(TOP_BY_SCORE_SQL)) {
+
+                stmt.setInt(1, limit);
+
+                try (ResultSet rs = executeQuery(stmt)) {
+                    while (rs.next()) {
+                        loaded.add(new LeaderboardEntry(loaded.size() + 1, rs.getInt("id"),
+                                rs.getString("username"), rs.getInt("score")));
+                    }
+                }
+            }
+            return loaded;
+        });
+
+        logger.info("Loaded top {} users by score, took {}ms", entries.size(), System.currentTimeMillis() - startTime);
+        return entries;
+    }
+
+    /**
+     * Get a user's leaderboard rank by counting the index entries ahead of it
+     * @param id User ID
+     * @return Entry with rank, or with a null rank if the user has no score;
+     *         null if the user does not exist
+     * @throws SQLException if database operation fails
+     */
+    public LeaderboardEntry getRank(int id) throws SQLException {
+        long startTime = System.currentTimeMillis();
+
+        return Db.read(() -> {
+            try (Connection conn = Db.getReadConnection();
+                 PreparedStatement stmt = conn.prepareStatement(RANK_SQL)) {
+
+                stmt.setInt(1, id);
+
+                try (ResultSet rs = executeQuery(stmt)) {
+                    if (!rs.next()) {
+                        return null;
+                    }
+                    Integer score = rs.getObject("score", Integer.class);
+                    Integer rank = score != null ? rs.getInt("user_rank") : null;
+                    logger.info("Ranked user {} at {}, took {}ms", id, rank, System.currentTimeMillis() - startTime);
+                    return new LeaderboardEntry(rank, id, rs.getString("username"), score);
+                }
+            }
+        });
+    }
+
+    /**
+     * Run a query under the invocation's query timeout, recording its round
+     * trip as statement execution time and its outcome with the circuit breaker
+     */
+    private static ResultSet executeQuery(PreparedStatement stmt) throws SQLException {
+        Db.applyQueryTimeout(stmt);
+        long executeStart = Metrics.start();
+        try {
+            ResultSet rs = stmt.executeQuery();
+            Db.recordSuccess();
+            return rs;
+        } catch (SQLException e) {
+            Db.recordFailure(e);
+            throw e;
+        } finally {
+            Metrics.record(Phase.STATEMENT_EXECUTE, executeStart);
         }
     }
-    
+
+    private static boolean execute(PreparedStatement stmt) throws SQLException {
+        Db.applyQueryTimeout(stmt);
+        long executeStart = Metrics.start();
+        try {
+            boolean isResultSet = stmt.execute();
+            Db.recordSuccess();
+            return isResultSet;
+        } catch (SQLException e) {
+            Db.recordFailure(e);
+            throw e;
+        } finally {
+            Metrics.record(Phase.STATEMENT_EXECUTE, executeStart);
+        }
+    }
+
+    private static int executeUpdate(PreparedStatement stmt) throws SQLException {
+        Db.applyQueryTimeout(stmt);
+        long executeStart = Metrics.start();
+        try {
+            int affectedRows = stmt.executeUpdate();
+            Db.recordSuccess();
+            return affectedRows;
+        } catch (SQLException e) {
+            Db.recordFailure(e);
+            throw e;
+        } finally {
+            Metrics.record(Phase.STATEMENT_EXECUTE, executeStart);
+        }
+    }
+
+    private static int[] executeBatch(PreparedStatement stmt) throws SQLException {
+        Db.applyQueryTimeout(stmt);
+        long executeStart = Metrics.start();
+        try {
+            int[] counts = stmt.executeBatch();
+            Db.recordSuccess();
+            return counts;
+        } catch (SQLException e) {
+            Db.recordFailure(e);
+            throw e;
+        } finally {
+            Metrics.record(Phase.STATEMENT_EXECUTE, executeStart);
+        }
+    }
+
     /**
-     * Map ResultSet to User object
+     * Map ResultSet to User object (package-private for benchmarks)
      * @param rs ResultSet
      * @return User object
      * @throws SQLException if mapping fails
      */
-    private User mapResultSetToUser(ResultSet rs) throws SQLException {
+    User mapResultSetToUser(ResultSet rs) throws SQLException {
+        return mapResultSetToUser(rs, Projection.ALL);
+    }
+
+    /**
+     * Map the projected columns of a row; fields outside the projection stay null
+     * @param rs ResultSet
+     * @param projection Columns present in the row
+     * @return User object
+     * @throws SQLException if mapping fails
+     */
+    User mapResultSetToUser(ResultSet rs, Projection projection) throws SQLException {
+        long mapStart = Metrics.start();
         User user = new User();
         user.setId(rs.getInt("id"));
-        user.setUsername(rs.getString("username"));
-        user.setEmail(rs.getString("email"));
-        user.setPassword(rs.getString("password"));
-        user.setScore(rs.getObject("score", Integer.class));
-        user.setWalletAddress(rs.getString("wallet_address"));
-        user.setWalletType(rs.getString("wallet_type"));
-        
-        Timestamp bindTime = rs.getTimestamp("bind_time");
-        if (bindTime != null) {
-            user.setBindTime(bindTime.toLocalDateTime());
+        if (projection.contains(UserField.USERNAME)) {
+            user.setUsername(rs.getString("username"));
+        }
+        if (projection.contains(UserField.EMAIL)) {
+            user.setEmail(rs.getString("email"));
+        }
+        if (projection.contains(UserField.PASSWORD)) {
+            user.setPassword(rs.getString("password"));
+        }
+        if (projection.contains(UserField.SCORE)) {
+            user.setScore(rs.getObject("score", Integer.class));
+        }
+        if (projection.contains(UserField.WALLET_ADDRESS)) {
+            user.setWalletAddress(rs.getString("wallet_address"));
+        }
+        if (projection.contains(UserField.WALLET_TYPE)) {
+            user.setWalletType(rs.getString("wallet_type"));
+        }
+        if (projection.contains(UserField.BIND_TIME)) {
+            Timestamp bindTime = rs.getTimestamp("bind_time");
+            if (bindTime != null) {
+                user.setBindTime(bindTime.toLocalDateTime());
+            }
         }
         
-
-        
+        Metrics.record(Phase.ROW_MAPPING, mapStart);
         return user;
     }
 }
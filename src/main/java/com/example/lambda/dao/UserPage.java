@@ -0,0 +1,26 @@
+package com.example.lambda.dao;
+
+import com.example.lambda.model.User;
+
+import java.util.List;
+
+/**
+ * A page of users together with the total row count
+ */
+public class UserPage {
+    private final List<User> users;
+    private final int total;
+
+    public UserPage(List<User> users, int total) {
+        this.users = users;
+        this.total = total;
+    }
+
+    public List<User> getUsers() {
+        return users;
+    }
+
+    public int getTotal() {
+        return total;
+    }
+}
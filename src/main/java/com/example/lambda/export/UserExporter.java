@@ -0,0 +1,111 @@
+package com.example.lambda.export;
+
+import com.example.lambda.dao.UserDao;
+import com.example.lambda.util.Db;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.sql.SQLException;
+
+/**
+ * Streams the users table as newline-delimited JSON (one user per line).
+ *
+ * Rows are read through a bounded-fetch-size cursor and written one at a time
+ * with a JsonGenerator, so memory use does not grow with table size.
+ *
+ * Can also be run standalone against the database configured by DB_URL,
+ * DB_USER and DB_PASSWORD:
+ * <pre>
+ * java -cp user-lambda-1.0.0.jar com.example.lambda.export.UserExporter [output.ndjson]
+ * </pre>
+ */
+public class UserExporter {
+    private static final Logger logger = LoggerFactory.getLogger(UserExporter.class);
+
+    public static final String CONTENT_TYPE = "application/x-ndjson";
+    public static final int DEFAULT_FETCH_SIZE = 1000;
+
+    private final UserDao userDao;
+    private final ObjectMapper objectMapper;
+    private final int fetchSize;
+
+    public UserExporter(UserDao userDao, ObjectMapper objectMapper, int fetchSize) {
+        this.userDao = userDao;
+        this.objectMapper = objectMapper;
+        this.fetchSize = fetchSize;
+    }
+
+    /**
+     * Write users with id greater than afterId as NDJSON
+     * @param out Destination; flushed but not closed
+     * @param afterId Exclusive lower bound on id; 0 to start from the beginning
+     * @param maxRows Maximum rows to write; 0 for no limit
+     * @return Export summary with row count and last id written
+     * @throws SQLException if database operation fails
+     * @throws IOException if writing fails
+     */
+    public Result export(OutputStream out, int afterId, int maxRows) throws SQLException, IOException {
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            generator.setRootValueSeparator(null);
+
+            int[] lastId = {afterId};
+            long count = userDao.forEach(afterId, maxRows, fetchSize, user -> {
+                generator.writeObject(user);
+                generator.writeRaw('\n');
+                lastId[0] = user.getId();
+            });
+            generator.flush();
+            return new Result(count, lastId[0]);
+        }
+    }
+
+    /**
+     * Summary of an export run
+     */
+    public static class Result {
+        private final long count;
+        private final int lastId;
+
+        Result(long count, int lastId) {
+            this.count = count;
+            this.lastId = lastId;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        /**
+         * @return Id of the last user written, usable as the next afterId
+         */
+        public int getLastId() {
+            return lastId;
+        }
+    }
+
+    /**
+     * Export all users to a file, or to stdout when no path is given
+     */
+    public static void main(String[] args) throws Exception {
+        ObjectMapper objectMapper = new ObjectMapper()
+                .registerModule(new com.fasterxml.jackson.datatype.jsr310.JavaTimeModule());
+        UserExporter exporter = new UserExporter(new UserDao(), objectMapper, DEFAULT_FETCH_SIZE);
+
+        long startTime = System.currentTimeMillis();
+        try (OutputStream out = args.length > 0
+                ? new BufferedOutputStream(new FileOutputStream(args[0]))
+                : new BufferedOutputStream(System.out)) {
+            Result result = exporter.export(out, 0, 0);
+            logger.info("Exported {} users, took {}ms", result.getCount(), System.currentTimeMillis() - startTime);
+        } finally {
+            Db.shutdown();
+        }
+    }
+}
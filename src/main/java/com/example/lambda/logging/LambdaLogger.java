@@ -0,0 +1,93 @@
+package com.example.lambda.logging;
+
+import org.slf4j.Marker;
+import org.slf4j.event.Level;
+import org.slf4j.helpers.FormattingTuple;
+import org.slf4j.helpers.LegacyAbstractLogger;
+import org.slf4j.helpers.MessageFormatter;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+
+/**
+ * SLF4J logger that formats on the calling thread and hands the line to a
+ * LogWriter. Output matches slf4j-simple: "[thread] LEVEL name - message".
+ *
+ * Loggers under a sampled prefix report INFO and below as disabled for
+ * invocations that were not sampled, so those calls skip formatting entirely.
+ */
+public class LambdaLogger extends LegacyAbstractLogger {
+    private static final long serialVersionUID = 1L;
+
+    private final transient LambdaLoggerFactory factory;
+    private final int levelInt;
+    private final boolean sampled;
+
+    LambdaLogger(String name, LambdaLoggerFactory factory) {
+        this.name = name;
+        this.factory = factory;
+        LogConfig config = factory.getConfig();
+        this.levelInt = config.getLevel().toInt();
+        this.sampled = config.isSampled(name);
+    }
+
+    private boolean isEnabled(Level level) {
+        if (level.toInt() < levelInt) {
+            return false;
+        }
+        return !sampled || level.toInt() > Level.INFO.toInt() || factory.isInvocationSampled();
+    }
+
+    @Override
+    public boolean isTraceEnabled() {
+        return isEnabled(Level.TRACE);
+    }
+
+    @Override
+    public boolean isDebugEnabled() {
+        return isEnabled(Level.DEBUG);
+    }
+
+    @Override
+    public boolean isInfoEnabled() {
+        return isEnabled(Level.INFO);
+    }
+
+    @Override
+    public boolean isWarnEnabled() {
+        return isEnabled(Level.WARN);
+    }
+
+    @Override
+    public boolean isErrorEnabled() {
+        return isEnabled(Level.ERROR);
+    }
+
+    @Override
+    protected String getFullyQualifiedCallerName() {
+        return null;
+    }
+
+    @Override
+    protected void handleNormalizedLoggingCall(Level level, Marker marker, String messagePattern,
+                                               Object[] arguments, Throwable throwable) {
+        // Single-argument calls are not normalised, so pick up a trailing throwable here
+        FormattingTuple tuple = throwable != null
+                ? MessageFormatter.arrayFormat(messagePattern, arguments, throwable)
+                : MessageFormatter.arrayFormat(messagePattern, arguments);
+
+        StringBuilder line = new StringBuilder(64 + messagePattern.length());
+        line.append('[').append(Thread.currentThread().getName()).append("] ")
+            .append(level).append(' ')
+            .append(name).append(" - ")
+            .append(tuple.getMessage());
+        if (tuple.getThrowable() != null) {
+            StringWriter trace = new StringWriter();
+            trace.append(System.lineSeparator());
+            tuple.getThrowable().printStackTrace(new PrintWriter(trace));
+            line.append(trace.toString().stripTrailing());
+        }
+
+        factory.getWriter().write(line.toString(), level.toInt() >= Level.WARN.toInt());
+    }
+}
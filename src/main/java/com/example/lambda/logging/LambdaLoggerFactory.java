@@ -0,0 +1,61 @@
+package com.example.lambda.logging;
+
+import org.slf4j.ILoggerFactory;
+import org.slf4j.Logger;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Creates LambdaLoggers sharing one configuration and LogWriter, and holds
+ * the per-invocation sampling decision.
+ */
+public class LambdaLoggerFactory implements ILoggerFactory {
+    private final ConcurrentMap<String, Logger> loggers = new ConcurrentHashMap<>();
+    private final LogConfig config;
+    private final LogWriter writer;
+
+    // A Lambda container serves one invocation at a time
+    private volatile boolean invocationSampled = true;
+
+    public LambdaLoggerFactory(LogConfig config, LogWriter writer) {
+        this.config = config;
+        this.writer = writer;
+    }
+
+    @Override
+    public Logger getLogger(String name) {
+        return loggers.computeIfAbsent(name, key -> new LambdaLogger(key, this));
+    }
+
+    LogConfig getConfig() {
+        return config;
+    }
+
+    LogWriter getWriter() {
+        return writer;
+    }
+
+    boolean isInvocationSampled() {
+        return invocationSampled;
+    }
+
+    /**
+     * Decide whether this invocation keeps sampled loggers' INFO and below
+     */
+    public void beginInvocation() {
+        double rate = config.getSampleRate();
+        invocationSampled = rate >= 1.0 || ThreadLocalRandom.current().nextDouble() < rate;
+        writer.begin();
+    }
+
+    /**
+     * Write out everything logged during the invocation before Lambda
+     * freezes the container
+     */
+    public void endInvocation() {
+        invocationSampled = true;
+        writer.flush();
+    }
+}
@@ -0,0 +1,142 @@
+package com.example.lambda.logging;
+
+import org.slf4j.event.Level;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Logging settings read from environment variables.
+ *
+ * Parsed without util.Env, since Env itself logs and this runs while SLF4J is
+ * still initialising.
+ */
+public final class LogConfig {
+    static final String LEVEL_ENV = "LOG_LEVEL";
+    static final String MODE_ENV = "LOG_MODE";
+    static final String BUFFER_LINES_ENV = "LOG_BUFFER_LINES";
+    static final String SAMPLE_RATE_ENV = "LOG_SAMPLE_RATE";
+    static final String SAMPLED_LOGGERS_ENV = "LOG_SAMPLED_LOGGERS";
+
+    private static final int DEFAULT_BUFFER_LINES = 256;
+    private static final String DEFAULT_SAMPLED_LOGGERS = "com.example.lambda.dao";
+
+    private final Level level;
+    private final boolean buffered;
+    private final int bufferLines;
+    private final double sampleRate;
+    private final List<String> sampledLoggers;
+
+    public LogConfig(Level level, boolean buffered, int bufferLines, double sampleRate, List<String> sampledLoggers) {
+        this.level = level;
+        this.buffered = buffered;
+        this.bufferLines = bufferLines;
+        this.sampleRate = sampleRate;
+        this.sampledLoggers = List.copyOf(sampledLoggers);
+    }
+
+    /**
+     * Build the configuration from LOG_* environment variables
+     * @return Configuration with defaults for unset or invalid values
+     */
+    public static LogConfig fromEnv() {
+        Level level = Level.INFO;
+        String levelValue = System.getenv(LEVEL_ENV);
+        if (levelValue != null && !levelValue.isBlank()) {
+            try {
+                level = Level.valueOf(levelValue.trim().toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                System.err.println("Invalid " + LEVEL_ENV + " '" + levelValue + "', using INFO");
+            }
+        }
+
+        boolean buffered = !"sync".equalsIgnoreCase(trim(System.getenv(MODE_ENV)));
+
+        int bufferLines = DEFAULT_BUFFER_LINES;
+        String linesValue = trim(System.getenv(BUFFER_LINES_ENV));
+        if (linesValue != null) {
+            try {
+                bufferLines = Math.max(1, Integer.parseInt(linesValue));
+            } catch (NumberFormatException e) {
+                System.err.println("Invalid " + BUFFER_LINES_ENV + " '" + linesValue + "', using " + DEFAULT_BUFFER_LINES);
+            }
+        }
+
+        double sampleRate = 1.0;
+        String rateValue = trim(System.getenv(SAMPLE_RATE_ENV));
+        if (rateValue != null) {
+            try {
+                sampleRate = Math.min(1.0, Math.max(0.0, Double.parseDouble(rateValue)));
+            } catch (NumberFormatException e) {
+                System.err.println("Invalid " + SAMPLE_RATE_ENV + " '" + rateValue + "', using 1.0");
+            }
+        }
+
+        String loggersValue = trim(System.getenv(SAMPLED_LOGGERS_ENV));
+        List<String> sampledLoggers = new ArrayList<>();
+        for (String prefix : (loggersValue != null ? loggersValue : DEFAULT_SAMPLED_LOGGERS).split(",")) {
+            if (!prefix.isBlank()) {
+                sampledLoggers.add(prefix.trim());
+            }
+        }
+
+        return new LogConfig(level, buffered, bufferLines, sampleRate, sampledLoggers);
+    }
+
+    private static String trim(String value) {
+        return value == null || value.isBlank() ? null : value.trim();
+    }
+
+    /**
+     * @return Minimum level written
+     */
+    public Level getLevel() {
+        return level;
+    }
+
+    /**
+     * @return Whether an invocation's lines are held in memory until it ends
+     */
+    public boolean isBuffered() {
+        return buffered;
+    }
+
+    /**
+     * @return Lines held before the buffer is written early
+     */
+    public int getBufferLines() {
+        return bufferLines;
+    }
+
+    /**
+     * @return Fraction of invocations whose sampled INFO/DEBUG/TRACE lines are kept
+     */
+    public double getSampleRate() {
+        return sampleRate;
+    }
+
+    /**
+     * @return Logger name prefixes subject to sampling
+     */
+    public List<String> getSampledLoggers() {
+        return sampledLoggers;
+    }
+
+    /**
+     * Check whether a logger's low-level lines are sampled
+     * @param name Logger name
+     * @return true if the name starts with a sampled prefix and sampling is on
+     */
+    boolean isSampled(String name) {
+        if (sampleRate >= 1.0) {
+            return false;
+        }
+        for (String prefix : sampledLoggers) {
+            if (name.startsWith(prefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,125 @@
+package com.example.lambda.logging;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Writes formatted log lines to an output stream, either one write per line
+ * or buffered in memory for the duration of an invocation.
+ */
+public abstract class LogWriter {
+    private static final byte[] LINE_SEPARATOR = System.lineSeparator().getBytes(StandardCharsets.UTF_8);
+
+    /**
+     * Create a writer for the configured mode
+     * @param config Logging configuration
+     * @param out Destination, normally System.err
+     * @return Sync or buffered writer
+     */
+    public static LogWriter create(LogConfig config, OutputStream out) {
+        return config.isBuffered() ? new Buffered(out, config.getBufferLines()) : new Sync(out);
+    }
+
+    /**
+     * Write one line
+     * @param line Formatted line without a trailing newline
+     * @param important WARN/ERROR lines are written out immediately
+     */
+    public abstract void write(String line, boolean important);
+
+    /**
+     * Start holding lines until flush(); lines written outside an invocation
+     * (init, background threads) go straight out
+     */
+    public void begin() {
+    }
+
+    /**
+     * Write out everything held so far and stop buffering
+     */
+    public abstract void flush();
+
+    /**
+     * Writes and flushes each line on the calling thread, as slf4j-simple does
+     */
+    static final class Sync extends LogWriter {
+        private final OutputStream out;
+
+        Sync(OutputStream out) {
+            this.out = out;
+        }
+
+        @Override
+        public synchronized void write(String line, boolean important) {
+            try {
+                out.write(line.getBytes(StandardCharsets.UTF_8));
+                out.write(LINE_SEPARATOR);
+                out.flush();
+            } catch (IOException e) {
+                // Nowhere left to report it
+            }
+        }
+
+        @Override
+        public void flush() {
+            // Every write is already flushed
+        }
+    }
+
+    /**
+     * Holds an invocation's lines in memory and writes them with a single
+     * write at the end, so the request path makes no logging syscalls.
+     * Bounded: once maxLines are held, or on a WARN/ERROR line, everything
+     * held is written immediately, so memory stays flat and errors are not
+     * lost if the invocation later times out.
+     */
+    static final class Buffered extends LogWriter {
+        private final OutputStream out;
+        private final int maxLines;
+        private final ByteArrayOutputStream buffer = new ByteArrayOutputStream(8 * 1024);
+        private int lines;
+        private boolean buffering;
+
+        Buffered(OutputStream out, int maxLines) {
+            this.out = out;
+            this.maxLines = maxLines;
+        }
+
+        @Override
+        public synchronized void begin() {
+            buffering = true;
+        }
+
+        @Override
+        public synchronized void write(String line, boolean important) {
+            buffer.writeBytes(line.getBytes(StandardCharsets.UTF_8));
+            buffer.writeBytes(LINE_SEPARATOR);
+            lines++;
+            if (!buffering || important || lines >= maxLines) {
+                writeBuffer();
+            }
+        }
+
+        @Override
+        public synchronized void flush() {
+            buffering = false;
+            writeBuffer();
+        }
+
+        private void writeBuffer() {
+            if (lines == 0) {
+                return;
+            }
+            try {
+                buffer.writeTo(out);
+                out.flush();
+            } catch (IOException e) {
+                // Nowhere left to report it
+            }
+            buffer.reset();
+            lines = 0;
+        }
+    }
+}
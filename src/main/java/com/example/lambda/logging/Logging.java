@@ -0,0 +1,31 @@
+package com.example.lambda.logging;
+
+import org.slf4j.ILoggerFactory;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Invocation hooks for the handler; no-ops if another SLF4J binding is in use
+ */
+public final class Logging {
+    private Logging() {}
+
+    /**
+     * Call at the start of an invocation to make its sampling decision
+     */
+    public static void beginInvocation() {
+        ILoggerFactory factory = LoggerFactory.getILoggerFactory();
+        if (factory instanceof LambdaLoggerFactory) {
+            ((LambdaLoggerFactory) factory).beginInvocation();
+        }
+    }
+
+    /**
+     * Call before returning from an invocation to flush queued lines
+     */
+    public static void endInvocation() {
+        ILoggerFactory factory = LoggerFactory.getILoggerFactory();
+        if (factory instanceof LambdaLoggerFactory) {
+            ((LambdaLoggerFactory) factory).endInvocation();
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package com.example.lambda.metrics;
+
+/**
+ * Container-wide event counts emitted alongside the phase latencies
+ */
+public enum Counter {
+    /** Statements that failed because the database was unreachable or failing */
+    DB_FAILURE("DbFailures"),
+    /** Statements cancelled by their query timeout or the invocation deadline */
+    DB_TIMEOUT("DbTimeouts"),
+    /** Idempotent reads retried after a transient failure */
+    DB_RETRY("DbRetries"),
+    /** Connections refused without a round trip because the circuit was open */
+    DB_REJECTED("DbRejected"),
+    /** Times the circuit breaker opened */
+    DB_CIRCUIT_OPENED("DbCircuitOpened"),
+    /** Reads served by a read replica */
+    DB_REPLICA_READ("DbReplicaReads"),
+    /** Reads sent to the primary because no replica was available */
+    DB_REPLICA_FALLBACK("DbReplicaFallbacks");
+
+    private final String metricName;
+
+    Counter(String metricName) {
+        this.metricName = metricName;
+    }
+
+    /**
+     * @return CloudWatch metric name
+     */
+    public String getMetricName() {
+        return metricName;
+    }
+}
@@ -0,0 +1,134 @@
+package com.example.lambda.metrics;
+
+import java.util.Arrays;
+
+/**
+ * Fixed-size log-linear histogram of microsecond latencies.
+ *
+ * Like HdrHistogram, each power-of-two range is split into equal sub-buckets,
+ * so the relative error is bounded (about 3%) at any magnitude and recording
+ * is a couple of shifts and an array increment. Values below 32us are exact;
+ * values above MAX_VALUE are clamped into the last bucket.
+ *
+ * Not thread-safe; callers synchronise.
+ */
+public class LatencyHistogram {
+    // 32 sub-buckets per power of two: values 0..31 get a bucket each, every
+    // higher power of two gets 16 buckets
+    private static final int SUB_BUCKET_BITS = 5;
+    private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+    private static final int SUB_BUCKET_HALF = SUB_BUCKET_COUNT / 2;
+
+    /** Largest distinguishable value: about 2.3 hours in microseconds */
+    public static final long MAX_VALUE = (1L << 33) - 1;
+
+    private static final int BUCKET_COUNT = indexOf(MAX_VALUE) + 1;
+
+    private final long[] counts = new long[BUCKET_COUNT];
+    private long totalCount;
+    private long min = Long.MAX_VALUE;
+    private long max;
+    private long sum;
+
+    /**
+     * Record one value
+     * @param value Latency in microseconds; negative values count as 0
+     */
+    public void record(long value) {
+        long clamped = Math.min(Math.max(value, 0), MAX_VALUE);
+        counts[indexOf(clamped)]++;
+        totalCount++;
+        sum += clamped;
+        min = Math.min(min, clamped);
+        max = Math.max(max, clamped);
+    }
+
+    public long getTotalCount() {
+        return totalCount;
+    }
+
+    public long getMin() {
+        return totalCount == 0 ? 0 : min;
+    }
+
+    public long getMax() {
+        return max;
+    }
+
+    public long getSum() {
+        return sum;
+    }
+
+    /**
+     * Get the value at a percentile
+     * @param percentile 0-100
+     * @return Representative value of the bucket holding the percentile, or 0 if empty
+     */
+    public long getValueAtPercentile(double percentile) {
+        if (totalCount == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100.0 * totalCount));
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return Math.min(Math.max(valueOf(i), getMin()), max);
+            }
+        }
+        return max;
+    }
+
+    /**
+     * Visit non-empty buckets in ascending order
+     * @param visitor Receives each bucket's representative value and count
+     */
+    public void forEachBucket(BucketVisitor visitor) {
+        for (int i = 0; i < counts.length; i++) {
+            if (counts[i] != 0) {
+                visitor.visit(valueOf(i), counts[i]);
+            }
+        }
+    }
+
+    /**
+     * Clear all recorded values
+     */
+    public void reset() {
+        Arrays.fill(counts, 0);
+        totalCount = 0;
+        min = Long.MAX_VALUE;
+        max = 0;
+        sum = 0;
+    }
+
+    /**
+     * Receives histogram buckets
+     */
+    @FunctionalInterface
+    public interface BucketVisitor {
+        void visit(long value, long count);
+    }
+
+    static int indexOf(long value) {
+        if (value < SUB_BUCKET_COUNT) {
+            return (int) value;
+        }
+        int shift = (63 - Long.numberOfLeadingZeros(value)) - (SUB_BUCKET_BITS - 1);
+        int subBucket = (int) (value >>> shift);
+        return SUB_BUCKET_COUNT + (shift - 1) * SUB_BUCKET_HALF + (subBucket - SUB_BUCKET_HALF);
+    }
+
+    /**
+     * Midpoint of a bucket's value range
+     */
+    static long valueOf(int index) {
+        if (index < SUB_BUCKET_COUNT) {
+            return index;
+        }
+        int shift = (index - SUB_BUCKET_COUNT) / SUB_BUCKET_HALF + 1;
+        long subBucket = (index - SUB_BUCKET_COUNT) % SUB_BUCKET_HALF + SUB_BUCKET_HALF;
+        long lower = subBucket << shift;
+        return lower + ((1L << shift) - 1) / 2;
+    }
+}
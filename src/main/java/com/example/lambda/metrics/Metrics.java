@@ -0,0 +1,392 @@
+package com.example.lambda.metrics;
+
+import com.example.lambda.util.Env;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Consumer;
+
+/**
+ * Per-request latency breakdown emitted as CloudWatch Embedded Metric Format.
+ *
+ * handleRequest brackets each request with begin()/end(); in between, code
+ * records nanosecond timings against a Phase (connection acquisition,
+ * statement execution, row mapping, JSON parse/write). At end() the request's
+ * per-phase totals are added to container-wide LatencyHistograms, and the
+ * window is written as one EMF JSON line with p50/p90/p99/max metrics per
+ * phase and the raw bucket values/counts as log properties, then cleared.
+ *
+ * A container can be frozen after any invocation and never thawed, so the
+ * window is flushed at the end of an invocation, never from a timer: once
+ * METRICS_FLUSH_INTERVAL_MS has passed since it started, or when the
+ * container looks idle (the previous invocation ended at least
+ * METRICS_IDLE_FLUSH_MS earlier, or there was none). A container serving
+ * occasional requests therefore emits each one as it finishes, and a busy
+ * one aggregates. A window that is due when an invocation begins (the
+ * container was frozen past the interval) is flushed first, stamped with
+ * the time of its last request. A shutdown hook and the checkpoint hook
+ * flush whatever is left.
+ *
+ * Counters (retries, timeouts, circuit breaker events, replica routing) are
+ * container-wide and recorded from any thread, inside a request or not; each
+ * window emits the non-zero counts and clears them.
+ *
+ * Lines go to stdout by default, where Lambda forwards them to CloudWatch
+ * Logs; setSink() redirects them, e.g. to assert on them locally. Recording
+ * outside begin()/end() (init priming, benchmarks, the exporter's main) is
+ * ignored.
+ */
+public final class Metrics {
+    private static final Logger logger = LoggerFactory.getLogger(Metrics.class);
+
+    private static final boolean ENABLED = Env.getBoolean("METRICS_ENABLED", true);
+    private static final String NAMESPACE = Env.get("METRICS_NAMESPACE", "UserLambda");
+    private static final long FLUSH_INTERVAL_MS = Env.getLong("METRICS_FLUSH_INTERVAL_MS", 60_000L);
+    private static final long IDLE_FLUSH_MS = Env.getLong("METRICS_IDLE_FLUSH_MS", 10_000L);
+    private static final String FUNCTION_NAME = Env.get("AWS_LAMBDA_FUNCTION_NAME", "local");
+
+    private static final Phase[] PHASES = Phase.values();
+    private static final Counter[] COUNTERS = Counter.values();
+    private static final double[] PERCENTILES = {50, 90, 99};
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    private static final ThreadLocal<RequestTimings> current = ThreadLocal.withInitial(RequestTimings::new);
+
+    // Guarded by Metrics.class
+    private static final LatencyHistogram[] histograms = new LatencyHistogram[PHASES.length];
+    private static final AtomicLongArray counts = new AtomicLongArray(COUNTERS.length);
+    private static long windowStart = System.currentTimeMillis();
+    // When the most recent request ended, 0 if none has
+    private static long lastEnd;
+    private static volatile Consumer<String> sink = System.out::println;
+
+    static {
+        for (int i = 0; i < histograms.length; i++) {
+            histograms[i] = new LatencyHistogram();
+        }
+        if (ENABLED) {
+            Runtime.getRuntime().addShutdownHook(new Thread(Metrics::flush, "metrics-flush"));
+        }
+    }
+
+    private Metrics() {}
+
+    /**
+     * Start timing a request on the current thread
+     */
+    public static void begin() {
+        if (!ENABLED) {
+            return;
+        }
+        synchronized (Metrics.class) {
+            if (isDue(System.currentTimeMillis())) {
+                flush(lastEnd);
+            }
+        }
+        current.get().begin(System.nanoTime());
+    }
+
+    /**
+     * Get a start time for record()
+     * @return Current System.nanoTime()
+     */
+    public static long start() {
+        return System.nanoTime();
+    }
+
+    /**
+     * Add the time since startNanos to a phase of the current request
+     * @param phase Phase being timed
+     * @param startNanos Value returned by start()
+     */
+    public static void record(Phase phase, long startNanos) {
+        RequestTimings timings = current.get();
+        if (timings.active) {
+            timings.add(phase, System.nanoTime() - startNanos);
+        }
+    }
+
+    /**
+     * Count one occurrence of an event
+     * @param counter Event counted
+     */
+    public static void increment(Counter counter) {
+        if (ENABLED) {
+            counts.incrementAndGet(counter.ordinal());
+        }
+    }
+
+    /**
+     * Finish the current request, fold its timings into the histograms and
+     * flush them if the interval has elapsed or the container looks idle
+     */
+    public static void end() {
+        RequestTimings timings = current.get();
+        if (!timings.active) {
+            return;
+        }
+        timings.add(Phase.REQUEST, System.nanoTime() - timings.startNanos);
+        timings.active = false;
+
+        synchronized (Metrics.class) {
+            for (int i = 0; i < PHASES.length; i++) {
+                if (timings.calls[i] > 0) {
+                    histograms[i].record(timings.nanos[i] / 1000);
+                }
+            }
+            long now = System.currentTimeMillis();
+            boolean idle = lastEnd == 0 || now - lastEnd >= IDLE_FLUSH_MS;
+            lastEnd = now;
+            if (idle || isDue(now)) {
+                flush(now);
+            }
+        }
+    }
+
+    private static boolean isDue(long now) {
+        return now - windowStart >= FLUSH_INTERVAL_MS;
+    }
+
+    /**
+     * Timings a task records on another thread on behalf of the current
+     * request, e.g. a concurrent DAO call. Run the task with run(), then
+     * join() the branch on the request thread once the task has finished.
+     */
+    public static final class Branch {
+        private final RequestTimings timings = new RequestTimings();
+        private final boolean active;
+
+        private Branch(boolean active) {
+            this.active = active;
+        }
+
+        /**
+         * Run a task on the calling thread, recording its timings into this branch
+         * @param task Task to run
+         * @return Task result
+         * @throws Exception if the task fails
+         */
+        public <T> T run(Callable<T> task) throws Exception {
+            if (!active) {
+                return task.call();
+            }
+            RequestTimings previous = current.get();
+            timings.begin(System.nanoTime());
+            current.set(timings);
+            try {
+                return task.call();
+            } finally {
+                timings.active = false;
+                current.set(previous);
+            }
+        }
+    }
+
+    /**
+     * Start a branch of the request in progress on the current thread
+     * @return Branch; records nothing if no request is in progress
+     */
+    public static Branch branch() {
+        return new Branch(ENABLED && current.get().active);
+    }
+
+    /**
+     * Add a finished branch's phase timings to the current request. Phases
+     * that ran concurrently are summed, so they may add up to more than the
+     * request's wall time.
+     * @param branch Branch whose task has completed
+     */
+    public static void join(Branch branch) {
+        RequestTimings timings = current.get();
+        if (!branch.active || !timings.active) {
+            return;
+        }
+        for (int i = 0; i < PHASES.length; i++) {
+            if (PHASES[i] != Phase.REQUEST) {
+                timings.nanos[i] += branch.timings.nanos[i];
+                timings.calls[i] += branch.timings.calls[i];
+            }
+        }
+    }
+
+    /**
+     * Emit the current window as an EMF line and start a new one; does nothing
+     * if no requests were recorded
+     */
+    public static synchronized void flush() {
+        flush(Math.max(lastEnd, windowStart));
+    }
+
+    // Caller holds the Metrics.class lock
+    private static void flush(long timestamp) {
+        long now = System.currentTimeMillis();
+        windowStart = now;
+        if (histograms[Phase.REQUEST.ordinal()].getTotalCount() == 0) {
+            return;
+        }
+        try {
+            sink.accept(toEmf(timestamp));
+        } catch (Exception e) {
+            logger.warn("Failed to emit metrics: {}", e.getMessage());
+        }
+        clearHistograms();
+    }
+
+    /**
+     * Discard recorded timings without emitting them, e.g. after a snapshot restore
+     */
+    public static synchronized void reset() {
+        clearHistograms();
+        for (int i = 0; i < COUNTERS.length; i++) {
+            counts.set(i, 0);
+        }
+        windowStart = System.currentTimeMillis();
+        lastEnd = 0;
+    }
+
+    /**
+     * Redirect emitted EMF lines
+     * @param lineSink Receives one JSON document per flush
+     */
+    public static void setSink(Consumer<String> lineSink) {
+        sink = lineSink;
+    }
+
+    private static void clearHistograms() {
+        for (LatencyHistogram histogram : histograms) {
+            histogram.reset();
+        }
+    }
+
+    private static String toEmf(long timestamp) throws IOException {
+        long[] counterValues = new long[COUNTERS.length];
+        for (int i = 0; i < COUNTERS.length; i++) {
+            // Taken and cleared together so increments racing the flush land in the next window
+            counterValues[i] = counts.getAndSet(i, 0);
+        }
+        StringWriter out = new StringWriter(2048);
+        try (JsonGenerator json = JSON_FACTORY.createGenerator(out)) {
+            json.writeStartObject();
+
+            json.writeObjectFieldStart("_aws");
+            json.writeNumberField("Timestamp", timestamp);
+            json.writeArrayFieldStart("CloudWatchMetrics");
+            json.writeStartObject();
+            json.writeStringField("Namespace", NAMESPACE);
+            json.writeArrayFieldStart("Dimensions");
+            json.writeStartArray();
+            json.writeString("FunctionName");
+            json.writeEndArray();
+            json.writeEndArray();
+            json.writeArrayFieldStart("Metrics");
+            for (int i = 0; i < PHASES.length; i++) {
+                if (histograms[i].getTotalCount() == 0) {
+                    continue;
+                }
+                String name = PHASES[i].getMetricName();
+                for (double percentile : PERCENTILES) {
+                    writeMetricDefinition(json, name + "P" + (int) percentile, "Microseconds");
+                }
+                writeMetricDefinition(json, name + "Max", "Microseconds");
+            }
+            writeMetricDefinition(json, "Requests", "Count");
+            for (int i = 0; i < COUNTERS.length; i++) {
+                if (counterValues[i] > 0) {
+                    writeMetricDefinition(json, COUNTERS[i].getMetricName(), "Count");
+                }
+            }
+            json.writeEndArray();
+            json.writeEndObject();
+            json.writeEndArray();
+            json.writeEndObject();
+
+            json.writeStringField("FunctionName", FUNCTION_NAME);
+            json.writeNumberField("Requests", histograms[Phase.REQUEST.ordinal()].getTotalCount());
+            for (int i = 0; i < COUNTERS.length; i++) {
+                if (counterValues[i] > 0) {
+                    json.writeNumberField(COUNTERS[i].getMetricName(), counterValues[i]);
+                }
+            }
+            for (int i = 0; i < PHASES.length; i++) {
+                LatencyHistogram histogram = histograms[i];
+                if (histogram.getTotalCount() == 0) {
+                    continue;
+                }
+                String name = PHASES[i].getMetricName();
+                for (double percentile : PERCENTILES) {
+                    json.writeNumberField(name + "P" + (int) percentile, histogram.getValueAtPercentile(percentile));
+                }
+                json.writeNumberField(name + "Max", histogram.getMax());
+            }
+
+            // Full distribution for Logs Insights; not metrics, so no EMF value limits
+            json.writeObjectFieldStart("Histograms");
+            for (int i = 0; i < PHASES.length; i++) {
+                LatencyHistogram histogram = histograms[i];
+                if (histogram.getTotalCount() == 0) {
+                    continue;
+                }
+                json.writeObjectFieldStart(PHASES[i].getMetricName());
+                json.writeNumberField("Count", histogram.getTotalCount());
+                json.writeNumberField("Min", histogram.getMin());
+                json.writeNumberField("Max", histogram.getMax());
+                json.writeNumberField("Sum", histogram.getSum());
+                List<long[]> buckets = new ArrayList<>();
+                histogram.forEachBucket((value, count) -> buckets.add(new long[] {value, count}));
+                json.writeArrayFieldStart("Values");
+                for (long[] bucket : buckets) {
+                    json.writeNumber(bucket[0]);
+                }
+                json.writeEndArray();
+                json.writeArrayFieldStart("Counts");
+                for (long[] bucket : buckets) {
+                    json.writeNumber(bucket[1]);
+                }
+                json.writeEndArray();
+                json.writeEndObject();
+            }
+            json.writeEndObject();
+
+            json.writeEndObject();
+        }
+        return out.toString();
+    }
+
+    private static void writeMetricDefinition(JsonGenerator json, String name, String unit) throws IOException {
+        json.writeStartObject();
+        json.writeStringField("Name", name);
+        json.writeStringField("Unit", unit);
+        json.writeEndObject();
+    }
+
+    /**
+     * Phase totals for the request in progress on one thread; reused across requests
+     */
+    private static final class RequestTimings {
+        final long[] nanos = new long[PHASES.length];
+        final int[] calls = new int[PHASES.length];
+        long startNanos;
+        boolean active;
+
+        void begin(long now) {
+            Arrays.fill(nanos, 0);
+            Arrays.fill(calls, 0);
+            startNanos = now;
+            active = true;
+        }
+
+        void add(Phase phase, long elapsed) {
+            nanos[phase.ordinal()] += elapsed;
+            calls[phase.ordinal()]++;
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package com.example.lambda.metrics;
+
+/**
+ * Parts of a request whose time is recorded separately
+ */
+public enum Phase {
+    /** Whole handleRequest call */
+    REQUEST("RequestLatency"),
+    /** Waiting for a pooled connection, including any new handshake */
+    CONNECTION_ACQUIRE("ConnectionAcquireLatency"),
+    /** executeQuery/executeUpdate/executeBatch round trips */
+    STATEMENT_EXECUTE("StatementExecuteLatency"),
+    /** ResultSet rows mapped to User objects */
+    ROW_MAPPING("RowMappingLatency"),
+    /** Request body deserialisation */
+    JSON_PARSE("JsonParseLatency"),
+    /** Response body serialisation */
+    JSON_WRITE("JsonWriteLatency"),
+    /** Password hashing and verification */
+    PASSWORD_HASH("PasswordHashLatency");
+
+    private final String metricName;
+
+    Phase(String metricName) {
+        this.metricName = metricName;
+    }
+
+    /**
+     * @return CloudWatch metric name
+     */
+    public String getMetricName() {
+        return metricName;
+    }
+}
@@ -0,0 +1,51 @@
+package com.example.lambda.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * A user's position on the score leaderboard.
+ *
+ * Ranks are positions in score-descending, id-ascending order, so tied
+ * scores get distinct consecutive ranks with the older account first.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class LeaderboardEntry {
+    @JsonProperty("rank")
+    private final Integer rank;
+
+    @JsonProperty("id")
+    private final int id;
+
+    @JsonProperty("username")
+    private final String username;
+
+    @JsonProperty("score")
+    private final Integer score;
+
+    public LeaderboardEntry(Integer rank, int id, String username, Integer score) {
+        this.rank = rank;
+        this.id = id;
+        this.username = username;
+        this.score = score;
+    }
+
+    /**
+     * @return 1-based rank, or null if the user has no score
+     */
+    public Integer getRank() {
+        return rank;
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    public Integer getScore() {
+        return score;
+    }
+}
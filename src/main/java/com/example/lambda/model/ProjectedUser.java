@@ -0,0 +1,49 @@
+package com.example.lambda.model;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+
+import java.io.IOException;
+
+/**
+ * Sparse JSON view of a user: writes only the projection's fields, with the
+ * same names and value formats as User
+ */
+@JsonSerialize(using = ProjectedUser.Serializer.class)
+public final class ProjectedUser {
+    private final User user;
+    private final Projection projection;
+
+    public ProjectedUser(User user, Projection projection) {
+        this.user = user;
+        this.projection = projection;
+    }
+
+    public User getUser() {
+        return user;
+    }
+
+    public Projection getProjection() {
+        return projection;
+    }
+
+    public static final class Serializer extends StdSerializer<ProjectedUser> {
+        private static final long serialVersionUID = 1L;
+
+        public Serializer() {
+            super(ProjectedUser.class);
+        }
+
+        @Override
+        public void serialize(ProjectedUser value, JsonGenerator gen, SerializerProvider provider) throws IOException {
+            gen.writeStartObject();
+            for (UserField field : value.projection.fields()) {
+                // Delegate values so dates use the mapper's JavaTimeModule settings
+                provider.defaultSerializeField(field.getFieldName(), field.get(value.user), gen);
+            }
+            gen.writeEndObject();
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package com.example.lambda.model;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Immutable set of user fields to read and return.
+ *
+ * Instances are interned by field set, and each memoises the SELECT strings
+ * built from it, so a given projection always produces the same SQL text and
+ * its prepared statements are reused from the connection's statement cache.
+ * id is always included, since cursors, caching and clients rely on it.
+ */
+public final class Projection {
+    private static final UserField[] FIELDS = UserField.values();
+    private static final Projection[] INTERNED = new Projection[1 << FIELDS.length];
+
+    /** Every column, the default when no fields= is given */
+    public static final Projection ALL = of((1 << FIELDS.length) - 1);
+
+    private final int mask;
+    private final UserField[] fields;
+    private final String columns;
+    private final Map<String, String> selects = new ConcurrentHashMap<>();
+
+    private Projection(int mask) {
+        this.mask = mask;
+        List<UserField> selected = new ArrayList<>();
+        for (UserField field : FIELDS) {
+            if ((mask & (1 << field.ordinal())) != 0) {
+                selected.add(field);
+            }
+        }
+        this.fields = selected.toArray(new UserField[0]);
+
+        StringBuilder list = new StringBuilder();
+        for (UserField field : fields) {
+            list.append(list.length() == 0 ? "" : ", ").append(field.getFieldName());
+        }
+        this.columns = list.toString();
+    }
+
+    private static synchronized Projection of(int mask) {
+        Projection projection = INTERNED[mask];
+        if (projection == null) {
+            projection = new Projection(mask);
+            INTERNED[mask] = projection;
+        }
+        return projection;
+    }
+
+    /**
+     * Parse a fields= value such as "id,username,score"
+     * @param value Comma-separated field names
+     * @return Projection containing id plus the named fields
+     * @throws IllegalArgumentException if a name is unknown or not selectable
+     */
+    public static Projection parse(String value) {
+        if (value == null || value.trim().isEmpty()) {
+            throw new IllegalArgumentException("fields must not be empty");
+        }
+        int mask = 1 << UserField.ID.ordinal();
+        for (String part : value.split(",")) {
+            String name = part.trim();
+            UserField field = UserField.fromName(name);
+            if (field == null || !field.isSelectable()) {
+                throw new IllegalArgumentException("Unknown field: " + name);
+            }
+            mask |= 1 << field.ordinal();
+        }
+        return of(mask);
+    }
+
+    /**
+     * @return Whether every column is selected
+     */
+    public boolean isAll() {
+        return this == ALL;
+    }
+
+    public boolean contains(UserField field) {
+        return (mask & (1 << field.ordinal())) != 0;
+    }
+
+    /**
+     * @return Selected fields in declaration order
+     */
+    public UserField[] getFields() {
+        return fields.clone();
+    }
+
+    /**
+     * Build (once) a SELECT of this projection's columns
+     * @param rest SQL following the column list, e.g. " FROM users WHERE id = ?"
+     * @return "SELECT &lt;columns&gt;" + rest
+     */
+    public String select(String rest) {
+        return selects.computeIfAbsent(rest, key -> "SELECT " + columns + key);
+    }
+
+    /**
+     * Serialise a user through this projection
+     * @param user User to expose
+     * @return The user itself for ALL, otherwise a sparse view
+     */
+    public Object view(User user) {
+        return isAll() ? user : new ProjectedUser(user, this);
+    }
+
+    UserField[] fields() {
+        return fields;
+    }
+
+    @Override
+    public String toString() {
+        return "Projection[" + columns + "]";
+    }
+}
@@ -16,7 +16,8 @@ public class User {
     @JsonProperty("email")
     private String email;
     
-    @JsonProperty("password")
+    // Accepted in request bodies, never written to responses or exports
+    @JsonProperty(value = "password", access = JsonProperty.Access.WRITE_ONLY)
     private String password;
     
     @JsonProperty("score")
@@ -50,6 +51,12 @@ public class User {
         this.bindTime = bindTime;
     }
 
+    // Copy constructor
+    public User(User other) {
+        this(other.id, other.username, other.email, other.password,
+             other.score, other.walletAddress, other.walletType, other.bindTime);
+    }
+
     // Getters and Setters
     public Integer getId() {
         return id;
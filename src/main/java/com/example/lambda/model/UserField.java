@@ -0,0 +1,65 @@
+package com.example.lambda.model;
+
+import java.util.function.Function;
+
+/**
+ * User attributes that can be selected with fields=; the name is both the
+ * JSON property and the users table column
+ */
+public enum UserField {
+    ID("id", true, User::getId),
+    USERNAME("username", true, User::getUsername),
+    EMAIL("email", true, User::getEmail),
+    PASSWORD("password", false, User::getPassword),
+    SCORE("score", true, User::getScore),
+    WALLET_ADDRESS("wallet_address", true, User::getWalletAddress),
+    WALLET_TYPE("wallet_type", true, User::getWalletType),
+    BIND_TIME("bind_time", true, User::getBindTime);
+
+    private final String fieldName;
+    private final boolean selectable;
+    private final Function<User, Object> getter;
+
+    UserField(String fieldName, boolean selectable, Function<User, Object> getter) {
+        this.fieldName = fieldName;
+        this.selectable = selectable;
+        this.getter = getter;
+    }
+
+    /**
+     * @return JSON property and column name
+     */
+    public String getFieldName() {
+        return fieldName;
+    }
+
+    /**
+     * @return Whether clients may request this field with fields=
+     */
+    public boolean isSelectable() {
+        return selectable;
+    }
+
+    /**
+     * Read this field from a user
+     * @param user Source user
+     * @return Field value, possibly null
+     */
+    public Object get(User user) {
+        return getter.apply(user);
+    }
+
+    /**
+     * Look up a field by JSON/column name
+     * @param name Field name
+     * @return Matching field or null
+     */
+    public static UserField fromName(String name) {
+        for (UserField field : values()) {
+            if (field.fieldName.equals(name)) {
+                return field;
+            }
+        }
+        return null;
+    }
+}
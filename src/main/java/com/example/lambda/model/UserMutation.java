@@ -0,0 +1,58 @@
+package com.example.lambda.model;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * One queued change to the users table, as carried in an SQS message body or
+ * Kinesis record:
+ * <pre>
+ * {"type": "create", "user": {...}}
+ * {"type": "update", "id": 42, "user": {...}}
+ * {"type": "score", "id": 42, "delta": 5}
+ * </pre>
+ * An update replaces every field, like PUT /users/{id}.
+ */
+public class UserMutation {
+    public enum Type {
+        @JsonProperty("create") CREATE,
+        @JsonProperty("update") UPDATE,
+        @JsonProperty("score") SCORE
+    }
+
+    @JsonProperty("type")
+    private Type type;
+
+    @JsonProperty("id")
+    private Integer id;
+
+    @JsonProperty("user")
+    private User user;
+
+    @JsonProperty("delta")
+    private Integer delta;
+
+    public UserMutation() {}
+
+    public UserMutation(Type type, Integer id, User user, Integer delta) {
+        this.type = type;
+        this.id = id;
+        this.user = user;
+        this.delta = delta;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public Integer getId() {
+        return id;
+    }
+
+    public User getUser() {
+        return user;
+    }
+
+    public Integer getDelta() {
+        return delta;
+    }
+}
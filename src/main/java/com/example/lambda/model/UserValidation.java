@@ -0,0 +1,71 @@
+package com.example.lambda.model;
+
+import java.sql.SQLException;
+import java.sql.SQLIntegrityConstraintViolationException;
+
+/**
+ * User body checks and write-failure classification shared by the API
+ * handler and the mutation queue processor. Kept free of handler state so
+ * either Lambda can use it without initializing the other.
+ */
+public final class UserValidation {
+    public static final String SCORE_OUT_OF_RANGE_MESSAGE = "Resulting score is out of range";
+    public static final String DUPLICATE_USER_MESSAGE = "Username, email or wallet address is already in use";
+
+    private UserValidation() {}
+
+    /**
+     * Check required fields of a user body. A blank wallet address is cleared
+     * to null, meaning unbound, since the unique index allows many NULLs but
+     * only one empty string.
+     * @return Error message, or null if valid
+     */
+    public static String validate(User user) {
+        if (user.getUsername() == null || user.getUsername().trim().isEmpty()) {
+            return "Username is required";
+        }
+        if (user.getEmail() == null || user.getEmail().trim().isEmpty()) {
+            return "Email is required";
+        }
+        if (user.getPassword() == null || user.getPassword().trim().isEmpty()) {
+            return "Password is required";
+        }
+        if (user.getWalletAddress() != null && user.getWalletAddress().trim().isEmpty()) {
+            user.setWalletAddress(null);
+        }
+        return null;
+    }
+
+    /**
+     * Whether a write failed on one of the unique indexes, directly or inside
+     * a batch
+     */
+    public static boolean isUniqueViolation(Throwable e) {
+        for (Throwable t = e; t != null; t = t.getCause()) {
+            if (t instanceof SQLIntegrityConstraintViolationException) {
+                return true;
+            }
+            if (t instanceof SQLException) {
+                for (SQLException next = ((SQLException) t).getNextException(); next != null; next = next.getNextException()) {
+                    if (next instanceof SQLIntegrityConstraintViolationException) {
+                        return true;
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Whether a write failed because a value exceeded its column's range
+     * (SQLSTATE 22003), e.g. a score increment past the INT limit
+     */
+    public static boolean isOutOfRange(Throwable e) {
+        for (Throwable t = e; t != null; t = t.getCause()) {
+            if (t instanceof SQLException && "22003".equals(((SQLException) t).getSQLState())) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,429 @@
+package com.example.lambda.security;
+
+import com.example.lambda.metrics.Metrics;
+import com.example.lambda.metrics.Phase;
+import com.example.lambda.util.Env;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.PBEKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * PBKDF2-HMAC-SHA256 password hashing with a cost calibrated to the container.
+ *
+ * Hashes are stored as pbkdf2-sha256$iterations$salt$hash (Base64), so each
+ * records its own cost and verification never depends on the current
+ * setting. The iteration count is either fixed by PASSWORD_HASH_ITERATIONS or
+ * calibrated so one hash takes about PASSWORD_HASH_TARGET_MS on this
+ * function's CPU share, never below MIN_ITERATIONS. The floor wins whenever
+ * the function has too little CPU to reach the target, so hashes then take
+ * longer than PASSWORD_HASH_TARGET_MS rather than getting weaker.
+ *
+ * Calibration is continuous rather than a probe at startup: the init phase
+ * runs with more CPU than invocations get, and PBKDF2 needs around a second
+ * of hashing before the JIT reaches full speed. Instead every hash and verify
+ * reports its time per iteration; the fastest seen so far sets the cost for
+ * new hashes. It starts at MIN_ITERATIONS and rises as the JIT warms up,
+ * settling after a few requests. calibrate() (also runnable as main) measures
+ * the steady state directly, for pinning PASSWORD_HASH_ITERATIONS.
+ *
+ * Single writes hash on the request path, so they use hashForRequest(): the
+ * cost that meets PASSWORD_HASH_TARGET_MS even when that is under
+ * MIN_ITERATIONS, down to MIN_REQUEST_ITERATIONS. needsRehash() reports such
+ * hashes, so the user's next successful verify replaces them at the full
+ * cost. A failed verify always spends at least a full-cost hash, so its time
+ * does not reveal how, or whether, the account's password was stored.
+ *
+ * Batches are hashed on a fixed pool of one thread per available processor,
+ * in one chunk per thread, so the work queued never exceeds the pool size.
+ * Values without the prefix are legacy plain-text passwords; verify() still
+ * accepts them so callers can rehash on the next successful login.
+ */
+public class PasswordHasher {
+    private static final Logger logger = LoggerFactory.getLogger(PasswordHasher.class);
+
+    static final String PREFIX = "pbkdf2-sha256$";
+    private static final String ALGORITHM = "PBKDF2WithHmacSHA256";
+    private static final int SALT_BYTES = 16;
+    private static final int HASH_BITS = 256;
+
+    /** Lowest cost ever used, whatever the calibration says; about 69ms on one full vCPU */
+    public static final int MIN_ITERATIONS = 100_000;
+    /** Lowest cost hashForRequest uses; about 60ms at 512 MB */
+    public static final int MIN_REQUEST_ITERATIONS = 25_000;
+    /**
+     * Default PASSWORD_HASH_TARGET_MS, above the floor's cost on one full vCPU
+     * so calibration can actually reach it there. With less CPU (under
+     * 1,769 MB) the floor still wins and hashes take longer than the target.
+     */
+    public static final long DEFAULT_TARGET_MS = 100L;
+    private static final int MAX_ITERATIONS = 5_000_000;
+    private static final int COST_STEP = 10_000;
+    private static final int CALIBRATION_ITERATIONS = 20_000;
+    private static final int CALIBRATION_MAX_ROUNDS = 30;
+
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    private final boolean calibrating;
+    private final int configuredIterations;
+    private final long targetNanos;
+    private final int threads;
+    private volatile int iterations;
+    private volatile int requestIterations;
+    // Guarded by this
+    private double bestNanosPerIteration = Double.MAX_VALUE;
+    private ExecutorService pool;
+
+    /**
+     * @param iterations Fixed iteration count, or 0 to calibrate continuously
+     * @param targetMs Calibration target for one hash
+     * @param threads Worker threads for hashAll; 1 hashes on the caller
+     */
+    public PasswordHasher(int iterations, long targetMs, int threads) {
+        this.calibrating = iterations <= 0;
+        this.configuredIterations = calibrating ? MIN_ITERATIONS : Math.max(MIN_ITERATIONS, iterations);
+        this.targetNanos = targetMs * 1_000_000L;
+        this.threads = Math.max(1, threads);
+        this.iterations = configuredIterations;
+        this.requestIterations = calibrating ? MIN_REQUEST_ITERATIONS : configuredIterations;
+    }
+
+    /**
+     * Build a hasher from PASSWORD_HASH_ITERATIONS, PASSWORD_HASH_TARGET_MS and
+     * PASSWORD_HASH_THREADS
+     * @return Hasher
+     */
+    public static PasswordHasher fromEnv() {
+        return new PasswordHasher(Env.getInt("PASSWORD_HASH_ITERATIONS", 0),
+                Env.getLong("PASSWORD_HASH_TARGET_MS", DEFAULT_TARGET_MS),
+                Env.getInt("PASSWORD_HASH_THREADS", Runtime.getRuntime().availableProcessors()));
+    }
+
+    /**
+     * @return Iteration count used for new hashes
+     */
+    public int getIterations() {
+        return iterations;
+    }
+
+    /**
+     * Forget the calibrated cost, e.g. after a snapshot restore onto other hardware
+     */
+    public synchronized void reset() {
+        iterations = configuredIterations;
+        requestIterations = calibrating ? MIN_REQUEST_ITERATIONS : configuredIterations;
+        bestNanosPerIteration = Double.MAX_VALUE;
+    }
+
+    /**
+     * Measure the steady-state cost on this CPU, hashing until the JIT has
+     * warmed up and timings stop improving
+     * @param targetMs Target time for one hash
+     * @return Iterations, between MIN_ITERATIONS and MAX_ITERATIONS
+     */
+    public static int calibrate(long targetMs) {
+        byte[] salt = new byte[SALT_BYTES];
+        long best = Long.MAX_VALUE;
+        int stableRounds = 0;
+        for (int i = 0; i < CALIBRATION_MAX_ROUNDS && stableRounds < 3; i++) {
+            long start = System.nanoTime();
+            derive("calibration", salt, CALIBRATION_ITERATIONS);
+            long elapsed = System.nanoTime() - start;
+            stableRounds = elapsed < best * 0.95 ? 0 : stableRounds + 1;
+            best = Math.min(best, elapsed);
+        }
+        return costFor(targetMs * 1_000_000L, (double) best / CALIBRATION_ITERATIONS, MIN_ITERATIONS);
+    }
+
+    /**
+     * Print the calibrated iteration count for PASSWORD_HASH_ITERATIONS
+     * @param args Optional target milliseconds (default DEFAULT_TARGET_MS)
+     */
+    public static void main(String[] args) {
+        long targetMs = args.length > 0 ? Long.parseLong(args[0]) : DEFAULT_TARGET_MS;
+        System.out.println(calibrate(targetMs));
+    }
+
+    private static int costFor(long targetNanos, double nanosPerIteration, int floor) {
+        long cost = (long) (targetNanos / nanosPerIteration) / COST_STEP * COST_STEP;
+        return (int) Math.max(floor, Math.min(MAX_ITERATIONS, cost));
+    }
+
+    /**
+     * Feed one hash's timing into the calibration
+     */
+    private void observe(int cost, long nanos) {
+        double nanosPerIteration = (double) nanos / cost;
+        synchronized (this) {
+            if (nanosPerIteration >= bestNanosPerIteration) {
+                return;
+            }
+            bestNanosPerIteration = nanosPerIteration;
+            if (!calibrating) {
+                return;
+            }
+            requestIterations = costFor(targetNanos, nanosPerIteration, MIN_REQUEST_ITERATIONS);
+            int next = costFor(targetNanos, nanosPerIteration, MIN_ITERATIONS);
+            if (next != iterations) {
+                iterations = next;
+                logger.info("Password hash cost now {} iterations (~{}ms per hash)",
+                            next, Math.round(next * nanosPerIteration / 1_000_000));
+            }
+        }
+    }
+
+    /**
+     * Hash a password with a new random salt
+     * @param password Plain-text password
+     * @return Encoded hash
+     */
+    public String hash(String password) {
+        int cost = iterations;
+        long hashStart = Metrics.start();
+        try {
+            return encode(password, cost);
+        } finally {
+            Metrics.record(Phase.PASSWORD_HASH, hashStart);
+        }
+    }
+
+    /**
+     * Hash a password for a single write on the request path, at the cost
+     * that takes about the target time. Below one full vCPU that is under
+     * MIN_ITERATIONS, and needsRehash() then asks for a full-cost hash at the
+     * next successful verify. With a fixed PASSWORD_HASH_ITERATIONS this is
+     * the same as hash().
+     * @param password Plain-text password
+     * @return Encoded hash
+     */
+    public String hashForRequest(String password) {
+        int cost = requestIterations;
+        long hashStart = Metrics.start();
+        try {
+            return encode(password, cost);
+        } finally {
+            Metrics.record(Phase.PASSWORD_HASH, hashStart);
+        }
+    }
+
+    /**
+     * How many passwords hashAll can hash in the given time, from the fastest
+     * hash seen so far. Optimistic: it assumes every worker thread gets a
+     * full CPU, which a function under 1,769 MB per thread does not.
+     * @param millis Time available
+     * @return Password count, or Integer.MAX_VALUE before the first hash
+     */
+    public int capacity(long millis) {
+        double nanosPerIteration;
+        synchronized (this) {
+            nanosPerIteration = bestNanosPerIteration;
+        }
+        if (nanosPerIteration == Double.MAX_VALUE || millis == Long.MAX_VALUE) {
+            return Integer.MAX_VALUE;
+        }
+        double nanosPerHash = iterations * nanosPerIteration;
+        return (int) Math.min(Integer.MAX_VALUE, (long) (millis * 1_000_000L / nanosPerHash) * threads);
+    }
+
+    /**
+     * Hash many passwords in parallel on the worker pool
+     * @param passwords Plain-text passwords
+     * @return Encoded hashes in the same order
+     */
+    public List<String> hashAll(List<String> passwords) {
+        try {
+            return hashAll(passwords, Long.MAX_VALUE);
+        } catch (TimeoutException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Hash many passwords in parallel on the worker pool, giving up once the
+     * time is spent. Each worker checks the time before every hash, so this
+     * overruns by at most one hash.
+     * @param passwords Plain-text passwords
+     * @param timeoutMillis Time allowed, or Long.MAX_VALUE for no limit
+     * @return Encoded hashes in the same order
+     * @throws TimeoutException if the time ran out; the message says how many were hashed
+     */
+    public List<String> hashAll(List<String> passwords, long timeoutMillis) throws TimeoutException {
+        int cost = iterations;
+        long stopAt = timeoutMillis == Long.MAX_VALUE ? Long.MAX_VALUE : System.nanoTime() + timeoutMillis * 1_000_000L;
+        AtomicInteger hashed = new AtomicInteger();
+        long hashStart = Metrics.start();
+        try {
+            int chunks = Math.min(threads, passwords.size());
+            if (chunks <= 1) {
+                return hashChunk(passwords, cost, stopAt, hashed, passwords.size());
+            }
+
+            ExecutorService executor = pool();
+            int chunkSize = (passwords.size() + chunks - 1) / chunks;
+            List<Future<List<String>>> futures = new ArrayList<>(chunks);
+            for (int start = 0; start < passwords.size(); start += chunkSize) {
+                List<String> chunk = passwords.subList(start, Math.min(passwords.size(), start + chunkSize));
+                futures.add(executor.submit(() -> hashChunk(chunk, cost, stopAt, hashed, passwords.size())));
+            }
+
+            List<String> hashes = new ArrayList<>(passwords.size());
+            try {
+                for (Future<List<String>> future : futures) {
+                    hashes.addAll(future.get());
+                }
+            } finally {
+                for (Future<List<String>> future : futures) {
+                    future.cancel(true);
+                }
+            }
+            return hashes;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while hashing passwords", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof TimeoutException) {
+                throw (TimeoutException) e.getCause();
+            }
+            throw new IllegalStateException("Password hashing failed", e.getCause());
+        } finally {
+            Metrics.record(Phase.PASSWORD_HASH, hashStart);
+        }
+    }
+
+    /**
+     * Check a password against a stored value in constant time. A mismatch
+     * against a value cheaper than the current cost (a request-path hash or
+     * legacy plain text) is padded to a full-cost hash.
+     * @param password Plain-text password
+     * @param stored Encoded hash, or a legacy plain-text password
+     * @return true if they match
+     */
+    public boolean verify(String password, String stored) {
+        if (password == null || stored == null) {
+            return false;
+        }
+        long hashStart = Metrics.start();
+        try {
+            if (!stored.startsWith(PREFIX)) {
+                return padMismatch(MessageDigest.isEqual(password.getBytes(StandardCharsets.UTF_8),
+                                                         stored.getBytes(StandardCharsets.UTF_8)), password, 0);
+            }
+            String[] parts = stored.split("\\$");
+            if (parts.length != 4) {
+                return false;
+            }
+            int cost;
+            byte[] salt;
+            byte[] expected;
+            try {
+                cost = Integer.parseInt(parts[1]);
+                salt = Base64.getDecoder().decode(parts[2]);
+                expected = Base64.getDecoder().decode(parts[3]);
+            } catch (IllegalArgumentException e) {
+                return false;
+            }
+            if (cost <= 0 || cost > MAX_ITERATIONS) {
+                return false;
+            }
+            return padMismatch(MessageDigest.isEqual(timedDerive(password, salt, cost), expected), password, cost);
+        } finally {
+            Metrics.record(Phase.PASSWORD_HASH, hashStart);
+        }
+    }
+
+    /**
+     * Whether a stored value should be replaced after a successful verify:
+     * legacy plain text, or a cost under the minimum or under half the
+     * current one. The slack stops containers with slightly different
+     * calibrations from rehashing each other's hashes.
+     * @param stored Encoded hash or legacy plain text
+     * @return true if the password should be hashed again
+     */
+    public boolean needsRehash(String stored) {
+        if (stored == null || !stored.startsWith(PREFIX)) {
+            return true;
+        }
+        String[] parts = stored.split("\\$");
+        try {
+            int cost = Integer.parseInt(parts[1]);
+            return cost < MIN_ITERATIONS || cost < iterations / 2;
+        } catch (RuntimeException e) {
+            return true;
+        }
+    }
+
+    /**
+     * Spend the rest of a full-cost hash after a failed check that cost less
+     */
+    private boolean padMismatch(boolean matched, String password, int spent) {
+        int cost = iterations;
+        if (!matched && spent < cost) {
+            timedDerive(password, new byte[SALT_BYTES], cost - spent);
+        }
+        return matched;
+    }
+
+    private List<String> hashChunk(List<String> chunk, int cost, long stopAt, AtomicInteger hashed, int total)
+            throws TimeoutException {
+        List<String> hashes = new ArrayList<>(chunk.size());
+        for (String password : chunk) {
+            if (stopAt != Long.MAX_VALUE && System.nanoTime() - stopAt > 0) {
+                throw new TimeoutException("Hashed " + hashed.get() + " of " + total + " passwords before the time ran out");
+            }
+            hashes.add(encode(password, cost));
+            hashed.incrementAndGet();
+        }
+        return hashes;
+    }
+
+    private synchronized ExecutorService pool() {
+        if (pool == null) {
+            pool = Executors.newFixedThreadPool(threads, runnable -> {
+                Thread thread = new Thread(runnable, "password-hasher");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        return pool;
+    }
+
+    private String encode(String password, int cost) {
+        byte[] salt = new byte[SALT_BYTES];
+        RANDOM.nextBytes(salt);
+        Base64.Encoder base64 = Base64.getEncoder().withoutPadding();
+        return PREFIX + cost + "$" + base64.encodeToString(salt) + "$" +
+               base64.encodeToString(timedDerive(password, salt, cost));
+    }
+
+    private byte[] timedDerive(String password, byte[] salt, int cost) {
+        long start = System.nanoTime();
+        byte[] derived = derive(password, salt, cost);
+        observe(cost, System.nanoTime() - start);
+        return derived;
+    }
+
+    private static byte[] derive(String password, byte[] salt, int cost) {
+        PBEKeySpec spec = new PBEKeySpec(password.toCharArray(), salt, cost, HASH_BITS);
+        try {
+            return SecretKeyFactory.getInstance(ALGORITHM).generateSecret(spec).getEncoded();
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(ALGORITHM + " unavailable", e);
+        } finally {
+            spec.clearPassword();
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package com.example.lambda.util;
+
+import com.example.lambda.metrics.Counter;
+import com.example.lambda.metrics.Metrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Consecutive-failure circuit breaker, kept across warm invocations.
+ *
+ * CLOSED lets every call through and opens after failureThreshold failures
+ * in a row. OPEN refuses calls until openMs has passed, so requests fail in
+ * microseconds instead of each waiting out a timeout against a database
+ * that is down. After that it is HALF_OPEN: one trial call goes through and
+ * its outcome closes or reopens the circuit. If the trial reports nothing
+ * (e.g. it only borrowed an idle connection), another is let through after
+ * a further openMs.
+ */
+public class CircuitBreaker {
+    private static final Logger logger = LoggerFactory.getLogger(CircuitBreaker.class);
+
+    public enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    private final String name;
+    private final int failureThreshold;
+    private final long openNanos;
+
+    // Guarded by this
+    private State state = State.CLOSED;
+    private int consecutiveFailures;
+    private long retryAt;
+
+    /**
+     * @param name Name used in log lines
+     * @param failureThreshold Consecutive failures that open the circuit; 0 disables the breaker
+     * @param openMs Time refused before a trial call
+     */
+    public CircuitBreaker(String name, int failureThreshold, long openMs) {
+        this.name = name;
+        this.failureThreshold = Math.max(0, failureThreshold);
+        this.openNanos = TimeUnit.MILLISECONDS.toNanos(openMs);
+    }
+
+    /**
+     * Ask to make a call
+     * @return true if the call may go ahead
+     */
+    public synchronized boolean allow() {
+        if (state == State.CLOSED) {
+            return true;
+        }
+        long now = System.nanoTime();
+        if (now - retryAt < 0) {
+            return false;
+        }
+        if (state == State.OPEN) {
+            state = State.HALF_OPEN;
+            logger.info("Circuit {} half-open, letting a trial call through", name);
+        }
+        retryAt = now + openNanos;
+        return true;
+    }
+
+    /**
+     * Report a call that reached a working database
+     */
+    public synchronized void onSuccess() {
+        consecutiveFailures = 0;
+        if (state != State.CLOSED) {
+            state = State.CLOSED;
+            logger.info("Circuit {} closed", name);
+        }
+    }
+
+    /**
+     * Report a call that failed because the database was unreachable or failing
+     */
+    public synchronized void onFailure() {
+        if (failureThreshold == 0) {
+            return;
+        }
+        consecutiveFailures++;
+        if (state == State.HALF_OPEN || (state == State.CLOSED && consecutiveFailures >= failureThreshold)) {
+            state = State.OPEN;
+            retryAt = System.nanoTime() + openNanos;
+            Metrics.increment(Counter.DB_CIRCUIT_OPENED);
+            logger.warn("Circuit {} open after {} consecutive failures; refusing calls for {}ms",
+                        name, consecutiveFailures, TimeUnit.NANOSECONDS.toMillis(openNanos));
+        }
+    }
+
+    /**
+     * @return Milliseconds until a trial call will be let through, 0 if calls are allowed now
+     */
+    public synchronized long getRetryAfterMillis() {
+        if (state == State.CLOSED) {
+            return 0;
+        }
+        return Math.max(0, TimeUnit.NANOSECONDS.toMillis(retryAt - System.nanoTime()));
+    }
+
+    /**
+     * @return Current state
+     */
+    public synchronized State getState() {
+        return state;
+    }
+
+    /**
+     * Close the circuit and forget failures, e.g. after a snapshot restore
+     */
+    public synchronized void reset() {
+        state = State.CLOSED;
+        consecutiveFailures = 0;
+    }
+}
@@ -0,0 +1,24 @@
+package com.example.lambda.util;
+
+import java.sql.SQLTransientConnectionException;
+
+/**
+ * Thrown instead of opening a connection while the database circuit is open
+ */
+public class CircuitOpenException extends SQLTransientConnectionException {
+    private static final long serialVersionUID = 1L;
+
+    private final long retryAfterMillis;
+
+    public CircuitOpenException(long retryAfterMillis) {
+        super("Database circuit is open; retry in " + retryAfterMillis + "ms", "08000");
+        this.retryAfterMillis = retryAfterMillis;
+    }
+
+    /**
+     * @return Milliseconds until the breaker lets a trial call through
+     */
+    public long getRetryAfterMillis() {
+        return retryAfterMillis;
+    }
+}
@@ -0,0 +1,591 @@
+package com.example.lambda.util;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Small bounded JDBC connection pool that keeps physical connections alive
+ * across warm Lambda invocations.
+ *
+ * Connections handed out are proxies; calling close() returns the physical
+ * connection to the pool instead of closing it, so DAO code keeps using
+ * try-with-resources unchanged.
+ *
+ * Each physical connection also keeps a small LRU cache of prepared
+ * statements keyed by SQL text. prepareStatement() on a pooled connection
+ * returns a cached statement when one is idle, and closing the statement
+ * clears its parameters and puts it back, so the same SQL is only prepared
+ * once per connection across warm invocations. Cached statements are closed
+ * with their connection.
+ */
+public class ConnectionPool {
+    private static final Logger logger = LoggerFactory.getLogger(ConnectionPool.class);
+
+    private static final int VALIDATION_TIMEOUT_SECONDS = 2;
+
+    private final String url;
+    private final String user;
+    private final String password;
+    private final int maxSize;
+    private final long maxLifetimeNanos;
+    private final long validationIntervalNanos;
+    private final long leakThresholdNanos;
+    private final long acquireTimeoutNanos;
+    private final int statementCacheSize;
+
+    private final Deque<Entry> idle = new ArrayDeque<>();
+    private final Set<Entry> inUse = new HashSet<>();
+    private int total;
+    private boolean closed;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong validationFailures = new AtomicLong();
+    private final AtomicLong expired = new AtomicLong();
+    private final AtomicLong leaks = new AtomicLong();
+    private final AtomicLong acquireCount = new AtomicLong();
+    private final AtomicLong acquireNanos = new AtomicLong();
+    private final AtomicLong maxAcquireNanos = new AtomicLong();
+    private final AtomicLong releaseCount = new AtomicLong();
+    private final AtomicLong releaseNanos = new AtomicLong();
+    private final AtomicLong statementHits = new AtomicLong();
+    private final AtomicLong statementMisses = new AtomicLong();
+    private final AtomicLong statementEvictions = new AtomicLong();
+
+    public ConnectionPool(String url, String user, String password, int maxSize,
+                          long maxLifetimeMs, long validationIntervalMs,
+                          long leakThresholdMs, long acquireTimeoutMs, int statementCacheSize) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("Pool size must be positive");
+        }
+        this.url = url;
+        this.user = user;
+        this.password = password;
+        this.maxSize = maxSize;
+        this.maxLifetimeNanos = TimeUnit.MILLISECONDS.toNanos(maxLifetimeMs);
+        this.validationIntervalNanos = TimeUnit.MILLISECONDS.toNanos(validationIntervalMs);
+        this.leakThresholdNanos = TimeUnit.MILLISECONDS.toNanos(leakThresholdMs);
+        this.acquireTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(acquireTimeoutMs);
+        this.statementCacheSize = Math.max(0, statementCacheSize);
+    }
+
+    /**
+     * Borrow a connection, reusing an idle one when possible
+     * @return Logical connection; close() returns it to the pool
+     * @throws SQLException if no connection could be obtained
+     */
+    public Connection acquire() throws SQLException {
+        long start = System.nanoTime();
+        Entry entry = null;
+        boolean create = false;
+        // Never wait past the invocation deadline
+        long deadline = start + Math.min(acquireTimeoutNanos,
+                TimeUnit.MILLISECONDS.toNanos(Deadline.remainingMillis()));
+
+        while (entry == null && !create) {
+            Entry candidate = null;
+            synchronized (this) {
+                detectLeaks(System.nanoTime());
+                while (candidate == null && !create) {
+                    if (closed) {
+                        throw new SQLException("Connection pool is closed");
+                    }
+                    candidate = idle.pollFirst();
+                    if (candidate == null) {
+                        if (total < maxSize) {
+                            total++;
+                            create = true;
+                        } else {
+                            long remaining = deadline - System.nanoTime();
+                            if (remaining <= 0) {
+                                throw new SQLException("Timed out waiting for a pooled connection (max size " + maxSize + ")");
+                            }
+                            try {
+                                TimeUnit.NANOSECONDS.timedWait(this, remaining);
+                            } catch (InterruptedException e) {
+                                Thread.currentThread().interrupt();
+                                throw new SQLException("Interrupted while waiting for a pooled connection", e);
+                            }
+                        }
+                    }
+                }
+            }
+
+            // Validate outside the monitor: isValid is a round trip, and a
+            // half-open socket must not block other acquires and releases
+            if (candidate != null) {
+                if (isUsable(candidate)) {
+                    entry = candidate;
+                } else {
+                    synchronized (this) {
+                        total--;
+                        notifyAll();
+                    }
+                    closeQuietly(candidate.connection);
+                }
+            }
+        }
+
+        if (create) {
+            try {
+                entry = new Entry(DriverManager.getConnection(url, user, password));
+            } catch (SQLException | RuntimeException e) {
+                synchronized (this) {
+                    total--;
+                    notifyAll();
+                }
+                throw e;
+            }
+            misses.incrementAndGet();
+            logger.debug("Opened new pooled connection ({} total)", total);
+        } else {
+            hits.incrementAndGet();
+        }
+
+        entry.checkedOutAt = System.nanoTime();
+        entry.leakReported = false;
+        synchronized (this) {
+            inUse.add(entry);
+        }
+
+        long elapsed = System.nanoTime() - start;
+        acquireCount.incrementAndGet();
+        acquireNanos.addAndGet(elapsed);
+        maxAcquireNanos.accumulateAndGet(elapsed, Math::max);
+        return entry.newHandle();
+    }
+
+    /**
+     * Return a physical connection to the pool
+     */
+    private void release(Entry entry) {
+        long start = System.nanoTime();
+        boolean healthy = resetState(entry);
+
+        synchronized (this) {
+            inUse.remove(entry);
+            if (!healthy || closed || isExpired(entry, start)) {
+                discard(entry);
+            } else {
+                entry.lastUsedAt = start;
+                idle.addFirst(entry);
+            }
+            notifyAll();
+        }
+
+        releaseCount.incrementAndGet();
+        releaseNanos.addAndGet(System.nanoTime() - start);
+    }
+
+    /**
+     * Roll back any open transaction and restore defaults so the next borrower
+     * sees a clean connection
+     * @return false if the physical connection is no longer usable
+     */
+    private boolean resetState(Entry entry) {
+        try {
+            Connection conn = entry.connection;
+            if (conn.isClosed()) {
+                return false;
+            }
+            if (!conn.getAutoCommit()) {
+                conn.rollback();
+                conn.setAutoCommit(true);
+            }
+            if (conn.isReadOnly()) {
+                conn.setReadOnly(false);
+            }
+            return true;
+        } catch (SQLException e) {
+            logger.warn("Discarding pooled connection after reset failure: {}", e.getMessage());
+            return false;
+        }
+    }
+
+    private boolean isUsable(Entry entry) {
+        long now = System.nanoTime();
+        if (isExpired(entry, now)) {
+            expired.incrementAndGet();
+            return false;
+        }
+        if (now - entry.lastUsedAt >= validationIntervalNanos) {
+            try {
+                if (!entry.connection.isValid(VALIDATION_TIMEOUT_SECONDS)) {
+                    validationFailures.incrementAndGet();
+                    return false;
+                }
+            } catch (SQLException e) {
+                validationFailures.incrementAndGet();
+                return false;
+            }
+            entry.lastUsedAt = now;
+        }
+        return true;
+    }
+
+    private boolean isExpired(Entry entry, long now) {
+        return maxLifetimeNanos > 0 && now - entry.createdAt >= maxLifetimeNanos;
+    }
+
+    private void detectLeaks(long now) {
+        if (leakThresholdNanos <= 0) {
+            return;
+        }
+        for (Entry entry : inUse) {
+            if (!entry.leakReported && now - entry.checkedOutAt >= leakThresholdNanos) {
+                entry.leakReported = true;
+                leaks.incrementAndGet();
+                logger.warn("Possible connection leak: connection held for {}ms by {}",
+                        TimeUnit.NANOSECONDS.toMillis(now - entry.checkedOutAt), entry.checkedOutBy);
+            }
+        }
+    }
+
+    private void discard(Entry entry) {
+        total--;
+        closeQuietly(entry.connection);
+    }
+
+    /**
+     * Close all idle connections; borrowed connections are closed when returned
+     */
+    public synchronized void close() {
+        closed = true;
+        Entry entry;
+        while ((entry = idle.pollFirst()) != null) {
+            discard(entry);
+        }
+        notifyAll();
+    }
+
+    /**
+     * Close all idle connections but keep the pool usable, e.g. before a
+     * snapshot or when the network may have changed
+     */
+    public synchronized void evictIdle() {
+        Entry entry;
+        while ((entry = idle.pollFirst()) != null) {
+            discard(entry);
+        }
+        notifyAll();
+    }
+
+    /**
+     * Snapshot of pool counters
+     * @return Current statistics
+     */
+    public PoolStats getStats() {
+        int idleCount;
+        int inUseCount;
+        int totalCount;
+        synchronized (this) {
+            idleCount = idle.size();
+            inUseCount = inUse.size();
+            totalCount = total;
+        }
+        return new PoolStats(totalCount, idleCount, inUseCount, maxSize,
+                hits.get(), misses.get(), validationFailures.get(), expired.get(), leaks.get(),
+                acquireCount.get(), acquireNanos.get(), maxAcquireNanos.get(),
+                releaseCount.get(), releaseNanos.get(),
+                statementHits.get(), statementMisses.get(), statementEvictions.get());
+    }
+
+    private static void closeQuietly(Connection connection) {
+        try {
+            connection.close();
+        } catch (SQLException e) {
+            logger.debug("Error closing pooled connection: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Physical connection plus pool bookkeeping
+     */
+    private final class Entry {
+        final Connection connection;
+        // Idle prepared statements by cache key, least recently used first;
+        // only touched by the thread that has the connection checked out
+        final Map<String, PreparedStatement> statements = new LinkedHashMap<>(16, 0.75f, true);
+        final long createdAt;
+        volatile long lastUsedAt;
+        volatile long checkedOutAt;
+        volatile String checkedOutBy;
+        volatile boolean leakReported;
+
+        Entry(Connection connection) {
+            this.connection = connection;
+            this.createdAt = System.nanoTime();
+            this.lastUsedAt = createdAt;
+        }
+
+        Connection newHandle() {
+            checkedOutBy = Thread.currentThread().getName();
+            return (Connection) Proxy.newProxyInstance(
+                    Connection.class.getClassLoader(),
+                    new Class<?>[]{Connection.class},
+                    new Handle(this));
+        }
+    }
+
+    /**
+     * Logical connection handed to callers; close() releases to the pool once
+     */
+    private final class Handle implements InvocationHandler {
+        private final Entry entry;
+        private boolean released;
+
+        Handle(Entry entry) {
+            this.entry = entry;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    if (!released) {
+                        released = true;
+                        release(entry);
+                    }
+                    return null;
+                case "isClosed":
+                    return released || entry.connection.isClosed();
+                case "unwrap":
+                case "isWrapperFor":
+                    break;
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "PooledConnection[" + entry.connection + "]";
+                case "prepareStatement":
+                    if (released) {
+                        throw new SQLException("Connection has been returned to the pool");
+                    }
+                    String key = statementCacheSize > 0 ? statementKey(args) : null;
+                    if (key != null) {
+                        return prepareCached((Connection) proxy, key, method, args);
+                    }
+                    break;
+                default:
+                    if (released) {
+                        throw new SQLException("Connection has been returned to the pool");
+                    }
+            }
+            try {
+                return method.invoke(entry.connection, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+
+        private PreparedStatement prepareCached(Connection proxy, String key, Method method, Object[] args)
+                throws Throwable {
+            PreparedStatement statement = entry.statements.remove(key);
+            if (statement != null && !statement.isClosed()) {
+                statementHits.incrementAndGet();
+            } else {
+                try {
+                    statement = (PreparedStatement) method.invoke(entry.connection, args);
+                } catch (InvocationTargetException e) {
+                    throw e.getCause();
+                }
+                statementMisses.incrementAndGet();
+            }
+            return (PreparedStatement) Proxy.newProxyInstance(
+                    PreparedStatement.class.getClassLoader(),
+                    new Class<?>[]{PreparedStatement.class},
+                    new StatementHandle(this, proxy, key, statement));
+        }
+
+        /**
+         * Put a statement back in the connection's cache, evicting the least
+         * recently used one if full
+         */
+        void returnStatement(String key, PreparedStatement statement) {
+            if (released) {
+                // Closed after its connection; another borrower may own the cache now
+                closeQuietly(statement);
+                return;
+            }
+            PreparedStatement previous = entry.statements.put(key, statement);
+            if (previous != null) {
+                closeQuietly(previous);
+            }
+            Iterator<PreparedStatement> eldest = entry.statements.values().iterator();
+            while (entry.statements.size() > statementCacheSize) {
+                closeQuietly(eldest.next());
+                eldest.remove();
+                statementEvictions.incrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * Cache key for prepareStatement arguments, or null for variants that are
+     * not cached (column index/name lists, holdability)
+     */
+    private static String statementKey(Object[] args) {
+        String sql = (String) args[0];
+        switch (args.length) {
+            case 1:
+                return sql;
+            case 2:
+                return args[1] instanceof Integer && (Integer) args[1] == Statement.RETURN_GENERATED_KEYS
+                        ? "keys:" + sql : null;
+            case 3:
+                return "type:" + args[1] + ":" + args[2] + ":" + sql;
+            default:
+                return null;
+        }
+    }
+
+    private static void closeQuietly(Statement statement) {
+        try {
+            statement.close();
+        } catch (SQLException e) {
+            logger.debug("Error closing cached statement: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Logical prepared statement handed to callers; close() resets it and
+     * returns it to the connection's cache. Fetch size, max rows and query
+     * timeout changes are undone on return; other settings changes make the
+     * statement uncacheable.
+     */
+    private static final class StatementHandle implements InvocationHandler {
+        private final Handle connection;
+        private final Connection connectionProxy;
+        private final String key;
+        private final PreparedStatement statement;
+        private boolean closed;
+        private boolean batched;
+        private boolean reusable = true;
+        private Integer fetchSize;
+        private Integer maxRows;
+        private Integer queryTimeout;
+
+        StatementHandle(Handle connection, Connection connectionProxy, String key, PreparedStatement statement) {
+            this.connection = connection;
+            this.connectionProxy = connectionProxy;
+            this.key = key;
+            this.statement = statement;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    if (!closed) {
+                        closed = true;
+                        release();
+                    }
+                    return null;
+                case "isClosed":
+                    return closed || statement.isClosed();
+                case "getConnection":
+                    return connectionProxy;
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "CachedStatement[" + statement + "]";
+                default:
+                    if (closed) {
+                        throw new SQLException("Statement is closed");
+                    }
+                    track(method.getName());
+            }
+            try {
+                return method.invoke(statement, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+
+        /**
+         * Remember original values before the caller changes settings
+         */
+        private void track(String name) throws SQLException {
+            switch (name) {
+                case "addBatch":
+                    batched = true;
+                    break;
+                case "setFetchSize":
+                    if (fetchSize == null) {
+                        fetchSize = statement.getFetchSize();
+                    }
+                    break;
+                case "setMaxRows":
+                    if (maxRows == null) {
+                        maxRows = statement.getMaxRows();
+                    }
+                    break;
+                case "setQueryTimeout":
+                    if (queryTimeout == null) {
+                        queryTimeout = statement.getQueryTimeout();
+                    }
+                    break;
+                case "setFetchDirection":
+                case "setMaxFieldSize":
+                case "setLargeMaxRows":
+                case "setEscapeProcessing":
+                case "setCursorName":
+                case "setPoolable":
+                case "closeOnCompletion":
+                    reusable = false;
+                    break;
+                default:
+                    break;
+            }
+        }
+
+        private void release() {
+            try {
+                if (!reusable || statement.isClosed()) {
+                    closeQuietly(statement);
+                    return;
+                }
+                if (batched) {
+                    statement.clearBatch();
+                }
+                statement.clearParameters();
+                statement.clearWarnings();
+                if (fetchSize != null) {
+                    statement.setFetchSize(fetchSize);
+                }
+                if (maxRows != null) {
+                    statement.setMaxRows(maxRows);
+                }
+                if (queryTimeout != null) {
+                    statement.setQueryTimeout(queryTimeout);
+                }
+                connection.returnStatement(key, statement);
+            } catch (SQLException e) {
+                logger.debug("Not caching statement after reset failure: {}", e.getMessage());
+                closeQuietly(statement);
+            }
+        }
+    }
+}
@@ -1,67 +1,736 @@
 package com.example.lambda.util;
 
+import com.example.lambda.metrics.Counter;
+import com.example.lambda.metrics.Metrics;
+import com.example.lambda.metrics.Phase;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import java.sql.Connection;
-import java.sql.DriverManager;
 import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.SQLNonTransientConnectionException;
+import java.sql.SQLRecoverableException;
+import java.sql.SQLTimeoutException;
+import java.sql.SQLTransientConnectionException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Database connection utility class
+ *
+ * Connections come from a small static pool that is created on first use and
+ * kept alive across warm invocations, so the TCP/TLS/auth handshake is only
+ * paid on a cold start or when a connection is recycled.
+ *
+ * Every database call is bounded by the invocation deadline (Deadline) less
+ * DB_DEADLINE_MARGIN_MS, so a slow database produces an error response
+ * instead of a Lambda timeout: a connection's network timeout is set on
+ * each checkout, and UserDao sets each statement's query timeout through
+ * applyQueryTimeout(). Outcomes feed a circuit breaker shared by all
+ * invocations in the container; while it is open getConnection() throws
+ * CircuitOpenException without touching the network. read() retries
+ * idempotent reads after transient connection failures, with jittered
+ * exponential backoff.
+ *
+ * With DB_REPLICA_URLS set, reads take their connection from
+ * getReadConnection(), which picks a read replica round-robin or by lowest
+ * observed read latency (DB_REPLICA_ROUTING). Each replica has its own pool
+ * and circuit breaker. A read that fails on a replica is retried on another,
+ * and reads go to the primary when no replica is available. Writes always
+ * use getConnection(), and once a request has taken a primary connection
+ * its later reads stay on the primary, so the request reads its own writes
+ * despite replication lag. Handlers bracket requests with
+ * beginRequest()/endRequest().
  */
 public class Db {
     private static final Logger logger = LoggerFactory.getLogger(Db.class);
-    
+
     private static final String DB_URL_ENV = "DB_URL";
     private static final String DB_USER_ENV = "DB_USER";
     private static final String DB_PASSWORD_ENV = "DB_PASSWORD";
-    
+
+    // Pool tuning
+    private static final String POOL_MAX_SIZE_ENV = "DB_POOL_MAX_SIZE";
+    private static final String POOL_MAX_LIFETIME_MS_ENV = "DB_POOL_MAX_LIFETIME_MS";
+    private static final String POOL_VALIDATION_INTERVAL_MS_ENV = "DB_POOL_VALIDATION_INTERVAL_MS";
+    private static final String POOL_LEAK_THRESHOLD_MS_ENV = "DB_POOL_LEAK_THRESHOLD_MS";
+    private static final String POOL_ACQUIRE_TIMEOUT_MS_ENV = "DB_POOL_ACQUIRE_TIMEOUT_MS";
+    private static final String STATEMENT_CACHE_SIZE_ENV = "DB_STATEMENT_CACHE_SIZE";
+
+    // Timeouts, retries and circuit breaker
+    private static final String CONNECT_TIMEOUT_MS_ENV = "DB_CONNECT_TIMEOUT_MS";
+    private static final String SOCKET_TIMEOUT_MS_ENV = "DB_SOCKET_TIMEOUT_MS";
+    private static final String QUERY_TIMEOUT_MS_ENV = "DB_QUERY_TIMEOUT_MS";
+    private static final String DEADLINE_MARGIN_MS_ENV = "DB_DEADLINE_MARGIN_MS";
+    private static final String READ_RETRIES_ENV = "DB_READ_RETRIES";
+    private static final String RETRY_BASE_MS_ENV = "DB_RETRY_BASE_MS";
+    private static final String RETRY_MAX_MS_ENV = "DB_RETRY_MAX_MS";
+    private static final String BREAKER_FAILURE_THRESHOLD_ENV = "DB_BREAKER_FAILURE_THRESHOLD";
+    private static final String BREAKER_OPEN_MS_ENV = "DB_BREAKER_OPEN_MS";
+
+    // Read replicas
+    private static final String REPLICA_URLS_ENV = "DB_REPLICA_URLS";
+    private static final String REPLICA_USER_ENV = "DB_REPLICA_USER";
+    private static final String REPLICA_PASSWORD_ENV = "DB_REPLICA_PASSWORD";
+    private static final String REPLICA_ROUTING_ENV = "DB_REPLICA_ROUTING";
+
     // Default values for local development
     private static final String DEFAULT_DB_URL = "jdbc:mysql://ai-game.cfkuy6mi4nng.ap-southeast-2.rds.amazonaws.com:3306/ai-game?useSSL=true&serverTimezone=UTC&characterEncoding=utf8";
     private static final String DEFAULT_DB_USER = "chenghao";
-    
+
+    // A Lambda container serves one request at a time, so a couple of
+    // connections is enough; recycle well before MySQL's wait_timeout
+    private static final int DEFAULT_POOL_MAX_SIZE = 2;
+    private static final long DEFAULT_POOL_MAX_LIFETIME_MS = 10 * 60 * 1000L;
+    private static final long DEFAULT_POOL_VALIDATION_INTERVAL_MS = 30 * 1000L;
+    private static final long DEFAULT_POOL_LEAK_THRESHOLD_MS = 10 * 1000L;
+    private static final long DEFAULT_POOL_ACQUIRE_TIMEOUT_MS = 5 * 1000L;
+    // Prepared statements kept per connection; UserDao uses about 25 distinct SQL texts
+    private static final int DEFAULT_STATEMENT_CACHE_SIZE = 64;
+    // Well inside the 30s function timeout; the invocation deadline usually binds first
+    private static final long DEFAULT_CONNECT_TIMEOUT_MS = 3 * 1000L;
+    private static final long DEFAULT_SOCKET_TIMEOUT_MS = 20 * 1000L;
+    private static final long DEFAULT_QUERY_TIMEOUT_MS = 10 * 1000L;
+    private static final long DEFAULT_DEADLINE_MARGIN_MS = 500L;
+
+    private static final long SOCKET_TIMEOUT_MS = Env.getLong(SOCKET_TIMEOUT_MS_ENV, DEFAULT_SOCKET_TIMEOUT_MS);
+    private static final long QUERY_TIMEOUT_MS = Env.getLong(QUERY_TIMEOUT_MS_ENV, DEFAULT_QUERY_TIMEOUT_MS);
+    private static final long DEADLINE_MARGIN_MS = Env.getLong(DEADLINE_MARGIN_MS_ENV, DEFAULT_DEADLINE_MARGIN_MS);
+    private static final int READ_RETRIES = Env.getInt(READ_RETRIES_ENV, 2);
+    private static final long RETRY_BASE_MS = Env.getLong(RETRY_BASE_MS_ENV, 50L);
+    private static final long RETRY_MAX_MS = Env.getLong(RETRY_MAX_MS_ENV, 1000L);
+
+    private static final int BREAKER_FAILURE_THRESHOLD = Env.getInt(BREAKER_FAILURE_THRESHOLD_ENV, 5);
+    private static final long BREAKER_OPEN_MS = Env.getLong(BREAKER_OPEN_MS_ENV, 10 * 1000L);
+
+    private static final boolean LEAST_LATENCY = parseRouting(Env.get(REPLICA_ROUTING_ENV, "round-robin"));
+    // With least-latency routing, one read in this many goes round-robin so
+    // every replica's latency keeps being measured
+    private static final int EXPLORE_INTERVAL = 16;
+
+    private static volatile boolean networkTimeoutSupported = true;
+
+    /**
+     * Where connections come from: the primary or a read replica, each with
+     * its own pool and circuit breaker
+     */
+    private static final class Source {
+        final String name;
+        final ConnectionPool pool;
+        final CircuitBreaker breaker;
+        final boolean replica;
+        // Moving average of successful read() time, 0 until the first one
+        volatile long readNanos;
+
+        Source(String name, ConnectionPool pool, boolean replica) {
+            this.name = name;
+            this.pool = pool;
+            this.breaker = new CircuitBreaker(name, BREAKER_FAILURE_THRESHOLD, BREAKER_OPEN_MS);
+            this.replica = replica;
+        }
+
+        void observeRead(long nanos) {
+            long average = readNanos;
+            readNanos = average == 0 ? nanos : average + (nanos - average) / 4;
+        }
+    }
+
+    private static volatile Source primary;
+    // null until first needed; empty when there are no replicas
+    private static volatile Source[] replicas;
+    private static final AtomicInteger nextReplica = new AtomicInteger();
+
+    // Source of the current thread's most recent connection, for outcome reporting
+    private static final ThreadLocal<Source> active = new ThreadLocal<>();
+    // Set once the current request has used a primary connection
+    private static final ThreadLocal<Boolean> pinned = new ThreadLocal<>();
+    // Replica a failed read() attempt used, skipped by the retry
+    private static final ThreadLocal<Source> avoided = new ThreadLocal<>();
+
     /**
-     * Get database connection from environment variables
+     * Get a pooled connection to the primary; close() returns it to the pool.
+     * Later reads in the same request also go to the primary.
      * @return Connection object
      * @throws SQLException if connection fails
      */
     public static Connection getConnection() throws SQLException {
+        long budget = checkBudget();
+        pinned.set(Boolean.TRUE);
+        return connect(permitPrimary(), budget);
+    }
+
+    /**
+     * Get a pooled connection for a read: from a replica when one is
+     * configured and available and this request has not written, otherwise
+     * from the primary
+     * @return Connection object
+     * @throws SQLException if connection fails
+     */
+    public static Connection getReadConnection() throws SQLException {
+        long budget = checkBudget();
+        Source[] current = getReplicas();
+        if (current.length > 0 && pinned.get() == null) {
+            Source replica = chooseReplica(current);
+            if (replica != null) {
+                Metrics.increment(Counter.DB_REPLICA_READ);
+                return connect(replica, budget);
+            }
+            Metrics.increment(Counter.DB_REPLICA_FALLBACK);
+        }
+        return connect(permitPrimary(), budget);
+    }
+
+    /**
+     * Start a request on the current thread: forget which database it used
+     */
+    public static void beginRequest() {
+        pinned.remove();
+    }
+
+    /**
+     * End the current thread's request
+     */
+    public static void endRequest() {
+        pinned.remove();
+        active.remove();
+    }
+
+    /**
+     * @return Whether the current thread's request has used the primary
+     */
+    static boolean isPrimaryPinned() {
+        return pinned.get() != null;
+    }
+
+    /**
+     * Whether the current thread's most recent connection is to the primary.
+     * Only rows read there may fill a cache: a replica can be behind by
+     * replication lag, and a cached copy would outlive it.
+     */
+    public static boolean isOnPrimary() {
+        Source source = active.get();
+        return source != null && !source.replica;
+    }
+
+    /**
+     * Adopt another thread's read-your-writes state
+     */
+    static void setPrimaryPinned(boolean primaryPinned) {
+        if (primaryPinned) {
+            pinned.set(Boolean.TRUE);
+        } else {
+            pinned.remove();
+        }
+    }
+
+    private static long checkBudget() throws SQLTimeoutException {
+        long budget = budgetMillis();
+        if (budget <= 0) {
+            Metrics.increment(Counter.DB_TIMEOUT);
+            throw new SQLTimeoutException("Invocation deadline reached before connecting");
+        }
+        return budget;
+    }
+
+    private static Source permitPrimary() throws SQLException {
+        Source source = getPrimary();
+        if (!source.breaker.allow()) {
+            Metrics.increment(Counter.DB_REJECTED);
+            throw new CircuitOpenException(source.breaker.getRetryAfterMillis());
+        }
+        return source;
+    }
+
+    /**
+     * Pick a replica whose circuit lets the call through, skipping the one a
+     * failed attempt of this read used
+     * @return Replica, or null if none is available
+     */
+    private static Source chooseReplica(Source[] current) {
+        Source avoid = avoided.get();
+        int ticket = nextReplica.getAndIncrement() & Integer.MAX_VALUE;
+        Source[] order = new Source[current.length];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = current[(ticket + i) % order.length];
+        }
+        if (LEAST_LATENCY && ticket % EXPLORE_INTERVAL != 0) {
+            // Stable, so equally fast replicas still take turns
+            Arrays.sort(order, Comparator.comparingLong((Source source) -> source.readNanos));
+        }
+        for (Source source : order) {
+            if (source != avoid && source.breaker.allow()) {
+                return source;
+            }
+        }
+        return null;
+    }
+
+    private static Connection connect(Source source, long budget) throws SQLException {
+        active.set(source);
+        long acquireStart = Metrics.start();
+        Connection connection;
+        try {
+            connection = source.pool.acquire();
+        } catch (SQLException e) {
+            logger.error("Failed to connect to {}: {}", source.name, e.getMessage());
+            recordFailure(e);
+            throw e;
+        } finally {
+            Metrics.record(Phase.CONNECTION_ACQUIRE, acquireStart);
+        }
+        applyNetworkTimeout(connection, budget);
+        return connection;
+    }
+
+    private static boolean parseRouting(String value) {
+        switch (value.trim().toLowerCase()) {
+            case "least-latency":
+                return true;
+            case "round-robin":
+                return false;
+            default:
+                logger.warn("Unknown DB_REPLICA_ROUTING '{}', using round-robin", value);
+                return false;
+        }
+    }
+
+    /**
+     * Milliseconds a database call may still take: the invocation's remaining
+     * time less DB_DEADLINE_MARGIN_MS, or Long.MAX_VALUE outside an invocation
+     */
+    private static long budgetMillis() {
+        long remaining = Deadline.remainingMillis();
+        return remaining == Long.MAX_VALUE ? remaining : remaining - DEADLINE_MARGIN_MS;
+    }
+
+    /**
+     * Bound blocking socket reads on a borrowed connection, so a database
+     * that stops answering cannot hold the invocation past its deadline
+     */
+    private static void applyNetworkTimeout(Connection connection, long budget) throws SQLException {
+        if (!networkTimeoutSupported) {
+            return;
+        }
+        long timeoutMs = SOCKET_TIMEOUT_MS > 0 ? Math.min(SOCKET_TIMEOUT_MS, budget) : budget;
+        try {
+            // Always set: the connection may carry a tighter timeout from an earlier invocation
+            connection.setNetworkTimeout(Runnable::run,
+                    timeoutMs == Long.MAX_VALUE ? 0 : (int) Math.min(Integer.MAX_VALUE, timeoutMs));
+        } catch (SQLFeatureNotSupportedException e) {
+            networkTimeoutSupported = false;
+            logger.info("Driver does not support network timeouts; relying on query timeouts");
+        } catch (SQLException e) {
+            connection.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Set a statement's query timeout to DB_QUERY_TIMEOUT_MS or the time left
+     * in the invocation, whichever is less (0 disables the fixed cap). JDBC timeouts are whole seconds,
+     * so the deadline bound is rounded down, to at least one second.
+     * @param statement Statement about to be executed
+     * @throws SQLTimeoutException if the invocation deadline has already been reached
+     * @throws SQLException if the driver rejects the timeout
+     */
+    public static void applyQueryTimeout(Statement statement) throws SQLException {
+        long budget = budgetMillis();
+        if (budget <= 0) {
+            Metrics.increment(Counter.DB_TIMEOUT);
+            throw new SQLTimeoutException("Invocation deadline reached before executing");
+        }
+        long timeoutMs = QUERY_TIMEOUT_MS > 0 ? Math.min(QUERY_TIMEOUT_MS, budget) : budget;
+        if (timeoutMs != Long.MAX_VALUE) {
+            statement.setQueryTimeout((int) Math.max(1, Math.min(Integer.MAX_VALUE, timeoutMs / 1000)));
+        }
+    }
+
+    /**
+     * Report a statement that completed on the current thread's connection,
+     * closing its circuit if it was half-open
+     */
+    public static void recordSuccess() {
+        Source source = active.get();
+        if (source != null) {
+            source.breaker.onSuccess();
+        }
+    }
+
+    /**
+     * Report a failed database call; only failures that mean the database is
+     * unreachable or not responding count towards opening the circuit
+     * @param e Failure
+     */
+    public static void recordFailure(SQLException e) {
+        if (e instanceof CircuitOpenException || !isUnavailable(e)) {
+            return;
+        }
+        Metrics.increment(e instanceof SQLTimeoutException ? Counter.DB_TIMEOUT : Counter.DB_FAILURE);
+        Source source = active.get();
+        if (source != null) {
+            source.breaker.onFailure();
+        }
+    }
+
+    /**
+     * Whether a failure means the database is unreachable, timed out or
+     * refusing calls, as opposed to rejecting this particular statement
+     * (constraint violations, bad data, syntax)
+     * @param e Failure
+     * @return true for timeouts, connection failures and an open circuit
+     */
+    public static boolean isUnavailable(SQLException e) {
+        for (Throwable t = e; t instanceof SQLException; t = t.getCause()) {
+            SQLException sql = (SQLException) t;
+            if (sql instanceof SQLTimeoutException
+                    || sql instanceof SQLTransientConnectionException
+                    || sql instanceof SQLNonTransientConnectionException
+                    || sql instanceof SQLRecoverableException
+                    || (sql.getSQLState() != null && sql.getSQLState().startsWith("08"))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * A read-only database call that is safe to repeat
+     */
+    @FunctionalInterface
+    public interface Query<T> {
+        T run() throws SQLException;
+    }
+
+    /**
+     * Run an idempotent read, retrying up to DB_READ_RETRIES times after a
+     * connection failure. Each retry waits a random time up to
+     * DB_RETRY_BASE_MS doubled per attempt (capped at DB_RETRY_MAX_MS), so
+     * containers that failed together do not retry together. Timeouts and an
+     * open circuit are not retried, nor is any failure once the backoff would
+     * run past the invocation deadline. A retry avoids the replica that failed.
+     * @param query Read to run; must open its own connection with getReadConnection()
+     * @return Query result
+     * @throws SQLException the last failure if the read does not succeed
+     */
+    public static <T> T read(Query<T> query) throws SQLException {
+        try {
+            for (int attempt = 0; ; attempt++) {
+                active.remove();
+                long start = System.nanoTime();
+                try {
+                    T result = query.run();
+                    Source source = active.get();
+                    if (source != null && source.replica) {
+                        source.observeRead(System.nanoTime() - start);
+                    }
+                    return result;
+                } catch (SQLException e) {
+                    if (attempt >= READ_RETRIES || !isRetryable(e)) {
+                        throw e;
+                    }
+                    long backoff = ThreadLocalRandom.current().nextLong(
+                            Math.min(RETRY_MAX_MS, RETRY_BASE_MS << Math.min(attempt, 20)) + 1);
+                    if (budgetMillis() <= backoff) {
+                        throw e;
+                    }
+                    avoided.set(active.get());
+                    Metrics.increment(Counter.DB_RETRY);
+                    logger.warn("Retrying read in {}ms after: {}", backoff, e.getMessage());
+                    try {
+                        Thread.sleep(backoff);
+                    } catch (InterruptedException interrupted) {
+                        Thread.currentThread().interrupt();
+                        throw e;
+                    }
+                }
+            }
+        } finally {
+            avoided.remove();
+        }
+    }
+
+    private static boolean isRetryable(SQLException e) {
+        return isUnavailable(e) && !(e instanceof SQLTimeoutException) && !(e instanceof CircuitOpenException);
+    }
+
+    /**
+     * @return State of the primary's circuit breaker
+     */
+    public static CircuitBreaker.State getCircuitState() {
+        Source current = primary;
+        return current == null ? CircuitBreaker.State.CLOSED : current.breaker.getState();
+    }
+
+    /**
+     * Close every circuit and forget recent failures, e.g. after a snapshot
+     * restore
+     */
+    public static void resetCircuit() {
+        Source current = primary;
+        if (current != null) {
+            current.breaker.reset();
+        }
+        Source[] currentReplicas = replicas;
+        if (currentReplicas != null) {
+            for (Source replica : currentReplicas) {
+                replica.breaker.reset();
+            }
+        }
+    }
+
+    /**
+     * Get the primary, creating its pool from environment variables on first use
+     * @return Primary source
+     * @throws SQLException if required configuration is missing
+     */
+    private static Source getPrimary() throws SQLException {
+        Source current = primary;
+        if (current != null) {
+            return current;
+        }
+        synchronized (Db.class) {
+            if (primary == null) {
+                primary = createPrimary();
+            }
+            return primary;
+        }
+    }
+
+    private static Source createPrimary() throws SQLException {
         String dbUrl = System.getenv(DB_URL_ENV);
         String dbUser = System.getenv(DB_USER_ENV);
         String dbPassword = System.getenv(DB_PASSWORD_ENV);
-        
+
         // Use default values if environment variables are not set
         if (dbUrl == null || dbUrl.isEmpty()) {
             dbUrl = DEFAULT_DB_URL;
             logger.info("Using default DB_URL: {}", dbUrl);
         }
-        
+
         if (dbUser == null || dbUser.isEmpty()) {
             dbUser = DEFAULT_DB_USER;
             logger.info("Using default DB_USER: {}", dbUser);
         }
-        
+
         if (dbPassword == null || dbPassword.isEmpty()) {
             throw new SQLException("DB_PASSWORD environment variable is required");
         }
-        
-        try {
-            logger.debug("Connecting to database: {} with user: {}", dbUrl, dbUser);
-            Connection connection = DriverManager.getConnection(dbUrl, dbUser, dbPassword);
-            logger.debug("Database connection established successfully");
-            return connection;
-        } catch (SQLException e) {
-            logger.error("Failed to connect to database: {}", e.getMessage());
-            throw e;
+
+        return new Source("primary", newPool(dbUrl, dbUser, dbPassword), false);
+    }
+
+    /**
+     * Get the read replicas, creating their pools from environment variables
+     * on first use
+     * @return Replicas, empty if none are configured
+     */
+    private static Source[] getReplicas() {
+        Source[] current = replicas;
+        if (current != null) {
+            return current;
         }
+        synchronized (Db.class) {
+            if (replicas == null) {
+                replicas = createReplicas();
+            }
+            return replicas;
+        }
+    }
+
+    private static Source[] createReplicas() {
+        String urls = Env.get(REPLICA_URLS_ENV, "");
+        if (urls.isBlank()) {
+            return new Source[0];
+        }
+        String user = Env.get(REPLICA_USER_ENV, Env.get(DB_USER_ENV, DEFAULT_DB_USER));
+        String password = Env.get(REPLICA_PASSWORD_ENV, Env.get(DB_PASSWORD_ENV, ""));
+        List<String> list = new ArrayList<>();
+        for (String url : urls.split(",")) {
+            if (!url.isBlank()) {
+                list.add(url.trim());
+            }
+        }
+        return newReplicas(list, user, password);
     }
-    
+
+    private static Source[] newReplicas(List<String> urls, String user, String password) {
+        Source[] created = new Source[urls.size()];
+        for (int i = 0; i < created.length; i++) {
+            created[i] = new Source("replica-" + (i + 1), newPool(urls.get(i), user, password), true);
+        }
+        return created;
+    }
+
+    private static ConnectionPool newPool(String dbUrl, String dbUser, String dbPassword) {
+        int statementCacheSize = Env.getInt(STATEMENT_CACHE_SIZE_ENV, DEFAULT_STATEMENT_CACHE_SIZE);
+        if (dbUrl.startsWith("jdbc:mysql:")) {
+            // Let the driver collapse JDBC batches into multi-row INSERTs
+            dbUrl = withDefaultProperty(dbUrl, "rewriteBatchedStatements", "true");
+            // Let a list page and its total go out as one multi-statement round
+            // trip (UserDao); every statement is parameterised, and such SQL is
+            // prepared client-side even with useServerPrepStmts
+            dbUrl = withDefaultProperty(dbUrl, "allowMultiQueries", "true");
+            // Honour positive fetch sizes with server-side cursors (used by streaming export)
+            dbUrl = withDefaultProperty(dbUrl, "useCursorFetch", "true");
+            if (statementCacheSize > 0) {
+                // Prepare on the server, so a cached statement skips parsing entirely on reuse
+                dbUrl = withDefaultProperty(dbUrl, "useServerPrepStmts", "true");
+            }
+            // Bound the handshake and blocking reads; each checkout tightens the
+            // read timeout to the invocation deadline
+            dbUrl = withDefaultProperty(dbUrl, "connectTimeout",
+                    String.valueOf(Env.getLong(CONNECT_TIMEOUT_MS_ENV, DEFAULT_CONNECT_TIMEOUT_MS)));
+            dbUrl = withDefaultProperty(dbUrl, "socketTimeout", String.valueOf(SOCKET_TIMEOUT_MS));
+        }
+
+        int maxSize = Env.getInt(POOL_MAX_SIZE_ENV, DEFAULT_POOL_MAX_SIZE);
+        logger.info("Creating connection pool for {} with user: {}, max size: {}", dbUrl, dbUser, maxSize);
+        return new ConnectionPool(dbUrl, dbUser, dbPassword, maxSize,
+                Env.getLong(POOL_MAX_LIFETIME_MS_ENV, DEFAULT_POOL_MAX_LIFETIME_MS),
+                Env.getLong(POOL_VALIDATION_INTERVAL_MS_ENV, DEFAULT_POOL_VALIDATION_INTERVAL_MS),
+                Env.getLong(POOL_LEAK_THRESHOLD_MS_ENV, DEFAULT_POOL_LEAK_THRESHOLD_MS),
+                Env.getLong(POOL_ACQUIRE_TIMEOUT_MS_ENV, DEFAULT_POOL_ACQUIRE_TIMEOUT_MS),
+                statementCacheSize);
+    }
+
+    /**
+     * Point Db at an explicit database instead of the environment, e.g. an
+     * embedded database for local harnesses and benchmarks. Replaces any
+     * existing pools and removes the read replicas.
+     * @param dbUrl JDBC URL
+     * @param dbUser Database user
+     * @param dbPassword Database password
+     */
+    public static void configure(String dbUrl, String dbUser, String dbPassword) {
+        synchronized (Db.class) {
+            shutdown();
+            primary = new Source("primary", newPool(dbUrl, dbUser, dbPassword), false);
+            replicas = new Source[0];
+        }
+    }
+
+    /**
+     * Route reads to explicit replicas instead of DB_REPLICA_URLS, replacing
+     * any existing ones
+     * @param urls JDBC URLs of the replicas, empty to send reads to the primary
+     * @param user Database user
+     * @param password Database password
+     */
+    public static void configureReplicas(List<String> urls, String user, String password) {
+        synchronized (Db.class) {
+            closeReplicas();
+            replicas = newReplicas(urls, user, password);
+        }
+    }
+
+    /**
+     * Whether a connection runs several ;-separated statements in one round
+     * trip: MySQL with allowMultiQueries, which newPool turns on by default
+     * @param connection Connection from getConnection() or getReadConnection()
+     * @return true if multi-statement SQL may be sent on it
+     * @throws SQLException if the connection metadata is unavailable
+     */
+    public static boolean allowsMultiStatements(Connection connection) throws SQLException {
+        String url = connection.getMetaData().getURL();
+        return url != null && url.startsWith("jdbc:mysql:") && url.contains("allowMultiQueries=true");
+    }
+
+    /**
+     * Append a JDBC URL property unless the URL already sets it
+     * @param url JDBC URL
+     * @param name Property name
+     * @param value Property value
+     * @return URL with the property present
+     */
+    static String withDefaultProperty(String url, String name, String value) {
+        int query = url.indexOf('?');
+        if (query >= 0) {
+            for (String param : url.substring(query + 1).split("&")) {
+                if (param.startsWith(name + "=")) {
+                    return url;
+                }
+            }
+            return url + "&" + name + "=" + value;
+        }
+        return url + "?" + name + "=" + value;
+    }
+
+    /**
+     * Get primary pool counters (hits, misses, acquire/release latency)
+     * @return Stats snapshot, or null if the pool has not been created yet
+     */
+    public static PoolStats getPoolStats() {
+        Source current = primary;
+        return current == null ? null : current.pool.getStats();
+    }
+
+    /**
+     * Get replica pool counters, in DB_REPLICA_URLS order
+     * @return Stats snapshots, empty if there are no replicas or they have not been created yet
+     */
+    public static List<PoolStats> getReplicaPoolStats() {
+        Source[] current = replicas;
+        List<PoolStats> stats = new ArrayList<>();
+        if (current != null) {
+            for (Source replica : current) {
+                stats.add(replica.pool.getStats());
+            }
+        }
+        return stats;
+    }
+
+    /**
+     * Close idle pooled connections but keep the pools, e.g. before a
+     * checkpoint; connections are reopened on demand
+     */
+    public static void evictIdle() {
+        Source current = primary;
+        if (current != null) {
+            current.pool.evictIdle();
+        }
+        Source[] currentReplicas = replicas;
+        if (currentReplicas != null) {
+            for (Source replica : currentReplicas) {
+                replica.pool.evictIdle();
+            }
+        }
+    }
+
+    /**
+     * Close idle pooled connections and drop the pools; the next
+     * connection request creates fresh ones from the environment
+     */
+    public static void shutdown() {
+        synchronized (Db.class) {
+            if (primary != null) {
+                primary.pool.close();
+                primary = null;
+            }
+            closeReplicas();
+        }
+    }
+
+    private static void closeReplicas() {
+        if (replicas != null) {
+            for (Source replica : replicas) {
+                replica.pool.close();
+            }
+            replicas = null;
+        }
+    }
+
     /**
      * Test database connection
      * @return true if connection successful, false otherwise
      */
     public static boolean testConnection() {
-        try (Connection connection = getConnection()) {
+        try {
+            getConnection().close();
             logger.info("Database connection test successful");
             return true;
         } catch (SQLException e) {
@@ -0,0 +1,65 @@
+package com.example.lambda.util;
+
+import com.amazonaws.services.lambda.runtime.Context;
+
+/**
+ * The current invocation's deadline, from Context.getRemainingTimeInMillis().
+ *
+ * handleRequest sets it with begin() and clears it with end(); FanOut carries
+ * it to the threads running a request's concurrent calls. Outside an
+ * invocation, or when there is no Context (local harnesses, benchmarks),
+ * there is no deadline.
+ */
+public final class Deadline {
+    private static final ThreadLocal<Long> current = new ThreadLocal<>();
+
+    private Deadline() {}
+
+    /**
+     * Start the deadline for the invocation on the current thread
+     * @param context Lambda context, or null for no deadline
+     */
+    public static void begin(Context context) {
+        if (context == null) {
+            current.remove();
+        } else {
+            current.set(System.nanoTime() + context.getRemainingTimeInMillis() * 1_000_000L);
+        }
+    }
+
+    /**
+     * Clear the current thread's deadline
+     */
+    public static void end() {
+        current.remove();
+    }
+
+    /**
+     * @return Milliseconds until the deadline, never negative; Long.MAX_VALUE if there is none
+     */
+    public static long remainingMillis() {
+        Long deadline = current.get();
+        if (deadline == null) {
+            return Long.MAX_VALUE;
+        }
+        return Math.max(0, (deadline - System.nanoTime()) / 1_000_000L);
+    }
+
+    /**
+     * @return Deadline as a System.nanoTime() value, or null if there is none
+     */
+    static Long get() {
+        return current.get();
+    }
+
+    /**
+     * Adopt another thread's deadline, or clear it with null
+     */
+    static void set(Long deadlineNanos) {
+        if (deadlineNanos == null) {
+            current.remove();
+        } else {
+            current.set(deadlineNanos);
+        }
+    }
+}
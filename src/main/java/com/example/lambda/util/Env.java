@@ -0,0 +1,79 @@
+package com.example.lambda.util;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Environment variable helpers with defaults for optional tuning settings
+ */
+public final class Env {
+    private static final Logger logger = LoggerFactory.getLogger(Env.class);
+
+    private Env() {}
+
+    /**
+     * Get a string environment variable
+     * @param name Variable name
+     * @param defaultValue Value used when the variable is unset or empty
+     * @return Variable value or default
+     */
+    public static String get(String name, String defaultValue) {
+        String value = System.getenv(name);
+        if (value == null || value.isEmpty()) {
+            return defaultValue;
+        }
+        return value;
+    }
+
+    /**
+     * Get an integer environment variable
+     * @param name Variable name
+     * @param defaultValue Value used when the variable is unset or invalid
+     * @return Parsed value or default
+     */
+    public static int getInt(String name, int defaultValue) {
+        String value = System.getenv(name);
+        if (value == null || value.isEmpty()) {
+            return defaultValue;
+        }
+        try {
+            return Integer.parseInt(value.trim());
+        } catch (NumberFormatException e) {
+            logger.warn("Invalid integer for {}: '{}', using default {}", name, value, defaultValue);
+            return defaultValue;
+        }
+    }
+
+    /**
+     * Get a long environment variable
+     * @param name Variable name
+     * @param defaultValue Value used when the variable is unset or invalid
+     * @return Parsed value or default
+     */
+    public static long getLong(String name, long defaultValue) {
+        String value = System.getenv(name);
+        if (value == null || value.isEmpty()) {
+            return defaultValue;
+        }
+        try {
+            return Long.parseLong(value.trim());
+        } catch (NumberFormatException e) {
+            logger.warn("Invalid number for {}: '{}', using default {}", name, value, defaultValue);
+            return defaultValue;
+        }
+    }
+
+    /**
+     * Get a boolean environment variable ("true"/"false", case-insensitive)
+     * @param name Variable name
+     * @param defaultValue Value used when the variable is unset
+     * @return Parsed value or default
+     */
+    public static boolean getBoolean(String name, boolean defaultValue) {
+        String value = System.getenv(name);
+        if (value == null || value.isEmpty()) {
+            return defaultValue;
+        }
+        return Boolean.parseBoolean(value.trim());
+    }
+}
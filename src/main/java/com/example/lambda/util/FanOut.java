@@ -0,0 +1,140 @@
+package com.example.lambda.util;
+
+import com.example.lambda.metrics.Metrics;
+
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Runs independent DAO calls of one request concurrently, so their round
+ * trips overlap instead of adding up.
+ *
+ * Each call runs on its own virtual thread, so a call blocked on a round
+ * trip holds no platform thread. Each call gets FANOUT_CALL_TIMEOUT_MS, cut
+ * short so that FANOUT_DEADLINE_MARGIN_MS of the invocation (Deadline) is
+ * left to build a response. A call still running at its timeout is cancelled: its thread is
+ * interrupted, which ends a wait for a pooled connection, while a statement
+ * already executing runs until the driver returns. Each call's phase timings
+ * are added to the request's metrics when it is collected, and each call
+ * reads from the primary if the request has already written (Db).
+ *
+ * With FANOUT_ENABLED=false calls run inline on the caller's thread.
+ */
+public final class FanOut {
+    private static final boolean ENABLED = Env.getBoolean("FANOUT_ENABLED", true);
+    private static final long CALL_TIMEOUT_MS = Env.getLong("FANOUT_CALL_TIMEOUT_MS", 10_000L);
+    private static final long DEADLINE_MARGIN_MS = Env.getLong("FANOUT_DEADLINE_MARGIN_MS", 500L);
+
+    private static final ExecutorService executor = ENABLED ? Executors.newVirtualThreadPerTaskExecutor() : null;
+
+    private FanOut() {}
+
+    /**
+     * A DAO call to run concurrently
+     */
+    @FunctionalInterface
+    public interface Task<T> {
+        T call() throws SQLException;
+    }
+
+    /**
+     * A call started by submit()
+     */
+    public static final class Call<T> {
+        private final Future<T> future;
+        private final Metrics.Branch branch;
+        private final long deadlineNanos;
+
+        private Call(Future<T> future, Metrics.Branch branch, long deadlineNanos) {
+            this.future = future;
+            this.branch = branch;
+            this.deadlineNanos = deadlineNanos;
+        }
+
+        /**
+         * Wait for the result until the call's timeout, cancelling it if that passes
+         * @return Task result
+         * @throws SQLTimeoutException if the call timed out
+         * @throws SQLException if the task failed
+         */
+        public T get() throws SQLException {
+            try {
+                T result = future.get(Math.max(0, deadlineNanos - System.nanoTime()), TimeUnit.NANOSECONDS);
+                Metrics.join(branch);
+                return result;
+            } catch (TimeoutException | CancellationException e) {
+                future.cancel(true);
+                throw new SQLTimeoutException("Call did not finish before its deadline");
+            } catch (InterruptedException e) {
+                future.cancel(true);
+                Thread.currentThread().interrupt();
+                throw new SQLException("Interrupted while waiting for a call", e);
+            } catch (ExecutionException e) {
+                Metrics.join(branch);
+                Throwable cause = e.getCause();
+                if (cause instanceof SQLException) {
+                    throw (SQLException) cause;
+                }
+                if (cause instanceof RuntimeException) {
+                    throw (RuntimeException) cause;
+                }
+                if (cause instanceof Error) {
+                    throw (Error) cause;
+                }
+                throw new SQLException(cause);
+            }
+        }
+
+        /**
+         * Cancel the call if it has not finished, e.g. when a sibling call failed
+         */
+        public void cancel() {
+            future.cancel(true);
+        }
+    }
+
+    /**
+     * @return Whether calls run concurrently
+     */
+    public static boolean isEnabled() {
+        return ENABLED;
+    }
+
+    /**
+     * Start a call
+     * @param task DAO call
+     * @return Handle to collect the result with
+     */
+    public static <T> Call<T> submit(Task<T> task) {
+        long timeoutMs = Math.min(CALL_TIMEOUT_MS, Deadline.remainingMillis() - DEADLINE_MARGIN_MS);
+        long deadlineNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(Math.max(0, timeoutMs));
+        Metrics.Branch branch = Metrics.branch();
+        Long requestDeadline = Deadline.get();
+        boolean primaryPinned = Db.isPrimaryPinned();
+
+        if (!ENABLED) {
+            FutureTask<T> inline = new FutureTask<>(() -> branch.run(task::call));
+            inline.run();
+            return new Call<>(inline, branch, deadlineNanos);
+        }
+        Future<T> future = executor.submit(() -> {
+            Deadline.set(requestDeadline);
+            Db.setPrimaryPinned(primaryPinned);
+            try {
+                return branch.run(task::call);
+            } finally {
+                Deadline.set(null);
+                Db.endRequest();
+            }
+        });
+        return new Call<>(future, branch, deadlineNanos);
+    }
+}
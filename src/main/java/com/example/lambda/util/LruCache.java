@@ -0,0 +1,150 @@
+package com.example.lambda.util;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded, TTL-based LRU cache for warm-container reuse.
+ *
+ * Entries expire after a fixed time-to-live from when they were written; the
+ * least recently used entry is evicted once the size bound is reached.
+ */
+public class LruCache<K, V> {
+    private final int maxSize;
+    private final long ttlNanos;
+    private final LinkedHashMap<K, Entry<V>> map;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final AtomicLong expirations = new AtomicLong();
+
+    private static final class Entry<V> {
+        final V value;
+        final long expiresAt;
+
+        Entry(V value, long expiresAt) {
+            this.value = value;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    /**
+     * @param maxSize Maximum number of entries; 0 disables caching
+     * @param ttlMs Time-to-live of each entry in milliseconds
+     */
+    public LruCache(int maxSize, long ttlMs) {
+        this.maxSize = Math.max(0, maxSize);
+        this.ttlNanos = TimeUnit.MILLISECONDS.toNanos(ttlMs);
+        this.map = new LinkedHashMap<>(16, 0.75f, true);
+    }
+
+    public boolean isEnabled() {
+        return maxSize > 0 && ttlNanos > 0;
+    }
+
+    /**
+     * Look up a live entry
+     * @param key Cache key
+     * @return Cached value, or null if absent or expired
+     */
+    public V get(K key) {
+        if (!isEnabled()) {
+            return null;
+        }
+        synchronized (this) {
+            Entry<V> entry = map.get(key);
+            if (entry == null) {
+                misses.incrementAndGet();
+                return null;
+            }
+            if (System.nanoTime() - entry.expiresAt >= 0) {
+                map.remove(key);
+                expirations.incrementAndGet();
+                misses.incrementAndGet();
+                return null;
+            }
+            hits.incrementAndGet();
+            return entry.value;
+        }
+    }
+
+    /**
+     * Insert or replace an entry, evicting the least recently used if full
+     * @param key Cache key
+     * @param value Value to cache
+     */
+    public void put(K key, V value) {
+        if (!isEnabled() || value == null) {
+            return;
+        }
+        synchronized (this) {
+            map.put(key, new Entry<>(value, System.nanoTime() + ttlNanos));
+            if (map.size() > maxSize) {
+                Iterator<Map.Entry<K, Entry<V>>> it = map.entrySet().iterator();
+                while (map.size() > maxSize && it.hasNext()) {
+                    it.next();
+                    it.remove();
+                    evictions.incrementAndGet();
+                }
+            }
+        }
+    }
+
+    /**
+     * Replace the value of a live entry, keeping its expiry, e.g. to apply a
+     * local write to a cached row without extending the life of its other
+     * fields
+     * @param key Cache key
+     * @param value New value
+     * @return false if there was no live entry, in which case nothing is cached
+     */
+    public boolean replace(K key, V value) {
+        if (!isEnabled() || value == null) {
+            return false;
+        }
+        synchronized (this) {
+            Entry<V> entry = map.get(key);
+            if (entry == null || System.nanoTime() - entry.expiresAt >= 0) {
+                return false;
+            }
+            map.put(key, new Entry<>(value, entry.expiresAt));
+            return true;
+        }
+    }
+
+    /**
+     * Remove an entry
+     * @param key Cache key
+     */
+    public void invalidate(K key) {
+        if (!isEnabled()) {
+            return;
+        }
+        synchronized (this) {
+            map.remove(key);
+        }
+    }
+
+    /**
+     * Remove all entries
+     */
+    public synchronized void clear() {
+        map.clear();
+    }
+
+    public synchronized int size() {
+        return map.size();
+    }
+
+    /**
+     * Snapshot of cache counters
+     * @return Current statistics
+     */
+    public CacheStats getStats() {
+        return new CacheStats(size(), maxSize, hits.get(), misses.get(), evictions.get(), expirations.get());
+    }
+}
@@ -0,0 +1,88 @@
+package com.example.lambda.util;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Opaque keyset pagination cursor.
+ *
+ * A cursor points either after or before a user id and is encoded as a
+ * URL-safe base64 token so clients treat it as opaque.
+ */
+public final class PageCursor {
+    private static final String AFTER_PREFIX = "a:";
+    private static final String BEFORE_PREFIX = "b:";
+
+    private final int id;
+    private final boolean before;
+
+    private PageCursor(int id, boolean before) {
+        this.id = id;
+        this.before = before;
+    }
+
+    /**
+     * Cursor for the page following the given id
+     */
+    public static PageCursor after(int id) {
+        return new PageCursor(id, false);
+    }
+
+    /**
+     * Cursor for the page preceding the given id
+     */
+    public static PageCursor before(int id) {
+        return new PageCursor(id, true);
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public boolean isBefore() {
+        return before;
+    }
+
+    /**
+     * Encode as an opaque token
+     * @return URL-safe token
+     */
+    public String encode() {
+        String raw = (before ? BEFORE_PREFIX : AFTER_PREFIX) + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    /**
+     * Decode a token produced by {@link #encode()}
+     * @param token Cursor token
+     * @return Decoded cursor
+     * @throws IllegalArgumentException if the token is malformed
+     */
+    public static PageCursor decode(String token) {
+        String raw;
+        try {
+            raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.US_ASCII);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid cursor", e);
+        }
+
+        boolean before;
+        if (raw.startsWith(AFTER_PREFIX)) {
+            before = false;
+        } else if (raw.startsWith(BEFORE_PREFIX)) {
+            before = true;
+        } else {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+
+        try {
+            int id = Integer.parseInt(raw.substring(2));
+            if (id < 0) {
+                throw new IllegalArgumentException("Invalid cursor");
+            }
+            return new PageCursor(id, before);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid cursor", e);
+        }
+    }
+}
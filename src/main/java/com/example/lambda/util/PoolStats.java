@@ -0,0 +1,166 @@
+package com.example.lambda.util;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Immutable snapshot of connection pool counters
+ */
+public class PoolStats {
+    private final int total;
+    private final int idle;
+    private final int inUse;
+    private final int maxSize;
+    private final long hits;
+    private final long misses;
+    private final long validationFailures;
+    private final long expired;
+    private final long leaks;
+    private final long acquireCount;
+    private final long acquireNanos;
+    private final long maxAcquireNanos;
+    private final long releaseCount;
+    private final long releaseNanos;
+    private final long statementHits;
+    private final long statementMisses;
+    private final long statementEvictions;
+
+    public PoolStats(int total, int idle, int inUse, int maxSize,
+                     long hits, long misses, long validationFailures, long expired, long leaks,
+                     long acquireCount, long acquireNanos, long maxAcquireNanos,
+                     long releaseCount, long releaseNanos,
+                     long statementHits, long statementMisses, long statementEvictions) {
+        this.total = total;
+        this.idle = idle;
+        this.inUse = inUse;
+        this.maxSize = maxSize;
+        this.hits = hits;
+        this.misses = misses;
+        this.validationFailures = validationFailures;
+        this.expired = expired;
+        this.leaks = leaks;
+        this.acquireCount = acquireCount;
+        this.acquireNanos = acquireNanos;
+        this.maxAcquireNanos = maxAcquireNanos;
+        this.releaseCount = releaseCount;
+        this.releaseNanos = releaseNanos;
+        this.statementHits = statementHits;
+        this.statementMisses = statementMisses;
+        this.statementEvictions = statementEvictions;
+    }
+
+    public int getTotal() {
+        return total;
+    }
+
+    public int getIdle() {
+        return idle;
+    }
+
+    public int getInUse() {
+        return inUse;
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    public long getHits() {
+        return hits;
+    }
+
+    public long getMisses() {
+        return misses;
+    }
+
+    public long getValidationFailures() {
+        return validationFailures;
+    }
+
+    public long getExpired() {
+        return expired;
+    }
+
+    public long getLeaks() {
+        return leaks;
+    }
+
+    public long getAcquireCount() {
+        return acquireCount;
+    }
+
+    public double getAvgAcquireMicros() {
+        return acquireCount == 0 ? 0 : acquireNanos / 1000.0 / acquireCount;
+    }
+
+    public double getMaxAcquireMicros() {
+        return maxAcquireNanos / 1000.0;
+    }
+
+    public long getReleaseCount() {
+        return releaseCount;
+    }
+
+    public double getAvgReleaseMicros() {
+        return releaseCount == 0 ? 0 : releaseNanos / 1000.0 / releaseCount;
+    }
+
+    public double getHitRatio() {
+        long lookups = hits + misses;
+        return lookups == 0 ? 0 : (double) hits / lookups;
+    }
+
+    /**
+     * @return prepareStatement calls served from a connection's statement cache
+     */
+    public long getStatementHits() {
+        return statementHits;
+    }
+
+    /**
+     * @return prepareStatement calls that prepared a new statement
+     */
+    public long getStatementMisses() {
+        return statementMisses;
+    }
+
+    public long getStatementEvictions() {
+        return statementEvictions;
+    }
+
+    public double getStatementHitRatio() {
+        long lookups = statementHits + statementMisses;
+        return lookups == 0 ? 0 : (double) statementHits / lookups;
+    }
+
+    /**
+     * Flatten to a map for logging or JSON output
+     * @return Ordered map of counters
+     */
+    public Map<String, Object> toMap() {
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("total", total);
+        map.put("idle", idle);
+        map.put("inUse", inUse);
+        map.put("maxSize", maxSize);
+        map.put("hits", hits);
+        map.put("misses", misses);
+        map.put("hitRatio", getHitRatio());
+        map.put("validationFailures", validationFailures);
+        map.put("expired", expired);
+        map.put("leaks", leaks);
+        map.put("avgAcquireMicros", getAvgAcquireMicros());
+        map.put("maxAcquireMicros", getMaxAcquireMicros());
+        map.put("avgReleaseMicros", getAvgReleaseMicros());
+        map.put("statementHits", statementHits);
+        map.put("statementMisses", statementMisses);
+        map.put("statementHitRatio", getStatementHitRatio());
+        map.put("statementEvictions", statementEvictions);
+        return map;
+    }
+
+    @Override
+    public String toString() {
+        return "PoolStats" + toMap();
+    }
+}
@@ -0,0 +1,106 @@
+package com.example.lambda.dao;
+
+import com.example.lambda.model.Projection;
+import com.example.lambda.model.User;
+import com.example.lambda.util.Db;
+import com.example.lambda.util.LruCache;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Pages with their total on one connection. H2 has no multi-statements, so
+ * this covers the two-statement path; MySQL sends both in one round trip.
+ */
+class ListWithTotalTest {
+    private static final String URL = "jdbc:h2:mem:list-total-test;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1";
+    private static final int USERS = 25;
+
+    private static UserDao userDao;
+
+    @BeforeAll
+    static void createDatabase() throws SQLException {
+        try (Connection conn = DriverManager.getConnection(URL, "sa", "");
+             Statement stmt = conn.createStatement()) {
+            stmt.execute("CREATE TABLE users (" +
+                         "id INT AUTO_INCREMENT PRIMARY KEY, " +
+                         "username VARCHAR(255) NOT NULL, " +
+                         "email VARCHAR(255) NOT NULL, " +
+                         "password VARCHAR(255) NOT NULL, " +
+                         "score INT DEFAULT 0, " +
+                         "wallet_address VARCHAR(255), " +
+                         "wallet_type VARCHAR(50), " +
+                         "bind_time DATETIME)");
+            for (int i = 1; i <= USERS; i++) {
+                stmt.execute("INSERT INTO users (username, email, password) VALUES " +
+                             "('player_" + i + "', 'player" + i + "@example.com', 'secret')");
+            }
+        }
+        Db.configure(URL, "sa", "");
+        userDao = new UserDao(new LruCache<>(0, 0), new LruCache<>(0, 0));
+    }
+
+    @AfterAll
+    static void closePool() {
+        Db.shutdown();
+    }
+
+    @Test
+    void offsetPageComesWithTheTotal() throws SQLException {
+        UserPage page = userDao.listWithTotal(10, 5, Projection.ALL);
+        assertEquals(USERS, page.getTotal());
+        assertEquals(ids(6, 15), ids(page.getUsers()));
+    }
+
+    @Test
+    void pagePastTheEndStillHasTheTotal() throws SQLException {
+        UserPage page = userDao.listWithTotal(10, 100, Projection.ALL);
+        assertTrue(page.getUsers().isEmpty());
+        assertEquals(USERS, page.getTotal());
+    }
+
+    @Test
+    void keysetPagesComeWithTheTotalInAscendingOrder() throws SQLException {
+        UserPage after = userDao.listAfterWithTotal(20, 10, Projection.ALL);
+        assertEquals(ids(21, 25), ids(after.getUsers()));
+        assertEquals(USERS, after.getTotal());
+
+        UserPage before = userDao.listBeforeWithTotal(11, 3, Projection.ALL);
+        assertEquals(ids(8, 10), ids(before.getUsers()));
+        assertEquals(USERS, before.getTotal());
+    }
+
+    @Test
+    void embeddedDatabaseDoesNotTakeMultiStatements() throws SQLException {
+        try (Connection conn = Db.getReadConnection()) {
+            assertFalse(Db.allowsMultiStatements(conn));
+        }
+    }
+
+    private static List<Integer> ids(List<User> users) {
+        List<Integer> ids = new ArrayList<>();
+        for (User user : users) {
+            ids.add(user.getId());
+        }
+        return ids;
+    }
+
+    private static List<Integer> ids(int first, int last) {
+        List<Integer> ids = new ArrayList<>();
+        for (int id = first; id <= last; id++) {
+            ids.add(id);
+        }
+        return ids;
+    }
+}
@@ -0,0 +1,90 @@
+package com.example.lambda.dao;
+
+import com.example.lambda.model.User;
+import com.example.lambda.model.UserField;
+import com.example.lambda.util.Db;
+import com.example.lambda.util.LruCache;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.EnumSet;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * Patches return the row as the write left it, read back in the same
+ * transaction, not a merge into whatever the cache held
+ */
+class PatchTest {
+    private static final String URL = "jdbc:h2:mem:patch-test;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1";
+
+    private static LruCache<Integer, User> cache;
+    private static UserDao userDao;
+
+    @BeforeAll
+    static void createDatabase() throws SQLException {
+        try (Connection conn = DriverManager.getConnection(URL, "sa", "");
+             Statement stmt = conn.createStatement()) {
+            stmt.execute("CREATE TABLE users (" +
+                         "id INT AUTO_INCREMENT PRIMARY KEY, " +
+                         "username VARCHAR(255) NOT NULL UNIQUE, " +
+                         "email VARCHAR(255) NOT NULL, " +
+                         "password VARCHAR(255) NOT NULL, " +
+                         "score INT DEFAULT 0, " +
+                         "wallet_address VARCHAR(255), " +
+                         "wallet_type VARCHAR(50), " +
+                         "bind_time DATETIME)");
+            stmt.execute("INSERT INTO users (username, email, password, score) VALUES " +
+                         "('player_1', 'current@example.com', 'secret', 10), " +
+                         "('player_2', 'player2@example.com', 'secret', 20)");
+        }
+        Db.configure(URL, "sa", "");
+        cache = new LruCache<>(100, 60_000);
+        userDao = new UserDao(cache, new LruCache<>(0, 0));
+    }
+
+    @AfterAll
+    static void closePool() {
+        Db.shutdown();
+    }
+
+    @Test
+    void patchReturnsTheDatabaseRowNotTheStaleCachedCopy() throws SQLException {
+        User stale = new User(1, "player_1", "stale@example.com", "secret", 10, null, null, null);
+        cache.put(1, stale);
+
+        User changes = new User();
+        changes.setScore(42);
+        User patched = userDao.patch(1, changes, EnumSet.of(UserField.SCORE));
+
+        assertEquals(42, patched.getScore());
+        assertEquals("current@example.com", patched.getEmail());
+        assertEquals("current@example.com", cache.get(1).getEmail());
+    }
+
+    @Test
+    void failedPatchWritesNothing() throws SQLException {
+        User changes = new User();
+        changes.setUsername("player_1");
+        try {
+            userDao.patch(2, changes, EnumSet.of(UserField.USERNAME));
+        } catch (SQLException expected) {
+            // Duplicate username
+        }
+        changes.setScore(21);
+        assertEquals("player_2", userDao.patch(2, changes, EnumSet.of(UserField.SCORE)).getUsername());
+    }
+
+    @Test
+    void patchOfMissingUserReturnsNull() throws SQLException {
+        User changes = new User();
+        changes.setScore(1);
+        assertNull(userDao.patch(99, changes, EnumSet.of(UserField.SCORE)));
+    }
+}
@@ -0,0 +1,153 @@
+package com.example.lambda.dao;
+
+import com.example.lambda.util.Db;
+import com.example.lambda.util.LruCache;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.TreeSet;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * Concurrent score increments against an embedded H2 database in MySQL mode:
+ * no increment may be lost, and each call must return its own result
+ * (read back under the UPDATE's row lock), never another writer's.
+ */
+class ScoreIncrementTest {
+    private static final String URL = "jdbc:h2:mem:score-test;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1";
+    private static final int THREADS = 8;
+    private static final int INCREMENTS_PER_THREAD = 100;
+
+    private static UserDao userDao;
+
+    @BeforeAll
+    static void createDatabase() throws SQLException {
+        try (Connection conn = DriverManager.getConnection(URL, "sa", "");
+             Statement stmt = conn.createStatement()) {
+            stmt.execute("CREATE TABLE users (" +
+                         "id INT AUTO_INCREMENT PRIMARY KEY, " +
+                         "username VARCHAR(255) NOT NULL, " +
+                         "email VARCHAR(255) NOT NULL, " +
+                         "password VARCHAR(255) NOT NULL, " +
+                         "score INT DEFAULT 0, " +
+                         "wallet_address VARCHAR(255), " +
+                         "wallet_type VARCHAR(50), " +
+                         "bind_time DATETIME)");
+            for (int i = 1; i <= 5; i++) {
+                stmt.execute("INSERT INTO users (username, email, password, score) VALUES " +
+                             "('player_" + i + "', 'player" + i + "@example.com', 'secret', " + (i == 2 ? "NULL" : "0") + ")");
+            }
+        }
+        Db.configure(URL, "sa", "");
+        // Caches off, so every call reaches the database
+        userDao = new UserDao(new LruCache<>(0, 0), new LruCache<>(0, 0));
+    }
+
+    @AfterAll
+    static void closePool() {
+        Db.shutdown();
+    }
+
+    @Test
+    void concurrentIncrementsReturnDistinctScoresAndLoseNothing() throws Exception {
+        Queue<Integer> returned = new ConcurrentLinkedQueue<>();
+        runConcurrently(() -> {
+            for (int i = 0; i < INCREMENTS_PER_THREAD; i++) {
+                returned.add(userDao.incrementScore(1, 1));
+            }
+            return null;
+        });
+
+        int total = THREADS * INCREMENTS_PER_THREAD;
+        assertEquals(total, returned.size());
+        TreeSet<Integer> distinct = new TreeSet<>(returned);
+        assertEquals(total, distinct.size(), "two increments returned the same score");
+        assertEquals(1, distinct.first());
+        assertEquals(total, distinct.last());
+        assertEquals(total, score(1));
+    }
+
+    @Test
+    void incrementTreatsNullScoreAsZero() throws SQLException {
+        assertEquals(5, userDao.incrementScore(2, 5));
+        assertEquals(5, score(2));
+    }
+
+    @Test
+    void incrementCanTakeTheScoreBelowZero() throws SQLException {
+        assertEquals(-5, userDao.incrementScore(5, -5));
+        assertEquals(-8, userDao.incrementScore(5, -3));
+        assertEquals(-8, score(5));
+    }
+
+    @Test
+    void incrementOfMissingUserReturnsNull() throws SQLException {
+        assertNull(userDao.incrementScore(999, 1));
+    }
+
+    @Test
+    void singleAndBatchIncrementsInterleaveWithoutLoss() throws Exception {
+        runConcurrently(() -> {
+            for (int i = 0; i < INCREMENTS_PER_THREAD / 10; i++) {
+                userDao.incrementScore(3, 1);
+                Map<Integer, Integer> scores = userDao.incrementScores(Map.of(3, 2, 4, -1));
+                assertEquals(2, scores.size());
+            }
+            return null;
+        });
+
+        int rounds = THREADS * INCREMENTS_PER_THREAD / 10;
+        assertEquals(rounds * 3, score(3));
+        assertEquals(-rounds, score(4));
+    }
+
+    private static void runConcurrently(Callable<Void> task) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<Void>> futures = new ArrayList<>();
+            for (int i = 0; i < THREADS; i++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    return task.call();
+                }));
+            }
+            start.countDown();
+            for (Future<Void> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static int score(int id) throws SQLException {
+        try (Connection conn = DriverManager.getConnection(URL, "sa", "");
+             PreparedStatement stmt = conn.prepareStatement("SELECT score FROM users WHERE id = ?")) {
+            stmt.setInt(1, id);
+            try (ResultSet rs = stmt.executeQuery()) {
+                rs.next();
+                return rs.getInt(1);
+            }
+        }
+    }
+}
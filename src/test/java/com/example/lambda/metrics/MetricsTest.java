@@ -0,0 +1,110 @@
+package com.example.lambda.metrics;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Asserts on the EMF lines Metrics emits, captured through setSink()
+ */
+class MetricsTest {
+    private static final ObjectMapper mapper = new ObjectMapper();
+
+    private final List<String> lines = new ArrayList<>();
+
+    @BeforeEach
+    void captureLines() {
+        Metrics.reset();
+        Metrics.setSink(lines::add);
+    }
+
+    @AfterEach
+    void restoreSink() {
+        Metrics.setSink(System.out::println);
+        Metrics.reset();
+    }
+
+    @Test
+    void firstRequestIsEmittedWhenItEnds() throws Exception {
+        long before = System.currentTimeMillis();
+        request(Phase.STATEMENT_EXECUTE);
+        Metrics.increment(Counter.DB_RETRY);
+
+        assertEquals(1, lines.size());
+        JsonNode emf = mapper.readTree(lines.get(0));
+        JsonNode directive = emf.at("/_aws/CloudWatchMetrics/0");
+        assertEquals("UserLambda", directive.get("Namespace").asText());
+        assertEquals("FunctionName", directive.at("/Dimensions/0/0").asText());
+        assertTrue(emf.at("/_aws/Timestamp").asLong() >= before);
+
+        List<String> names = metricNames(directive);
+        assertTrue(names.contains("RequestLatencyP50"));
+        assertTrue(names.contains("RequestLatencyMax"));
+        assertTrue(names.contains("StatementExecuteLatencyP99"));
+        assertFalse(names.contains("JsonParseLatencyP50"), "phases a request did not use are left out");
+        for (String name : names) {
+            assertTrue(emf.has(name), "value for " + name);
+        }
+        assertEquals(1, emf.get("Requests").asLong());
+        assertEquals(1, emf.at("/Histograms/RequestLatency/Count").asLong());
+        assertEquals(emf.at("/Histograms/RequestLatency/Values").size(),
+                     emf.at("/Histograms/RequestLatency/Counts").size());
+    }
+
+    @Test
+    void busyRequestsAreAggregatedUntilFlushed() throws Exception {
+        request(Phase.JSON_WRITE);
+        assertEquals(1, lines.size());
+
+        request(Phase.JSON_WRITE);
+        request(Phase.JSON_WRITE);
+        Metrics.increment(Counter.DB_RETRY);
+        Metrics.increment(Counter.DB_RETRY);
+        assertEquals(1, lines.size(), "requests in quick succession are held in the window");
+
+        Metrics.flush();
+        assertEquals(2, lines.size());
+        JsonNode emf = mapper.readTree(lines.get(1));
+        assertEquals(2, emf.get("Requests").asLong());
+        assertEquals(2, emf.at("/Histograms/JsonWriteLatency/Count").asLong());
+        assertEquals(2, emf.get("DbRetries").asLong());
+        assertTrue(metricNames(emf.at("/_aws/CloudWatchMetrics/0")).contains("DbRetries"));
+    }
+
+    @Test
+    void emptyWindowEmitsNothing() {
+        Metrics.increment(Counter.DB_RETRY);
+        Metrics.flush();
+        assertTrue(lines.isEmpty());
+    }
+
+    @Test
+    void timingsOutsideARequestAreIgnored() throws Exception {
+        Metrics.record(Phase.STATEMENT_EXECUTE, Metrics.start());
+        request(Phase.JSON_WRITE);
+
+        JsonNode emf = mapper.readTree(lines.get(0));
+        assertFalse(emf.at("/Histograms").has("StatementExecuteLatency"));
+    }
+
+    private static void request(Phase phase) {
+        Metrics.begin();
+        Metrics.record(phase, Metrics.start());
+        Metrics.end();
+    }
+
+    private static List<String> metricNames(JsonNode directive) {
+        List<String> names = new ArrayList<>();
+        directive.get("Metrics").forEach(metric -> names.add(metric.get("Name").asText()));
+        return names;
+    }
+}
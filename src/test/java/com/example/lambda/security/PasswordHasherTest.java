@@ -0,0 +1,44 @@
+package com.example.lambda.security;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Request-path hashes meet the latency target below the full cost and are
+ * brought up to it by the rehash after the next successful verify
+ */
+class PasswordHasherTest {
+
+    @Test
+    void requestHashUnderTheFloorVerifiesAndAsksForRehash() {
+        // A 1ms target is under the floor's cost on any CPU
+        PasswordHasher hasher = new PasswordHasher(0, 1, 1);
+        hasher.hash("warm-up");
+
+        String stored = hasher.hashForRequest("secret");
+        assertEquals(PasswordHasher.MIN_REQUEST_ITERATIONS, cost(stored));
+        assertTrue(hasher.verify("secret", stored));
+        assertFalse(hasher.verify("wrong", stored));
+        assertTrue(hasher.needsRehash(stored));
+
+        String rehashed = hasher.hash("secret");
+        assertEquals(PasswordHasher.MIN_ITERATIONS, cost(rehashed));
+        assertTrue(hasher.verify("secret", rehashed));
+        assertFalse(hasher.needsRehash(rehashed));
+    }
+
+    @Test
+    void fixedCostAppliesToRequestHashesToo() {
+        PasswordHasher hasher = new PasswordHasher(120_000, 1, 1);
+        String stored = hasher.hashForRequest("secret");
+        assertEquals(120_000, cost(stored));
+        assertFalse(hasher.needsRehash(stored));
+    }
+
+    private static int cost(String stored) {
+        return Integer.parseInt(stored.split("\\$")[1]);
+    }
+}
@@ -0,0 +1,136 @@
+package com.example.lambda.util;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.Driver;
+import java.sql.DriverManager;
+import java.sql.DriverPropertyInfo;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.util.Properties;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Idle connections are validated outside the pool's monitor, so one slow
+ * isValid round trip does not hold up other borrowers
+ */
+class ConnectionPoolTest {
+    private static final String PREFIX = "jdbc:slow-valid:";
+    private static final String URL = PREFIX + "jdbc:h2:mem:pool-test;DB_CLOSE_DELAY=-1";
+    private static final long SLOW_VALIDATION_MS = 1_000;
+
+    private static final SlowValidDriver driver = new SlowValidDriver();
+
+    @BeforeAll
+    static void registerDriver() throws SQLException {
+        DriverManager.registerDriver(driver);
+    }
+
+    @AfterAll
+    static void deregisterDriver() throws SQLException {
+        DriverManager.deregisterDriver(driver);
+    }
+
+    @Test
+    void slowValidationDoesNotBlockOtherAcquires() throws Exception {
+        // Validate on every acquire
+        ConnectionPool pool = new ConnectionPool(URL, "sa", "", 2, 0, 0, 0, 5_000, 0);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Connection first = pool.acquire();
+            Connection second = pool.acquire();
+            first.close();
+            second.close();
+
+            driver.stallNext = new CountDownLatch(1);
+            Future<Connection> stalled = executor.submit(pool::acquire);
+            assertTrue(driver.stallNext.await(5, TimeUnit.SECONDS));
+
+            long start = System.nanoTime();
+            try (Connection other = pool.acquire()) {
+                long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+                assertFalse(other.isClosed());
+                assertTrue(elapsedMs < SLOW_VALIDATION_MS / 2,
+                           "acquire waited " + elapsedMs + "ms behind another thread's validation");
+            }
+            try (Connection validated = stalled.get(5, TimeUnit.SECONDS)) {
+                assertFalse(validated.isClosed());
+            }
+        } finally {
+            executor.shutdownNow();
+            pool.close();
+        }
+    }
+
+    /**
+     * Delegates to the wrapped URL's driver; the first isValid after
+     * stallNext is set takes SLOW_VALIDATION_MS, like a half-open socket
+     */
+    private static final class SlowValidDriver implements Driver {
+        volatile CountDownLatch stallNext;
+
+        @Override
+        public Connection connect(String url, Properties info) throws SQLException {
+            if (!acceptsURL(url)) {
+                return null;
+            }
+            Connection real = DriverManager.getConnection(url.substring(PREFIX.length()), info);
+            return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                    new Class<?>[] {Connection.class}, (proxy, method, args) -> {
+                        CountDownLatch latch = stallNext;
+                        if (method.getName().equals("isValid") && latch != null && latch.getCount() > 0) {
+                            latch.countDown();
+                            Thread.sleep(SLOW_VALIDATION_MS);
+                        }
+                        try {
+                            return method.invoke(real, args);
+                        } catch (InvocationTargetException e) {
+                            throw e.getCause();
+                        }
+                    });
+        }
+
+        @Override
+        public boolean acceptsURL(String url) {
+            return url != null && url.startsWith(PREFIX);
+        }
+
+        @Override
+        public DriverPropertyInfo[] getPropertyInfo(String url, Properties info) {
+            return new DriverPropertyInfo[0];
+        }
+
+        @Override
+        public int getMajorVersion() {
+            return 1;
+        }
+
+        @Override
+        public int getMinorVersion() {
+            return 0;
+        }
+
+        @Override
+        public boolean jdbcCompliant() {
+            return false;
+        }
+
+        @Override
+        public Logger getParentLogger() throws SQLFeatureNotSupportedException {
+            throw new SQLFeatureNotSupportedException();
+        }
+    }
+}
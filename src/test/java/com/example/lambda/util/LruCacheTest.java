@@ -0,0 +1,44 @@
+package com.example.lambda.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LruCacheTest {
+    private static final long TTL_MS = 300;
+
+    @Test
+    void replaceKeepsTheOriginalExpiry() throws InterruptedException {
+        LruCache<Integer, String> cache = new LruCache<>(10, TTL_MS);
+        cache.put(1, "read");
+        Thread.sleep(TTL_MS * 2 / 3);
+
+        assertTrue(cache.replace(1, "patched"));
+        assertEquals("patched", cache.get(1));
+
+        Thread.sleep(TTL_MS * 2 / 3);
+        assertNull(cache.get(1), "replacing must not extend the entry's life");
+    }
+
+    @Test
+    void putStartsANewLifetime() throws InterruptedException {
+        LruCache<Integer, String> cache = new LruCache<>(10, TTL_MS);
+        cache.put(1, "read");
+        Thread.sleep(TTL_MS * 2 / 3);
+
+        cache.put(1, "re-read");
+        Thread.sleep(TTL_MS * 2 / 3);
+        assertEquals("re-read", cache.get(1));
+    }
+
+    @Test
+    void replaceDoesNotCacheAbsentKeys() {
+        LruCache<Integer, String> cache = new LruCache<>(10, TTL_MS);
+
+        assertFalse(cache.replace(1, "patched"));
+        assertNull(cache.get(1));
+    }
+}
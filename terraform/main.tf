@@ -64,7 +64,7 @@ resource "aws_lambda_function" "user_function" {
   role             = aws_iam_role.lambda_execution_role.arn
   handler          = "com.example.lambda.UserHandler::handleRequest"
   source_code_hash = data.archive_file.lambda_zip.output_base64sha256
-  runtime          = "java17"
+  runtime          = "java21"
   timeout          = 30
   memory_size      = 512
 
@@ -91,6 +91,72 @@ resource "aws_cloudwatch_log_group" "lambda_logs" {
   tags              = var.tags
 }
 
+# Queue of user mutations applied in batches by the mutation function
+resource "aws_sqs_queue" "user_mutations_dlq" {
+  name                      = "${var.function_name}-mutations-dlq"
+  message_retention_seconds = 1209600
+  tags                      = var.tags
+}
+
+resource "aws_sqs_queue" "user_mutations" {
+  name = "${var.function_name}-mutations"
+  # AWS recommends at least six times the function timeout
+  visibility_timeout_seconds = 6 * 30
+
+  redrive_policy = jsonencode({
+    deadLetterTargetArn = aws_sqs_queue.user_mutations_dlq.arn
+    maxReceiveCount     = var.mutation_max_receive_count
+  })
+
+  tags = var.tags
+}
+
+resource "aws_iam_role_policy_attachment" "lambda_sqs_execution" {
+  role       = aws_iam_role.lambda_execution_role.name
+  policy_arn = "arn:aws:iam::aws:policy/service-role/AWSLambdaSQSQueueExecutionRole"
+}
+
+resource "aws_lambda_function" "user_mutation_function" {
+  filename         = data.archive_file.lambda_zip.output_path
+  function_name    = "${var.function_name}-mutations"
+  role             = aws_iam_role.lambda_execution_role.arn
+  handler          = "com.example.lambda.UserQueueHandler::handleRequest"
+  source_code_hash = data.archive_file.lambda_zip.output_base64sha256
+  runtime          = "java21"
+  timeout          = 30
+  memory_size      = 512
+
+  environment {
+    variables = {
+      DB_URL      = var.db_url
+      DB_USER     = var.db_user
+      DB_PASSWORD = var.db_password
+    }
+  }
+
+  tags = var.tags
+
+  depends_on = [
+    aws_iam_role_policy_attachment.lambda_basic_execution,
+    aws_iam_role_policy_attachment.lambda_sqs_execution,
+    aws_cloudwatch_log_group.mutation_logs
+  ]
+}
+
+resource "aws_cloudwatch_log_group" "mutation_logs" {
+  name              = "/aws/lambda/${var.function_name}-mutations"
+  retention_in_days = 14
+  tags              = var.tags
+}
+
+resource "aws_lambda_event_source_mapping" "user_mutations" {
+  event_source_arn                   = aws_sqs_queue.user_mutations.arn
+  function_name                      = aws_lambda_function.user_mutation_function.arn
+  batch_size                         = var.mutation_batch_size
+  maximum_batching_window_in_seconds = var.mutation_batching_window_seconds
+  function_response_types            = ["ReportBatchItemFailures"]
+}
+
 # API Gateway HTTP API
 resource "aws_apigatewayv2_api" "user_api" {
   name          = var.api_name
@@ -100,7 +166,7 @@ resource "aws_apigatewayv2_api" "user_api" {
   cors_configuration {
     allow_credentials = false
     allow_headers     = ["content-type", "x-amz-date", "authorization", "x-api-key", "x-amz-security-token"]
-    allow_methods     = ["GET", "POST", "PUT", "DELETE", "OPTIONS"]
+    allow_methods     = ["GET", "POST", "PUT", "PATCH", "DELETE", "OPTIONS"]
     allow_origins     = ["*"]
     expose_headers    = ["date", "keep-alive"]
     max_age           = 86400
@@ -161,6 +227,18 @@ resource "aws_apigatewayv2_route" "users_with_id_route" {
   target    = "integrations/${aws_apigatewayv2_integration.lambda_integration.id}"
 }
 
+resource "aws_apigatewayv2_route" "user_rank_route" {
+  api_id    = aws_apigatewayv2_api.user_api.id
+  route_key = "GET /users/{id}/rank"
+  target    = "integrations/${aws_apigatewayv2_integration.lambda_integration.id}"
+}
+
+resource "aws_apigatewayv2_route" "user_score_route" {
+  api_id    = aws_apigatewayv2_api.user_api.id
+  route_key = "POST /users/{id}/score"
+  target    = "integrations/${aws_apigatewayv2_integration.lambda_integration.id}"
+}
+
 # Lambda permission for API Gateway
 resource "aws_lambda_permission" "api_gateway_lambda" {
   statement_id  = "AllowExecutionFromAPIGateway"
@@ -49,3 +49,13 @@ output "test_commands" {
     get_user    = "curl -X GET ${aws_apigatewayv2_api.user_api.api_endpoint}/${aws_apigatewayv2_stage.user_api_stage.name}/users/1"
   }
 }
+
+output "user_mutations_queue_url" {
+  description = "URL of the user mutation queue"
+  value       = aws_sqs_queue.user_mutations.url
+}
+
+output "user_mutations_dlq_url" {
+  description = "URL of the user mutation dead-letter queue"
+  value       = aws_sqs_queue.user_mutations_dlq.url
+}
@@ -70,3 +70,21 @@ variable "log_retention_days" {
   type        = number
   default     = 14
 }
+
+variable "mutation_batch_size" {
+  description = "Maximum SQS messages per mutation function invocation; each create or update hashes a password (~240 ms at 512 MB), and records that do not fit in the 30 s timeout are retried"
+  type        = number
+  default     = 50
+}
+
+variable "mutation_batching_window_seconds" {
+  description = "How long SQS waits to fill a mutation batch"
+  type        = number
+  default     = 1
+}
+
+variable "mutation_max_receive_count" {
+  description = "Deliveries of a failing mutation before it moves to the dead-letter queue"
+  type        = number
+  default     = 5
+}